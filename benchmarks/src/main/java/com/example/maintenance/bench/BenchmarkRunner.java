@@ -0,0 +1,59 @@
+package com.example.maintenance.bench;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Runs the benchmarks with the usual JMH command-line options and, unless {@code -rff} is given,
+ * writes JSON results to {@code benchmarks/results/jmh-<timestamp>.json} so runs can be compared
+ * over time. The directory is found from where this class was loaded ({@code target/} of the
+ * benchmarks module), so it is the same whichever directory the jar is started from.
+ */
+public final class BenchmarkRunner {
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions cmd = new CommandLineOptions(args);
+        if (cmd.shouldHelp()) {
+            cmd.showHelp();
+            return;
+        }
+        if (cmd.shouldList() || cmd.shouldListWithParams()) {
+            Runner runner = new Runner(cmd);
+            if (cmd.shouldListWithParams()) runner.listWithParams(cmd);
+            else runner.list();
+            return;
+        }
+        ChainedOptionsBuilder opts = new OptionsBuilder().parent(cmd);
+        if (!cmd.getResult().hasValue()) {
+            Path dir = resultsDirectory();
+            Files.createDirectories(dir);
+            String stamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+            opts.result(dir.resolve("jmh-" + stamp + ".json").toString());
+        }
+        if (!cmd.getResultFormat().hasValue()) {
+            opts.resultFormat(ResultFormatType.JSON);
+        }
+        new Runner(opts.build()).run();
+    }
+
+    // benchmarks/target/benchmarks.jar or benchmarks/target/classes -> benchmarks/results
+    private static Path resultsDirectory() throws URISyntaxException {
+        Path loadedFrom = Path.of(BenchmarkRunner.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        Path target = loadedFrom.toAbsolutePath().getParent();
+        if (target == null || target.getParent() == null) {
+            throw new IllegalStateException("Cannot find the benchmarks module from " + loadedFrom + "; pass -rff FILE");
+        }
+        return target.getParent().resolve("results");
+    }
+}
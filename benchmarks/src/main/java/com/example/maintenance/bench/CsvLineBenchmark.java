@@ -0,0 +1,48 @@
+package com.example.maintenance.bench;
+
+import com.example.maintenance.model.MaintenanceItem;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class CsvLineBenchmark {
+    private static final int SAMPLE = 1024;
+
+    private MaintenanceItem[] items;
+    private String[] lines;
+    private int i;
+
+    @Setup
+    public void setUp() {
+        List<MaintenanceItem> fleet = FleetGenerator.generate(SAMPLE, 7);
+        items = fleet.toArray(new MaintenanceItem[0]);
+        lines = new String[SAMPLE];
+        for (int k = 0; k < SAMPLE; k++) lines[k] = items[k].toCsvLine();
+    }
+
+    @Benchmark
+    public MaintenanceItem fromCsvLine() {
+        return MaintenanceItem.fromCsvLine(lines[i++ & (SAMPLE - 1)]);
+    }
+
+    @Benchmark
+    public String toCsvLine() {
+        return items[i++ & (SAMPLE - 1)].toCsvLine();
+    }
+}
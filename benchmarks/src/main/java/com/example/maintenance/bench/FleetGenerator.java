@@ -0,0 +1,38 @@
+package com.example.maintenance.bench;
+
+import com.example.maintenance.model.MaintenanceItem;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Synthetic fleets shaped like data/items.csv: "veh-N" ids, "{vehicle} {task}" names drawn from
+ * the same vehicle types and tasks, service dates over three years and the same set of intervals.
+ */
+public final class FleetGenerator {
+    static final String[] VEHICLES = {"Bus", "Van", "Truck", "Car", "Bike", "Scooter"};
+    static final String[] TASKS = {
+        "Oil Change", "Brake Inspection", "Tire Rotation", "Wheel Alignment", "Battery Check",
+        "Air Filter Replacement", "Coolant Flush", "Suspension Check", "Fuel System Cleaning",
+        "Transmission Service"
+    };
+    static final int[] INTERVALS = {30, 60, 90, 120, 180, 365};
+    private static final long FIRST_DAY = LocalDate.of(2023, 1, 1).toEpochDay();
+    private static final int SPAN_DAYS = 3 * 365;
+
+    private FleetGenerator() {
+    }
+
+    public static List<MaintenanceItem> generate(int count, long seed) {
+        Random r = new Random(seed);
+        List<MaintenanceItem> out = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            String name = VEHICLES[r.nextInt(VEHICLES.length)] + " " + TASKS[r.nextInt(TASKS.length)];
+            LocalDate last = LocalDate.ofEpochDay(FIRST_DAY + r.nextInt(SPAN_DAYS));
+            out.add(new MaintenanceItem("veh-" + i, name, last, INTERVALS[r.nextInt(INTERVALS.length)]));
+        }
+        return out;
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.maintenance.bench;
+
+import com.example.maintenance.core.ColumnarItemStore;
+import com.example.maintenance.core.MaintenanceScheduler;
+import com.example.maintenance.model.MaintenanceItem;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/** Classifying a whole fleet: per-item {@code status()} against the batch and index paths. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SchedulerBenchmark {
+    @Param({"10000", "100000", "1000000"})
+    public int rows;
+
+    private List<MaintenanceItem> fleet;
+    private ColumnarItemStore store;
+    private byte[] statuses;
+    private int[] daysUntil;
+    private int today;
+
+    @Setup
+    public void setUp() {
+        fleet = FleetGenerator.generate(rows, 42);
+        store = ColumnarItemStore.of(fleet);
+        statuses = new byte[rows];
+        daysUntil = new int[rows];
+        today = MaintenanceScheduler.today();
+    }
+
+    @Benchmark
+    public void statusPerItem(Blackhole bh) {
+        for (MaintenanceItem it : fleet) bh.consume(MaintenanceScheduler.status(it));
+    }
+
+    @Benchmark
+    public int[] classifyList() {
+        return MaintenanceScheduler.classify(fleet, today, statuses, daysUntil);
+    }
+
+    @Benchmark
+    public int[] classifyColumnar() {
+        return store.classify(today, statuses, daysUntil);
+    }
+
+    @Benchmark
+    public int[] statusCountsFromIndex() {
+        return store.statusCounts(today);
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.maintenance.bench;
+
+import com.example.maintenance.io.Storage;
+import com.example.maintenance.model.MaintenanceItem;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class StorageBenchmark {
+    @Param({"10000", "100000", "1000000"})
+    public int rows;
+
+    private Path dir;
+    private Path csv;
+    private Path bin;
+    private List<MaintenanceItem> fleet;
+    private Storage incremental;
+    private List<MaintenanceItem> loaded;
+    private int tick;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        dir = Files.createTempDirectory("vmt-bench");
+        csv = dir.resolve("items.csv");
+        bin = dir.resolve("items.bin");
+        fleet = FleetGenerator.generate(rows, 42);
+        new Storage(csv).saveSnapshot(fleet);
+        new Storage(bin).saveSnapshot(fleet);
+        incremental = new Storage(dir.resolve("incremental.csv"));
+        incremental.saveSnapshot(fleet);
+        // a compaction mid-iteration would be timed as part of saveOneChange
+        incremental.setAutoCompaction(false);
+        loaded = incremental.load();
+    }
+
+    /** Folds the journal between iterations, so it does not grow across the whole trial. */
+    @TearDown(Level.Iteration)
+    public void compactJournal() throws Exception {
+        incremental.compact();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public List<MaintenanceItem> loadCsv() throws Exception {
+        return new Storage(csv).load();
+    }
+
+    @Benchmark
+    public List<MaintenanceItem> loadBinary() throws Exception {
+        return new Storage(bin).load();
+    }
+
+    @Benchmark
+    public void saveFullCsv() throws Exception {
+        new Storage(csv).saveSnapshot(fleet);
+    }
+
+    @Benchmark
+    public void saveFullBinary() throws Exception {
+        new Storage(bin).saveSnapshot(fleet);
+    }
+
+    /** One changed item per save, going through the journal. */
+    @Benchmark
+    public void saveOneChange() throws Exception {
+        MaintenanceItem changed = loaded.get(0);
+        changed.setLastServiceDate(LocalDate.of(2024, 1, 1).plusDays(tick++ % 365));
+        incremental.saveChanges(loaded, List.of(changed), List.of());
+    }
+}
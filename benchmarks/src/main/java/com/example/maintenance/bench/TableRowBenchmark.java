@@ -0,0 +1,57 @@
+package com.example.maintenance.bench;
+
+import com.example.maintenance.core.ColumnarItemStore;
+import com.example.maintenance.gui.ItemTableModel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cell formatting through the GUI's {@link ItemTableModel}, without Swing: one screenful of rows
+ * (what a repaint asks for) and every cell of every row (the cost the old full rebuild paid).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class TableRowBenchmark {
+    private static final int VISIBLE_ROWS = 25;
+
+    @Param({"10000", "100000", "1000000"})
+    public int rows;
+
+    private ItemTableModel model;
+
+    @Setup
+    public void setUp() {
+        model = new ItemTableModel(ColumnarItemStore.of(FleetGenerator.generate(rows, 42)));
+    }
+
+    @Benchmark
+    public void visibleRows(Blackhole bh) {
+        int first = rows / 2;
+        for (int r = first; r < first + VISIBLE_ROWS; r++) {
+            for (int c = 0; c < model.getColumnCount(); c++) bh.consume(model.getValueAt(r, c));
+        }
+    }
+
+    @Benchmark
+    public void allRows(Blackhole bh) {
+        for (int r = 0; r < model.getRowCount(); r++) {
+            for (int c = 0; c < model.getColumnCount(); c++) bh.consume(model.getValueAt(r, c));
+        }
+    }
+}
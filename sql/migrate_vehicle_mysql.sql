@@ -0,0 +1,8 @@
+-- Adds the vehicle column to a MySQL database created before it existed.
+-- Run with: mysql -u user -p yourdb < sql/migrate_vehicle_mysql.sql
+-- Rows keep a NULL vehicle until rewritten; the app derives one from the name when reading them,
+-- and `Main migrate` stores the derived values.
+
+ALTER TABLE maintenance_items ADD COLUMN vehicle VARCHAR(128) NULL AFTER interval_days;
+
+CREATE INDEX idx_maintenance_vehicle ON maintenance_items(vehicle);
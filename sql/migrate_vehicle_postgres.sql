@@ -0,0 +1,20 @@
+-- Adds the vehicle column to a PostgreSQL database created before it existed.
+-- Run with: psql -d yourdb -f sql/migrate_vehicle_postgres.sql
+-- Rows keep a NULL vehicle until rewritten; the app derives one from the name when reading them,
+-- and `Main migrate` stores the derived values.
+
+ALTER TABLE maintenance_items ADD COLUMN IF NOT EXISTS vehicle TEXT;
+
+CREATE INDEX IF NOT EXISTS idx_maintenance_vehicle ON maintenance_items(vehicle);
+
+-- New columns can only be appended to an existing view.
+CREATE OR REPLACE VIEW maintenance_with_next AS
+SELECT
+  id,
+  name,
+  last_service_date,
+  interval_days,
+  (last_service_date + (interval '1 day' * interval_days))::date AS next_service_date,
+  ( (last_service_date + (interval '1 day' * interval_days))::date - CURRENT_DATE ) AS days_until_next,
+  vehicle
+FROM maintenance_items;
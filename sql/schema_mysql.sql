@@ -6,6 +6,7 @@ CREATE TABLE IF NOT EXISTS maintenance_items (
   name VARCHAR(512) NOT NULL,
   last_service_date DATE NOT NULL,
   interval_days INT NOT NULL,
+  vehicle VARCHAR(128) NULL,
   created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
   updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
   -- computed/generated column for next service date (MySQL 5.7+)
@@ -13,6 +14,7 @@ CREATE TABLE IF NOT EXISTS maintenance_items (
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
 
 CREATE INDEX idx_maintenance_last_service_date ON maintenance_items(last_service_date);
+CREATE INDEX idx_maintenance_vehicle ON maintenance_items(vehicle);
 
 -- Example query: items due within 7 days or overdue
 -- SELECT id, name, last_service_date, interval_days, next_service_date,
@@ -27,6 +29,7 @@ CREATE INDEX idx_maintenance_last_service_date ON maintenance_items(last_service
 -- FIELDS TERMINATED BY ','
 -- OPTIONALLY ENCLOSED BY '"'
 -- LINES TERMINATED BY '\n'
--- (id, name, last_service_date, interval_days);
+-- (id, name, last_service_date, interval_days, @vehicle)
+-- SET vehicle = NULLIF(@vehicle, '');
 
 -- If your MySQL server forbids LOCAL, copy the file to server and use LOAD DATA INFILE instead.
@@ -6,6 +6,7 @@ CREATE TABLE IF NOT EXISTS maintenance_items (
     name TEXT NOT NULL,
     last_service_date DATE NOT NULL,
     interval_days INTEGER NOT NULL,
+    vehicle TEXT,
     created_at TIMESTAMPTZ DEFAULT now(),
     updated_at TIMESTAMPTZ DEFAULT now()
 );
@@ -19,6 +20,7 @@ CREATE TABLE IF NOT EXISTS maintenance_items (
 
 -- Create an index on last_service_date to speed queries
 CREATE INDEX IF NOT EXISTS idx_maintenance_last_service_date ON maintenance_items(last_service_date);
+CREATE INDEX IF NOT EXISTS idx_maintenance_vehicle ON maintenance_items(vehicle);
 
 -- Helpful view that computes next service date and days until next service
 CREATE OR REPLACE VIEW maintenance_with_next AS
@@ -28,7 +30,8 @@ SELECT
   last_service_date,
   interval_days,
   (last_service_date + (interval '1 day' * interval_days))::date AS next_service_date,
-  ( (last_service_date + (interval '1 day' * interval_days))::date - CURRENT_DATE ) AS days_until_next
+  ( (last_service_date + (interval '1 day' * interval_days))::date - CURRENT_DATE ) AS days_until_next,
+  vehicle
 FROM maintenance_items;
 
 -- Example query: upcoming due within 7 days or overdue
@@ -37,13 +40,13 @@ FROM maintenance_items;
 -- ORDER BY days_until_next ASC;
 
 -- Import from CSV (if your CSV lives on the DB server):
--- COPY maintenance_items(id,name,last_service_date,interval_days)
+-- COPY maintenance_items(id,name,last_service_date,interval_days,vehicle)
 -- FROM '/path/to/data/items.csv' DELIMITER ',' CSV HEADER;
 
--- If the CSV has no header and matches columns order: id,name,last_service_date,interval_days
+-- If the CSV has no header and matches columns order: id,name,last_service_date,interval_days,vehicle
 -- you can use: COPY maintenance_items FROM '/path/to/data/items.csv' DELIMITER ',' CSV;
 
 -- Alternatively, use psql with client-side input:
--- \copy maintenance_items(id,name,last_service_date,interval_days) FROM 'data/items.csv' WITH (FORMAT csv, HEADER false);
+-- \copy maintenance_items(id,name,last_service_date,interval_days,vehicle) FROM 'data/items.csv' WITH (FORMAT csv, HEADER false);
 
 -- Make sure dates in CSV are ISO format (YYYY-MM-DD) for easy import.
@@ -1,21 +1,28 @@
 package com.example.maintenance;
 
+import com.example.maintenance.cli.BatchCommands;
 import com.example.maintenance.cli.CLI;
-import com.example.maintenance.io.Storage;
-
-import java.nio.file.Path;
-import java.util.List;
-
-import com.example.maintenance.model.MaintenanceItem;
+import com.example.maintenance.core.ColumnarItemStore;
+import com.example.maintenance.io.ItemStorage;
+import com.example.maintenance.metrics.Metrics;
 
 public class Main {
     public static void main(String[] args) {
+        // The JDK HTTP server behind `serve` writes headers and body separately; with Nagle on,
+        // every keep-alive response waits out the client's delayed ACK (~40 ms). The server reads
+        // this once when it starts, so it is set here; -Dsun.net.httpserver.nodelay=false wins.
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+        Metrics.registerJmx();
+        if (args.length > 0) {
+            System.exit(BatchCommands.run(args));
+        }
         try {
-            Path data = Storage.defaultPath();
-            Storage storage = new Storage(data);
-            List<MaintenanceItem> items = storage.load();
+            ItemStorage storage = ItemStorage.configured();
+            ColumnarItemStore store = ColumnarItemStore.of(storage.load());
 
-            CLI cli = new CLI(storage, items);
+            CLI cli = new CLI(storage, store);
             cli.run();
         } catch (Exception ex) {
             System.err.println("Fatal error: " + ex.getMessage());
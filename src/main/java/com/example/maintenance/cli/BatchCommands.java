@@ -0,0 +1,470 @@
+package com.example.maintenance.cli;
+
+import com.example.maintenance.core.AlertEngine;
+import com.example.maintenance.core.ColumnarItemStore;
+import com.example.maintenance.core.FleetRollups;
+import com.example.maintenance.core.ItemRepository;
+import com.example.maintenance.core.MaintenanceScheduler;
+import com.example.maintenance.core.WorkloadForecast;
+import com.example.maintenance.http.ApiServer;
+import com.example.maintenance.io.AlertFileSink;
+import com.example.maintenance.io.CsvFormat;
+import com.example.maintenance.io.CsvImporter;
+import com.example.maintenance.io.ItemStorage;
+import com.example.maintenance.io.JsonFormat;
+import com.example.maintenance.io.ServiceHistory;
+import com.example.maintenance.io.ShardedStorage;
+import com.example.maintenance.metrics.Metrics;
+import com.example.maintenance.model.ItemFootprint;
+import com.example.maintenance.model.MaintenanceItem;
+import com.example.maintenance.model.ServiceEvent;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Non-interactive subcommands for scripts and cron jobs:
+ * <pre>
+ *   [--data FILE] report [--due-within DAYS] [--format csv|json]
+ *   [--data FILE] stats
+ *   [--data FILE] footprint
+ *   [--data FILE] fleet [--by vehicle|task]
+ *   [--data FILE] forecast [--days N] [--by task]
+ *   [--data FILE] migrate
+ *   [--data FILE] shard [--shards N] [--to DIR]
+ *   [--data FILE] history [--item ID] [--from DATE] [--to DATE]
+ *   [--data FILE] import CSV [--rejects FILE] [--workers N]
+ *   [--data FILE] serve [--port PORT] [--bind ADDRESS] [--import CSV] [--alerts FILE]
+ * </pre>
+ * Reports stream items from the storage layer through one buffered writer, so output size does
+ * not depend on memory and no per-line formatting or flushing is paid.
+ */
+public class BatchCommands {
+    static final int OK = 0;
+    static final int FAILED = 1;
+    static final int USAGE = 2;
+
+    private static final String USAGE_TEXT = String.join("\n",
+            "Usage: Main [--data FILE] [--metrics] <command> [options]",
+            "  report [--due-within DAYS] [--format csv|json]   items due within DAYS (default 7) or overdue",
+            "  stats                                            counts by status",
+            "  footprint                                        estimated heap of the loaded items, with and without interning",
+            "  fleet [--by vehicle|task]                        overdue and due counts per vehicle or task type",
+            "  forecast [--days N] [--by task]                  services due per day for N days (default 365)",
+            "  migrate                                          rewrite the data in the current format",
+            "  shard [--shards N] [--to DIR]                    copy the data into N hash shards (default 16)",
+            "  history [--item ID] [--from DATE] [--to DATE]    recorded services, oldest first",
+            "  import CSV [--rejects FILE] [--workers N]        upsert a CSV file into the data file",
+            "  serve [--port PORT] [--bind ADDRESS]             HTTP API on PORT (default 8080) until stopped",
+            "        [--import CSV] [--alerts FILE]             upsert CSV while serving; append status changes to FILE",
+            "--data may name a data file or a shard directory. Without it, the data file, the",
+            "-Dmaintenance.shards=N shard directory or the -Dmaintenance.jdbc.url database is used.",
+            "With --metrics, load/save and scan timings are printed to stderr after the command.");
+
+    private final Writer out;
+    private final int today;
+
+    BatchCommands(Writer out, int today) {
+        this.out = out;
+        this.today = today;
+    }
+
+    /** Runs one command and returns the process exit code. */
+    public static int run(String[] args) {
+        Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), 1 << 16);
+        try {
+            return new BatchCommands(out, MaintenanceScheduler.today()).dispatch(args);
+        } finally {
+            try {
+                out.flush();
+            } catch (IOException ex) {
+                System.err.println("Failed to write output: " + ex.getMessage());
+            }
+        }
+    }
+
+    int dispatch(String[] args) {
+        Args a = new Args(args);
+        ItemStorage storage = null;
+        boolean metrics = false;
+        try {
+            String data = a.option("--data");
+            metrics = a.flag("--metrics");
+            String command = a.next();
+            if (command == null || command.equals("help") || command.equals("--help")) {
+                System.err.println(USAGE_TEXT);
+                return command == null ? USAGE : OK;
+            }
+            storage = data != null ? ItemStorage.open(Path.of(data)) : ItemStorage.configured();
+            switch (command) {
+                case "report":
+                    return report(storage, a);
+                case "stats":
+                    return stats(storage, a);
+                case "footprint":
+                    return footprint(storage, a);
+                case "fleet":
+                    return fleet(storage, a);
+                case "forecast":
+                    return forecast(storage, a);
+                case "migrate":
+                    return migrate(storage, a);
+                case "shard":
+                    return shard(storage, a);
+                case "history":
+                    return history(storage, a);
+                case "import":
+                    return importCsv(storage, a);
+                case "serve":
+                    return serve(storage, a);
+                default:
+                    System.err.println("Unknown command: " + command);
+                    System.err.println(USAGE_TEXT);
+                    return USAGE;
+            }
+        } catch (IllegalArgumentException ex) {
+            System.err.println(ex.getMessage());
+            System.err.println(USAGE_TEXT);
+            return USAGE;
+        } catch (Exception ex) {
+            Throwable cause = ex instanceof UncheckedIOException ? ex.getCause() : ex;
+            System.err.println("Failed: " + cause.getMessage());
+            return FAILED;
+        } finally {
+            if (storage != null) {
+                try {
+                    storage.close();
+                } catch (Exception ex) {
+                    System.err.println("Failed to close storage: " + ex.getMessage());
+                }
+            }
+            if (metrics) System.err.print(Metrics.dump());
+        }
+    }
+
+    private int report(ItemStorage storage, Args a) throws Exception {
+        int within = a.intOption("--due-within", MaintenanceScheduler.DUE_SOON_DAYS);
+        String format = a.option("--format", "csv");
+        a.requireEmpty();
+        LocalDate last = LocalDate.ofEpochDay(today + (long) within);
+        if (format.equals("csv")) {
+            out.write("id,name,vehicle,last_service_date,interval_days,next_service_date,days_until,status\n");
+            storage.forEachDueBy(last, this::writeCsv);
+        } else if (format.equals("json")) {
+            out.write('[');
+            boolean[] first = {true};
+            storage.forEachDueBy(last, it -> {
+                writeJson(it, first[0]);
+                first[0] = false;
+            });
+            out.write(first[0] ? "]\n" : "\n]\n");
+        } else {
+            throw new IllegalArgumentException("Unknown format: " + format);
+        }
+        return OK;
+    }
+
+    private int stats(ItemStorage storage, Args a) throws Exception {
+        a.requireEmpty();
+        long[] counts = new long[MaintenanceScheduler.Status.values().length];
+        long[] intervals = {Long.MAX_VALUE, Long.MIN_VALUE, 0};
+        Set<String> names = new HashSet<>();
+        storage.forEach(it -> {
+            counts[MaintenanceScheduler.status(it, today).ordinal()]++;
+            intervals[0] = Math.min(intervals[0], it.getIntervalDays());
+            intervals[1] = Math.max(intervals[1], it.getIntervalDays());
+            intervals[2] += it.getIntervalDays();
+            names.add(it.getName());
+        });
+        long total = 0;
+        for (long c : counts) total += c;
+        out.write("items=" + total + "\n");
+        for (MaintenanceScheduler.Status s : MaintenanceScheduler.Status.values()) {
+            out.write(s.name().toLowerCase() + "=" + counts[s.ordinal()] + "\n");
+        }
+        out.write("distinct_names=" + names.size() + "\n");
+        if (total > 0) {
+            out.write("interval_days_min=" + intervals[0] + "\n");
+            out.write("interval_days_max=" + intervals[1] + "\n");
+            out.write(String.format("interval_days_avg=%.1f%n", (double) intervals[2] / total));
+        }
+        return OK;
+    }
+
+    // Estimates from the object layout, so the result does not depend on when the GC last ran.
+    private int footprint(ItemStorage storage, Args a) throws Exception {
+        a.requireEmpty();
+        ItemFootprint f = new ItemFootprint();
+        for (MaintenanceItem it : storage.load()) f.add(it);
+        long items = Math.max(1, f.getItems());
+        // sizes come from ItemFootprint's layout model, not from measuring the heap
+        out.write("estimate=layout model (64-bit JVM, compressed oops), not measured retained heap\n");
+        out.write("items=" + f.getItems() + "\n");
+        out.write("distinct_values=" + f.getDistinctValues() + "\n");
+        out.write("bytes_without_interning=" + f.getUnsharedBytes() + "\n");
+        out.write("bytes_with_interning=" + f.getSharedBytes() + "\n");
+        out.write("bytes_per_item_without_interning=" + f.getUnsharedBytes() / items + "\n");
+        out.write("bytes_per_item_with_interning=" + f.getSharedBytes() / items + "\n");
+        if (f.getUnsharedBytes() > 0) {
+            out.write(String.format("saved_percent=%.1f%n", 100.0 * (f.getUnsharedBytes() - f.getSharedBytes()) / f.getUnsharedBytes()));
+        }
+        return OK;
+    }
+
+    private int fleet(ItemStorage storage, Args a) throws Exception {
+        String by = a.option("--by", "vehicle");
+        a.requireEmpty();
+        if (!by.equals("vehicle") && !by.equals("task")) throw new IllegalArgumentException("Unknown grouping: " + by);
+        FleetRollups rollups = ColumnarItemStore.of(storage.load()).rollups(today);
+        YearMonth month = YearMonth.from(LocalDate.ofEpochDay(today));
+        out.write(by + ",items,overdue,next_due_date,services_this_month,due_this_month\n");
+        for (FleetRollups.Rollup r : by.equals("vehicle") ? rollups.vehicles() : rollups.tasks()) {
+            out.write(CsvFormat.field(r.getKey()) + "," + r.getItems() + "," + r.getOverdue() + "," + r.getNextDueDate() + ","
+                    + r.getServicesIn(month) + "," + r.getDueIn(month) + "\n");
+        }
+        return OK;
+    }
+
+    private int forecast(ItemStorage storage, Args a) throws Exception {
+        int days = a.intOption("--days", 365);
+        String by = a.option("--by");
+        a.requireEmpty();
+        if (days < 0) throw new IllegalArgumentException("--days must be >= 0");
+        if (by != null && !by.equals("task")) throw new IllegalArgumentException("Unknown grouping: " + by);
+        WorkloadForecast f = ColumnarItemStore.of(storage.load()).forecast(today, days);
+        if (by == null) {
+            out.write("date,services\n");
+            for (int d = 0; d < days; d++) out.write(LocalDate.ofEpochDay(today + (long) d) + "," + f.onDay(d) + "\n");
+        } else {
+            out.write("date,task,services\n");
+            List<String> tasks = f.getTaskTypes();
+            List<int[]> counts = new ArrayList<>();
+            for (String t : tasks) counts.add(f.daily(t));
+            for (int d = 0; d < days; d++) {
+                String date = LocalDate.ofEpochDay(today + (long) d).toString();
+                for (int t = 0; t < tasks.size(); t++) {
+                    int n = counts.get(t)[d];
+                    if (n > 0) out.write(date + "," + CsvFormat.field(tasks.get(t)) + "," + n + "\n");
+                }
+            }
+        }
+        System.err.println(f.getTotal() + " services over " + days + " days; " + f.getOverdue() + " items already overdue");
+        return OK;
+    }
+
+    // Loading fills in what older files lack (vehicles derived from names); saving writes it back.
+    private int migrate(ItemStorage storage, Args a) throws Exception {
+        a.requireEmpty();
+        List<MaintenanceItem> items = storage.load();
+        storage.rewrite(items);
+        out.write("Rewrote " + items.size() + " items in " + storage.location() + "\n");
+        return OK;
+    }
+
+    private int shard(ItemStorage storage, Args a) throws Exception {
+        int count = a.intOption("--shards", ShardedStorage.DEFAULT_SHARDS);
+        Path dir = Path.of(a.option("--to", ShardedStorage.defaultDirectory().toString()));
+        a.requireEmpty();
+        if (count < 1) throw new IllegalArgumentException("--shards must be >= 1");
+        if (ShardedStorage.isShardDirectory(dir)) {
+            System.err.println("Already sharded: " + dir);
+            return FAILED;
+        }
+        List<MaintenanceItem> items = storage.load();
+        try (ShardedStorage target = new ShardedStorage(dir, count)) {
+            target.rewrite(items);
+            // the history is keyed by item id only, so it carries over as is
+            Path history = storage.historyDirectory();
+            if (Files.isDirectory(history) && !Files.exists(target.historyDirectory())) {
+                copyDirectory(history, target.historyDirectory());
+            }
+            out.write("Wrote " + items.size() + " items from " + storage.location() + " into " + target.location() + "\n");
+            out.write("Use it with --data " + dir + (dir.equals(ShardedStorage.defaultDirectory())
+                    ? " or -D" + ItemStorage.SHARDS_PROPERTY + "=" + count : "") + "\n");
+        }
+        return OK;
+    }
+
+    private static void copyDirectory(Path from, Path to) throws IOException {
+        Files.createDirectories(to);
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(from)) {
+            for (Path f : files) {
+                if (Files.isRegularFile(f)) Files.copy(f, to.resolve(f.getFileName()));
+            }
+        }
+    }
+
+    private int history(ItemStorage storage, Args a) throws Exception {
+        String item = a.option("--item");
+        LocalDate from = a.dateOption("--from");
+        LocalDate to = a.dateOption("--to");
+        a.requireEmpty();
+        out.write("item_id,service_date,interval_days\n");
+        try (ServiceHistory history = new ServiceHistory(storage.historyDirectory())) {
+            for (ServiceEvent e : history.query(item, from, to)) {
+                out.write(CsvFormat.field(e.getItemId()) + "," + e.getDate() + "," + e.getIntervalDays() + "\n");
+            }
+        }
+        return OK;
+    }
+
+    private int importCsv(ItemStorage storage, Args a) throws Exception {
+        String rejects = a.option("--rejects");
+        int workers = a.intOption("--workers", Runtime.getRuntime().availableProcessors());
+        String file = a.next();
+        if (file == null) throw new IllegalArgumentException("import needs a CSV file");
+        a.requireEmpty();
+        Path source = Path.of(file);
+        if (!Files.exists(source)) {
+            System.err.println("No such file: " + source);
+            return FAILED;
+        }
+        ColumnarItemStore store = ColumnarItemStore.of(storage.load());
+        Path rejectsFile = rejects != null ? Path.of(rejects) : CsvImporter.defaultRejectsFile(source);
+        CsvImporter.Result result = new CsvImporter(source, rejectsFile, workers).importInto(store);
+        storage.saveChanges(store.asList(), store.changedItems(), store.deletedIds());
+        out.write(result + "\n");
+        return OK;
+    }
+
+    private int serve(ItemStorage storage, Args a) throws Exception {
+        int port = a.intOption("--port", 8080);
+        String bind = a.option("--bind", "0.0.0.0");
+        String importFile = a.option("--import");
+        String alertsFile = a.option("--alerts");
+        a.requireEmpty();
+        if (importFile != null && !Files.exists(Path.of(importFile))) {
+            System.err.println("No such file: " + importFile);
+            return FAILED;
+        }
+        // Request handlers, the import and the alert engine all work on this one repository.
+        ItemRepository items = ItemRepository.of(storage.load());
+        Metrics.gauge("items", items::size);
+        CountDownLatch stopped = new CountDownLatch(1);
+        try (AlertEngine alerts = alertsFile == null ? null : new AlertEngine();
+             ApiServer server = new ApiServer(items, storage, new InetSocketAddress(bind, port))) {
+            if (alerts != null) {
+                alerts.addListener(new AlertFileSink(Path.of(alertsFile)));
+                alerts.follow(items);
+                alerts.start();
+            }
+            server.start();
+            Runtime.getRuntime().addShutdownHook(new Thread(stopped::countDown));
+            System.err.println("Serving " + items.size() + " items from " + storage.location()
+                    + " on http://" + bind + ":" + server.address().getPort() + "/items");
+            if (importFile != null) {
+                try {
+                    System.err.println(new CsvImporter(Path.of(importFile)).importInto(items, storage));
+                } catch (CsvImporter.ImportFailedException ex) {
+                    System.err.println(ex.getMessage());
+                }
+            }
+            stopped.await();
+        }
+        return OK;
+    }
+
+    private void writeCsv(MaintenanceItem it) {
+        try {
+            long next = it.getLastServiceDate().toEpochDay() + it.getIntervalDays();
+            out.write(CsvFormat.field(it.getId()));
+            out.write(',');
+            out.write(CsvFormat.field(it.getName()));
+            out.write(',');
+            out.write(CsvFormat.field(it.getVehicle()));
+            out.write(',');
+            out.write(it.getLastServiceDate().toString());
+            out.write(',');
+            out.write(Integer.toString(it.getIntervalDays()));
+            out.write(',');
+            out.write(LocalDate.ofEpochDay(next).toString());
+            out.write(',');
+            out.write(Long.toString(next - today));
+            out.write(',');
+            out.write(MaintenanceScheduler.statusOf(next - today).name());
+            out.write('\n');
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private void writeJson(MaintenanceItem it, boolean first) {
+        try {
+            out.write(first ? "\n" : ",\n");
+            JsonFormat.appendItem(out, it, today);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    // Options may appear anywhere; what remains are positional arguments, consumed in order.
+    private static final class Args {
+        private final List<String> rest = new ArrayList<>();
+
+        Args(String[] args) {
+            rest.addAll(Arrays.asList(args));
+        }
+
+        String option(String name) {
+            int i = rest.indexOf(name);
+            if (i < 0) return null;
+            if (i + 1 >= rest.size()) throw new IllegalArgumentException("Missing value for " + name);
+            rest.remove(i);
+            return rest.remove(i);
+        }
+
+        boolean flag(String name) {
+            return rest.remove(name);
+        }
+
+        String option(String name, String fallback) {
+            String v = option(name);
+            return v != null ? v : fallback;
+        }
+
+        int intOption(String name, int fallback) {
+            String v = option(name);
+            if (v == null) return fallback;
+            try {
+                return Integer.parseInt(v);
+            } catch (NumberFormatException ex) {
+                throw new IllegalArgumentException("Not a number for " + name + ": " + v);
+            }
+        }
+
+        LocalDate dateOption(String name) {
+            String v = option(name);
+            if (v == null) return null;
+            try {
+                return LocalDate.parse(v);
+            } catch (DateTimeParseException ex) {
+                throw new IllegalArgumentException("Not a date (YYYY-MM-DD) for " + name + ": " + v);
+            }
+        }
+
+        String next() {
+            return rest.isEmpty() ? null : rest.remove(0);
+        }
+
+        void requireEmpty() {
+            if (!rest.isEmpty()) throw new IllegalArgumentException("Unexpected arguments: " + rest);
+        }
+    }
+}
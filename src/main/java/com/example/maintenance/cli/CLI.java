@@ -1,26 +1,57 @@
 package com.example.maintenance.cli;
 
+import com.example.maintenance.core.AlertEngine;
+import com.example.maintenance.core.ColumnarItemStore;
 import com.example.maintenance.core.MaintenanceScheduler;
+import com.example.maintenance.metrics.Metrics;
 import com.example.maintenance.model.MaintenanceItem;
+import com.example.maintenance.model.ServiceEvent;
+import com.example.maintenance.model.ValuePool;
+import com.example.maintenance.io.CsvImporter;
+import com.example.maintenance.io.ItemStorage;
+import com.example.maintenance.io.ServiceHistory;
 import com.example.maintenance.io.Storage;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Scanner;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 public class CLI {
     private final Scanner in = new Scanner(System.in);
-    private final Storage storage;
+    private final ItemStorage storage;
+    private final ColumnarItemStore store;
     private final List<MaintenanceItem> items;
+    private final AlertEngine alerts = new AlertEngine();
+    private final ServiceHistory history;
+    // Filled on the engine thread, printed between prompts so alerts never land mid-input.
+    private final ConcurrentLinkedQueue<AlertEngine.Transition> pendingAlerts = new ConcurrentLinkedQueue<>();
 
-    public CLI(Storage storage, List<MaintenanceItem> items) {
+    public CLI(ItemStorage storage, ColumnarItemStore store) {
         this.storage = storage;
-        this.items = items;
+        this.store = store;
+        this.items = store.asList();
+        this.history = new ServiceHistory(storage.historyDirectory());
+        Metrics.gauge("items", store::size);
+        // Status changes are pushed as they happen; option 3 still lists the full picture.
+        alerts.replaceAll(items);
+        alerts.addListener(pendingAlerts::addAll);
+        alerts.start();
     }
 
     public void run() {
         boolean running = true;
         while (running) {
+            printPendingAlerts();
             printMenu();
             String cmd = in.nextLine().trim();
             switch (cmd) {
@@ -35,20 +66,57 @@ public class CLI {
                     break;
                 case "4":
                     saveAndExit();
+                    alerts.close();
+                    try {
+                        history.close();
+                    } catch (IOException ex) {
+                        System.err.println("Failed to close service history: " + ex.getMessage());
+                    }
+                    try {
+                        storage.close();
+                    } catch (IOException ex) {
+                        System.err.println("Failed to close storage: " + ex.getMessage());
+                    }
                     running = false;
                     break;
+                case "5":
+                    convertSnapshot();
+                    break;
+                case "6":
+                    markServiced();
+                    break;
+                case "7":
+                    importCsv();
+                    break;
+                case "8":
+                    System.out.print(Metrics.dump());
+                    break;
+                case "9":
+                    searchItems();
+                    break;
                 default:
-                    System.out.println("Unknown option. Pick 1-4.");
+                    System.out.println("Unknown option. Pick 1-9.");
             }
         }
     }
 
+    private void printPendingAlerts() {
+        for (AlertEngine.Transition t; (t = pendingAlerts.poll()) != null; ) {
+            System.out.println("[alert] " + t);
+        }
+    }
+
     private void printMenu() {
         System.out.println("\nMaintenance Tracker");
         System.out.println("1) List items");
         System.out.println("2) Add item");
         System.out.println("3) Show alerts");
         System.out.println("4) Save and exit");
+        System.out.println("5) Convert CSV <-> binary snapshot");
+        System.out.println("6) Mark items serviced");
+        System.out.println("7) Import CSV file");
+        System.out.println("8) Show metrics");
+        System.out.println("9) Search by name");
         System.out.print("Choose: ");
     }
 
@@ -57,11 +125,34 @@ public class CLI {
             System.out.println("(no items)");
             return;
         }
-        int i = 1;
-        for (MaintenanceItem it : items) {
-            System.out.printf("%d) %s -> next: %s (in %d days)\n", i++, it.toString(),
-                    MaintenanceScheduler.nextServiceDate(it), MaintenanceScheduler.daysUntilNext(it));
+        int today = MaintenanceScheduler.today();
+        int[] daysUntil = new int[store.size()];
+        store.classify(today, null, daysUntil);
+        PrintWriter out = bufferedOut();
+        for (int i = 0; i < items.size(); i++) {
+            out.append(Integer.toString(i + 1)).append(") ").append(items.get(i).toString())
+                    .append(" -> next: ").append(LocalDate.ofEpochDay(store.nextDueDay(i)).toString())
+                    .append(" (in ").append(Integer.toString(daysUntil[i])).append(" days)\n");
         }
+        out.flush();
+    }
+
+    private void searchItems() {
+        System.out.print("Search (words match word starts, \"quoted\" text matches anywhere): ");
+        String text = in.nextLine().trim();
+        int[] rows = store.rowsOf(store.nameIndex().query(text));
+        if (rows.length == 0) {
+            System.out.println("(no matches)");
+            return;
+        }
+        PrintWriter out = bufferedOut();
+        for (int row : rows) {
+            out.append(Integer.toString(row + 1)).append(") ").append(items.get(row).toString())
+                    .append(" -> next: ").append(LocalDate.ofEpochDay(store.nextDueDay(row)).toString()).append('\n');
+        }
+        out.append(Integer.toString(rows.length)).append(" of ").append(Integer.toString(store.size()))
+                .append(" items match\n");
+        out.flush();
     }
 
     private void addItem() {
@@ -85,29 +176,114 @@ public class CLI {
             System.out.println("Invalid number. Aborting add.");
             return;
         }
-        MaintenanceItem it = new MaintenanceItem(name, date, interval);
+        System.out.print("Vehicle (blank to take it from the name): ");
+        String vehicle = in.nextLine().trim();
+        ValuePool pool = ValuePool.shared();
+        MaintenanceItem it = new MaintenanceItem(pool.string(name), pool.date(date), interval);
+        if (!vehicle.isEmpty()) it.setVehicle(pool.string(vehicle));
         items.add(it);
+        alerts.itemChanged(it);
         System.out.println("Added: " + it);
     }
 
     private void checkAlerts() {
-        boolean any = false;
-        for (MaintenanceItem it : items) {
-            MaintenanceScheduler.Status s = MaintenanceScheduler.status(it);
-            if (s != MaintenanceScheduler.Status.OK) {
-                any = true;
-                long days = MaintenanceScheduler.daysUntilNext(it);
-                String how = s == MaintenanceScheduler.Status.OVERDUE ? "OVERDUE by %d days" : "due in %d days";
-                System.out.printf("%s -> next: %s -> " + how + "\n", it.getName(), MaintenanceScheduler.nextServiceDate(it), Math.abs(days));
-            }
+        int today = MaintenanceScheduler.today();
+        int[] overdue = store.overdueRows(today);
+        int[] dueSoon = store.dueWithinRows(today, MaintenanceScheduler.DUE_SOON_DAYS);
+        PrintWriter out = bufferedOut();
+        for (int row : overdue) printAlert(out, row, today, "OVERDUE by ");
+        for (int row : dueSoon) printAlert(out, row, today, "due in ");
+        if (overdue.length == 0 && dueSoon.length == 0) out.append("No upcoming or overdue maintenance.\n");
+        out.flush();
+    }
+
+    private void printAlert(PrintWriter out, int row, int today, String how) {
+        int next = store.nextDueDay(row);
+        out.append(store.name(row)).append(" -> next: ").append(LocalDate.ofEpochDay(next).toString())
+                .append(" -> ").append(how).append(Long.toString(Math.abs((long) next - today))).append(" days\n");
+    }
+
+    // One buffered writer per listing instead of a formatted, flushed write per line.
+    private static PrintWriter bufferedOut() {
+        return new PrintWriter(new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), 1 << 16), false);
+    }
+
+    private void markServiced() {
+        System.out.print("Item ids (comma separated): ");
+        String[] ids = in.nextLine().trim().split("\\s*,\\s*");
+        System.out.print("Service date (YYYY-MM-DD, empty for today): ");
+        String ds = in.nextLine().trim();
+        int day;
+        try {
+            day = ds.isEmpty() ? MaintenanceScheduler.today() : (int) LocalDate.parse(ds).toEpochDay();
+        } catch (Exception ex) {
+            System.out.println("Invalid date format. Aborting.");
+            return;
+        }
+        int[] days = new int[ids.length];
+        Arrays.fill(days, day);
+        int n = store.markServiced(ids, days);
+        List<ServiceEvent> events = new ArrayList<>();
+        for (String id : ids) {
+            int row = store.indexOf(id);
+            if (row < 0) continue;
+            alerts.itemChanged(store.get(row));
+            events.add(new ServiceEvent(id, LocalDate.ofEpochDay(day), store.intervalDays(row)));
+        }
+        try {
+            history.record(events);
+        } catch (IOException ex) {
+            System.err.println("Failed to record service history: " + ex.getMessage());
+        }
+        System.out.println("Marked " + n + " of " + ids.length + " items serviced on " + LocalDate.ofEpochDay(day));
+    }
+
+    private void importCsv() {
+        System.out.print("CSV file to import: ");
+        Path source = Path.of(in.nextLine().trim());
+        if (!Files.exists(source)) {
+            System.out.println("No such file: " + source);
+            return;
+        }
+        try {
+            System.out.println(new CsvImporter(source).importInto(store));
+            // Imported items become the new baseline rather than one alert per row.
+            alerts.replaceAll(items);
+        } catch (CsvImporter.ImportFailedException ex) {
+            System.err.println("Failed to import: " + ex.getMessage());
+            System.err.println("The merged lines are in the list and are written on the next save.");
+            alerts.replaceAll(items);
+        } catch (Exception ex) {
+            System.err.println("Failed to import: " + ex.getMessage());
+        }
+    }
+
+    private void convertSnapshot() {
+        System.out.print("Source file: ");
+        Path source = Path.of(in.nextLine().trim());
+        if (!Files.exists(source)) {
+            System.out.println("No such file: " + source);
+            return;
+        }
+        System.out.print("Target file (.bin for binary, anything else for CSV): ");
+        Path target = Path.of(in.nextLine().trim());
+        try {
+            int n = Storage.convert(source, target);
+            System.out.println("Converted " + n + " items to " + target);
+        } catch (Exception ex) {
+            System.err.println("Failed to convert: " + ex.getMessage());
         }
-        if (!any) System.out.println("No upcoming or overdue maintenance.");
     }
 
     private void saveAndExit() {
         try {
-            storage.save(items);
-            System.out.println("Saved " + items.size() + " items to " + Storage.defaultPath());
+            if (!store.hasChanges()) {
+                System.out.println("No changes to save.");
+            } else {
+                storage.saveChanges(items, store.changedItems(), store.deletedIds());
+                store.markClean(store.changeCount());
+                System.out.println("Saved " + items.size() + " items to " + storage.location());
+            }
         } catch (Exception ex) {
             System.err.println("Failed to save: " + ex.getMessage());
         }
@@ -0,0 +1,361 @@
+package com.example.maintenance.core;
+
+import com.example.maintenance.metrics.Counter;
+import com.example.maintenance.metrics.LatencyHistogram;
+import com.example.maintenance.metrics.Metrics;
+import com.example.maintenance.model.MaintenanceItem;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Long-running alert engine. It keeps its own copy of every item's next-service day in a
+ * {@link DueDateIndex} and pushes status changes (OK, DUE_SOON, OVERDUE) to its listeners instead
+ * of having callers scan the fleet. It wakes at each day boundary of its clock, where only items
+ * whose next service falls in the window the day change moved over can change status, and
+ * whenever an item change is reported through {@link #itemChanged} or {@link #itemRemoved}, or
+ * made to an {@link ItemRepository} it {@link #follow}s.
+ *
+ * <p>All state is owned by a single engine thread; the reporting methods copy what they need and
+ * return immediately, so they can be called from any thread. Listeners run on the engine thread.
+ */
+public class AlertEngine implements AutoCloseable {
+    private static final byte UNKNOWN = -1;
+    // Wake a little after midnight so the clock has certainly moved to the new day.
+    private static final long WAKE_DELAY_MILLIS = 50;
+    private static final LatencyHistogram SCAN_TIME = Metrics.histogram("alerts.scan");
+    private static final Counter TRANSITIONS = Metrics.counter("alerts.transitions");
+
+    /** One item whose status changed; {@code from} is null for an item the engine had not seen. */
+    public static final class Transition {
+        private final String id;
+        private final String name;
+        private final int nextDueDay;
+        private final MaintenanceScheduler.Status from;
+        private final MaintenanceScheduler.Status to;
+
+        Transition(String id, String name, int nextDueDay, MaintenanceScheduler.Status from, MaintenanceScheduler.Status to) {
+            this.id = id;
+            this.name = name;
+            this.nextDueDay = nextDueDay;
+            this.from = from;
+            this.to = to;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public LocalDate getNextServiceDate() {
+            return LocalDate.ofEpochDay(nextDueDay);
+        }
+
+        public MaintenanceScheduler.Status getFrom() {
+            return from;
+        }
+
+        public MaintenanceScheduler.Status getTo() {
+            return to;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s (id=%s) %s -> %s, next service %s", name, id,
+                    from == null ? "NEW" : from, to, getNextServiceDate());
+        }
+    }
+
+    /** Receives the transitions found by one engine pass, never an empty list. */
+    public interface Listener {
+        void statusChanged(List<Transition> transitions);
+    }
+
+    /** A listener that logs each transition, at WARNING for overdue items and INFO otherwise. */
+    public static Listener logging(Logger logger) {
+        return transitions -> {
+            for (Transition t : transitions) {
+                logger.log(t.getTo() == MaintenanceScheduler.Status.OVERDUE ? Level.WARNING : Level.INFO, t.toString());
+            }
+        };
+    }
+
+    private final Clock clock;
+    private final ScheduledExecutorService executor;
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    // engine-thread state
+    private final Map<String, Integer> handles = new HashMap<>();
+    private final DueDateIndex due = new DueDateIndex();
+    private String[] ids = new String[16];
+    private String[] names = new String[16];
+    private byte[] status = new byte[16];
+    private int[] freeHandles = new int[16];
+    private int freeCount;
+    private int nextHandle;
+    private int today;
+    private ScheduledFuture<?> wake;
+    private volatile Runnable unfollow;
+
+    public AlertEngine() {
+        this(Clock.systemDefaultZone());
+    }
+
+    public AlertEngine(Clock clock) {
+        this.clock = clock;
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "alert-engine");
+            t.setDaemon(true);
+            return t;
+        });
+        this.today = currentDay();
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /** Starts waking at day boundaries. */
+    public void start() {
+        executor.execute(this::scheduleWake);
+    }
+
+    /**
+     * Replaces everything the engine knows with {@code items}. This sets the baseline and
+     * publishes nothing; later changes are reported relative to it.
+     */
+    public void replaceAll(Collection<? extends MaintenanceItem> items) {
+        executor.execute(() -> {
+            clear();
+            today = currentDay();
+        });
+        addAll(items);
+    }
+
+    /**
+     * Adds {@code items} to the baseline without publishing anything, e.g. batch by batch while
+     * a list is still loading. Like every method here, the O(n) part runs on the engine thread;
+     * the caller only copies ids, names and due days.
+     */
+    public void addAll(Collection<? extends MaintenanceItem> items) {
+        List<String[]> text = new ArrayList<>(items.size());
+        int[] days = new int[items.size()];
+        int i = 0;
+        for (MaintenanceItem it : items) {
+            text.add(new String[] {it.getId(), it.getName()});
+            days[i++] = nextDueDay(it);
+        }
+        addAll(text, days);
+    }
+
+    /**
+     * Takes {@code repository}'s items as the baseline, like {@link #replaceAll}, and from then on
+     * reports every write to it as {@link #itemChanged} or {@link #itemRemoved} would, until
+     * {@link #close}. The repository hands over the baseline and starts reporting without a
+     * write in between, so no change is missed or applied on top of a newer one.
+     */
+    public void follow(ItemRepository repository) {
+        ItemRepository.Listener feed = new ItemRepository.Listener() {
+            @Override
+            public void changed(ItemRepository.Entry entry) {
+                itemChanged(entry.getId(), entry.getName(), entry.getNextDueDay());
+            }
+
+            @Override
+            public void removed(String id) {
+                itemRemoved(id);
+            }
+        };
+        repository.addListener(feed, current -> {
+            List<String[]> text = new ArrayList<>(current.size());
+            int[] days = new int[current.size()];
+            int i = 0;
+            for (ItemRepository.Entry e : current) {
+                text.add(new String[] {e.getId(), e.getName()});
+                days[i++] = e.getNextDueDay();
+            }
+            executor.execute(() -> {
+                clear();
+                today = currentDay();
+            });
+            addAll(text, days);
+        });
+        unfollow = () -> repository.removeListener(feed);
+    }
+
+    private void addAll(List<String[]> text, int[] days) {
+        executor.execute(() -> {
+            for (int j = 0; j < days.length; j++) {
+                int h = put(text.get(j)[0], text.get(j)[1], days[j]);
+                status[h] = (byte) statusOf(days[j]).ordinal();
+            }
+        });
+    }
+
+    /** Reports an added or changed item; its transition, if any, is published. */
+    public void itemChanged(MaintenanceItem item) {
+        itemChanged(item.getId(), item.getName(), nextDueDay(item));
+    }
+
+    public void itemChanged(String id, String name, int nextDueDay) {
+        executor.execute(() -> {
+            List<Transition> out = new ArrayList<>(1);
+            int h = put(id, name, nextDueDay);
+            reclassify(h, out);
+            publish(out);
+        });
+    }
+
+    public void itemRemoved(String id) {
+        executor.execute(() -> {
+            Integer h = handles.remove(id);
+            if (h == null) return;
+            due.remove(h);
+            ids[h] = null;
+            names[h] = null;
+            if (freeCount == freeHandles.length) freeHandles = Arrays.copyOf(freeHandles, freeCount * 2);
+            freeHandles[freeCount++] = h;
+        });
+    }
+
+    /** Re-checks the day now instead of waiting for the next boundary, e.g. after a clock change. */
+    public void checkNow() {
+        executor.execute(this::advanceDay);
+    }
+
+    @Override
+    public void close() {
+        // detached first, so no write reaches the executor after it is shut down
+        Runnable u = unfollow;
+        if (u != null) u.run();
+        executor.shutdownNow();
+    }
+
+    // Waits until everything queued on the engine thread so far has run; for tests.
+    void awaitIdle() throws Exception {
+        executor.submit(() -> { }).get();
+    }
+
+    // Runs at each day boundary: publishes what changed and schedules the next wake.
+    private void scheduleWake() {
+        advanceDay();
+        ZonedDateTime now = ZonedDateTime.now(clock);
+        ZonedDateTime midnight = now.toLocalDate().plusDays(1).atStartOfDay(now.getZone());
+        long delay = Math.max(0, Duration.between(now, midnight).toMillis()) + WAKE_DELAY_MILLIS;
+        if (wake != null) wake.cancel(false);
+        wake = executor.schedule(this::scheduleWake, delay, TimeUnit.MILLISECONDS);
+    }
+
+    // Only items due in the windows the day change crossed can change status: the old due-soon
+    // days that are now past, and the days that entered the due-soon window.
+    private void advanceDay() {
+        int day = currentDay();
+        if (day == today) return;
+        long started = System.nanoTime();
+        List<Transition> out = new ArrayList<>();
+        if (day < today || (long) day - today > 366) {
+            today = day;
+            for (int h = 0; h < nextHandle; h++) {
+                if (ids[h] != null) reclassify(h, out);
+            }
+        } else {
+            int previous = today;
+            today = day;
+            for (int h : due.range(previous, day - 1)) reclassify(h, out);
+            int soon = MaintenanceScheduler.DUE_SOON_DAYS;
+            for (int h : due.range(Math.max(previous + soon + 1, day), day + soon)) reclassify(h, out);
+        }
+        SCAN_TIME.recordSince(started);
+        publish(out);
+    }
+
+    private void reclassify(int h, List<Transition> out) {
+        int dueDay = due.dueDay(h);
+        MaintenanceScheduler.Status next = statusOf(dueDay);
+        if (status[h] == next.ordinal()) return;
+        MaintenanceScheduler.Status previous = status[h] == UNKNOWN ? null : MaintenanceScheduler.status(status[h]);
+        status[h] = (byte) next.ordinal();
+        // A new item that is simply OK is not news.
+        if (previous == null && next == MaintenanceScheduler.Status.OK) return;
+        out.add(new Transition(ids[h], names[h], dueDay, previous, next));
+    }
+
+    private void publish(List<Transition> out) {
+        if (out.isEmpty()) return;
+        TRANSITIONS.add(out.size());
+        List<Transition> frozen = Collections.unmodifiableList(out);
+        for (Listener l : listeners) {
+            try {
+                l.statusChanged(frozen);
+            } catch (RuntimeException ex) {
+                System.err.println("Alert listener failed: " + ex.getMessage());
+            }
+        }
+    }
+
+    private int put(String id, String name, int dueDay) {
+        Integer existing = handles.get(id);
+        int h;
+        if (existing != null) {
+            h = existing;
+        } else {
+            h = freeCount > 0 ? freeHandles[--freeCount] : nextHandle++;
+            if (h == ids.length) {
+                ids = Arrays.copyOf(ids, h * 2);
+                names = Arrays.copyOf(names, h * 2);
+                status = Arrays.copyOf(status, h * 2);
+            }
+            ids[h] = id;
+            status[h] = UNKNOWN;
+            handles.put(id, h);
+        }
+        names[h] = name;
+        due.put(h, dueDay);
+        return h;
+    }
+
+    private void clear() {
+        handles.clear();
+        due.clear();
+        Arrays.fill(ids, null);
+        Arrays.fill(names, null);
+        freeCount = 0;
+        nextHandle = 0;
+    }
+
+    private MaintenanceScheduler.Status statusOf(int dueDay) {
+        return MaintenanceScheduler.statusOf((long) dueDay - today);
+    }
+
+    private int currentDay() {
+        return (int) LocalDate.now(clock).toEpochDay();
+    }
+
+    private static int nextDueDay(MaintenanceItem item) {
+        long next = item.getLastServiceDate().toEpochDay() + item.getIntervalDays();
+        return (int) Math.max(Integer.MIN_VALUE + 1, Math.min(Integer.MAX_VALUE, next));
+    }
+}
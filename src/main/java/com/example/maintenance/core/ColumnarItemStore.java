@@ -0,0 +1,731 @@
+package com.example.maintenance.core;
+
+import com.example.maintenance.model.MaintenanceItem;
+
+import java.time.LocalDate;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/**
+ * Column-wise item storage: dates and intervals live in int arrays, names are interned into a
+ * shared table, and ids of the form {@code prefix + number} (e.g. {@code veh-42}) are stored as a
+ * prefix reference plus a long. Other ids (UUIDs) are kept as-is in a sparse column.
+ * Every row also has a stable handle, and a {@link DueDateIndex} over next-service days is kept
+ * up to date on every change so alert queries do not scan the store, and an {@link IdIndex} maps
+ * ids to handles for O(1) lookup by id. Vehicles are interned like names; per-vehicle and
+ * per-task-type {@link FleetRollups} and a {@link NameIndex} over names are built on first
+ * request and then maintained on every change.
+ *
+ * <p>Changes are tracked per handle against a change counter, so a save can ask for just the
+ * items changed and ids removed since the last {@link #markClean(long)}. Changed handles are
+ * also kept in a list, so asking costs O(changes) rather than a pass over every row.
+ *
+ * <p>Existing code keeps working through {@link #asList()}, whose elements are live views onto
+ * a row. A view follows its row index, so it should not be kept across removals of earlier rows.
+ * Like {@code ArrayList}, the store is not thread-safe.
+ */
+public class ColumnarItemStore {
+    private static final int NO_NUMBER = -1;
+
+    private int size;
+    private int[] lastServiceDay = new int[16];
+    private int[] intervalDays = new int[16];
+    private int[] nameId = new int[16];
+    private int[] vehicleId = new int[16];
+    private int[] idPrefix = new int[16];
+    private long[] idNumber = new long[16];
+    private String[] idLiteral = new String[16];
+    private int[] handleOf = new int[16];
+    private int[] rowOf = new int[16];
+    private int[] freeHandles = new int[16];
+    private int freeCount;
+    private int nextHandle;
+    private long[] changedAt = new long[16]; // by handle: changeCount of its last change
+    private long changeCount;
+    private long cleanAt;
+    private int[] dirty = new int[16]; // handles changed after cleanAt, unordered
+    private int dirtyCount;
+    private int[] dirtyPos = new int[16]; // by handle: 1 + its index in dirty, 0 if clean
+
+    private final DueDateIndex due;
+    private final IdIndex ids;
+    private final Interner names;
+    private final Interner vehicles;
+    private final Interner prefixes;
+    // task type by (nameId, vehicleId), derived on demand
+    private final Map<Long, Integer> taskOfPair = new HashMap<>();
+    private final Interner tasks = new Interner();
+    private FleetRollups rollups;
+    private NameIndex nameIndex;
+    private WorkloadForecast forecast;
+    private long forecastAt = -1; // changeCount the cached forecast was computed at
+    private final Map<String, Long> deletedAt; // removed id -> changeCount of the removal
+
+    public ColumnarItemStore() {
+        this.due = new DueDateIndex();
+        this.ids = new IdIndex(this::idEquals);
+        this.names = new Interner();
+        this.vehicles = new Interner();
+        this.prefixes = new Interner();
+        this.deletedAt = new LinkedHashMap<>();
+    }
+
+    private ColumnarItemStore(ColumnarItemStore source) {
+        this.due = source.due.copy();
+        this.ids = source.ids.copy(this::idEquals);
+        this.names = source.names.copy();
+        this.vehicles = source.vehicles.copy();
+        this.prefixes = source.prefixes.copy();
+        this.deletedAt = new LinkedHashMap<>(source.deletedAt);
+    }
+
+    public static ColumnarItemStore of(List<MaintenanceItem> items) {
+        ColumnarItemStore store = new ColumnarItemStore();
+        store.ensureCapacity(items.size());
+        for (MaintenanceItem it : items) store.add(it);
+        store.markClean(store.changeCount);
+        return store;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * An independent copy of the store, e.g. to hand to a background saver while the original
+     * keeps being edited. Copies are array copies, so this is cheap next to materializing items.
+     */
+    public ColumnarItemStore snapshot() {
+        ColumnarItemStore c = new ColumnarItemStore(this);
+        c.size = size;
+        c.lastServiceDay = lastServiceDay.clone();
+        c.intervalDays = intervalDays.clone();
+        c.nameId = nameId.clone();
+        c.vehicleId = vehicleId.clone();
+        c.idPrefix = idPrefix.clone();
+        c.idNumber = idNumber.clone();
+        c.idLiteral = idLiteral.clone();
+        c.handleOf = handleOf.clone();
+        c.rowOf = rowOf.clone();
+        c.freeHandles = freeHandles.clone();
+        c.freeCount = freeCount;
+        c.nextHandle = nextHandle;
+        c.changedAt = changedAt.clone();
+        c.changeCount = changeCount;
+        c.cleanAt = cleanAt;
+        c.dirty = dirty.clone();
+        c.dirtyCount = dirtyCount;
+        c.dirtyPos = dirtyPos.clone();
+        return c;
+    }
+
+    public int add(MaintenanceItem item) {
+        return add(item.getId(), item.getName(), (int) item.getLastServiceDate().toEpochDay(), item.getIntervalDays(),
+                item.getVehicle());
+    }
+
+    public int add(String id, String name, int lastServiceEpochDay, int interval) {
+        return add(id, name, lastServiceEpochDay, interval, MaintenanceItem.vehicleOf(name));
+    }
+
+    public int add(String id, String name, int lastServiceEpochDay, int interval, String vehicle) {
+        ensureCapacity(size + 1);
+        int row = size++;
+        int handle = allocateHandle();
+        handleOf[row] = handle;
+        rowOf[handle] = row;
+        write(row, id, name, lastServiceEpochDay, interval, vehicle);
+        ids.put(id, handle);
+        deletedAt.remove(id);
+        touch(handle);
+        return row;
+    }
+
+    /**
+     * Replaces the item at {@code row}. Throws IllegalArgumentException if another row already
+     * has the new item's id, since two rows with one id could not be told apart by id.
+     */
+    public void set(int row, MaintenanceItem item) {
+        check(row);
+        int handle = handleOf[row];
+        int holder = ids.get(item.getId());
+        if (holder >= 0 && holder != handle) {
+            throw new IllegalArgumentException("Id " + item.getId() + " is already at row " + rowOf[holder]);
+        }
+        // Giving a row another id deletes the old id as far as storage is concerned.
+        if (!idEquals(handle, item.getId())) deletedAt.put(id(row), changeCount + 1);
+        ids.remove(idHash(row), handle);
+        write(row, item.getId(), item.getName(), (int) item.getLastServiceDate().toEpochDay(), item.getIntervalDays(),
+                item.getVehicle());
+        ids.put(item.getId(), handle);
+        deletedAt.remove(item.getId());
+        touch(handle);
+    }
+
+    /** Row of the item with this id, or -1. O(1). */
+    public int indexOf(String id) {
+        int handle = ids.get(id);
+        return handle < 0 ? -1 : rowOf[handle];
+    }
+
+    /** Replaces the item with the same id, or appends it; returns its row. */
+    public int upsert(MaintenanceItem item) {
+        int row = indexOf(item.getId());
+        if (row < 0) return add(item);
+        set(row, item);
+        return row;
+    }
+
+    /** Removes the item with this id; returns its former row, or -1. */
+    public int removeById(String id) {
+        int row = indexOf(id);
+        if (row >= 0) remove(row);
+        return row;
+    }
+
+    /**
+     * Sets the last service day of each listed id in one pass over the batch; unknown ids are
+     * skipped. Returns how many items were updated.
+     */
+    public int markServiced(String[] itemIds, int[] epochDays) {
+        if (itemIds.length != epochDays.length) throw new IllegalArgumentException("ids and days differ in length");
+        int updated = 0;
+        for (int i = 0; i < itemIds.length; i++) {
+            int handle = ids.get(itemIds[i]);
+            if (handle < 0) continue;
+            int row = rowOf[handle];
+            lastServiceDay[row] = epochDays[i];
+            due.put(handle, dueDay(row));
+            touch(handle);
+            updated++;
+        }
+        return updated;
+    }
+
+    public int markServiced(Map<String, LocalDate> serviced) {
+        String[] itemIds = new String[serviced.size()];
+        int[] days = new int[serviced.size()];
+        int i = 0;
+        for (Map.Entry<String, LocalDate> e : serviced.entrySet()) {
+            itemIds[i] = e.getKey();
+            days[i++] = (int) e.getValue().toEpochDay();
+        }
+        return markServiced(itemIds, days);
+    }
+
+    public void remove(int row) {
+        check(row);
+        int handle = handleOf[row];
+        deletedAt.put(id(row), ++changeCount);
+        ids.remove(idHash(row), handle);
+        due.remove(handle);
+        unlistDirty(handle);
+        if (rollups != null) rollups.remove(handle);
+        if (nameIndex != null) nameIndex.remove(handle);
+        freeHandle(handle);
+        int tail = size - row - 1;
+        if (tail > 0) {
+            System.arraycopy(lastServiceDay, row + 1, lastServiceDay, row, tail);
+            System.arraycopy(intervalDays, row + 1, intervalDays, row, tail);
+            System.arraycopy(nameId, row + 1, nameId, row, tail);
+            System.arraycopy(vehicleId, row + 1, vehicleId, row, tail);
+            System.arraycopy(idPrefix, row + 1, idPrefix, row, tail);
+            System.arraycopy(idNumber, row + 1, idNumber, row, tail);
+            System.arraycopy(idLiteral, row + 1, idLiteral, row, tail);
+            System.arraycopy(handleOf, row + 1, handleOf, row, tail);
+            for (int i = row; i < size - 1; i++) rowOf[handleOf[i]] = i;
+        }
+        idLiteral[--size] = null;
+    }
+
+    public String id(int row) {
+        check(row);
+        if (idLiteral[row] != null) return idLiteral[row];
+        return prefixes.get(idPrefix[row]) + idNumber[row];
+    }
+
+    public String name(int row) {
+        check(row);
+        return names.get(nameId[row]);
+    }
+
+    public int nameId(int row) {
+        check(row);
+        return nameId[row];
+    }
+
+    public String vehicle(int row) {
+        check(row);
+        return vehicles.get(vehicleId[row]);
+    }
+
+    public int vehicleId(int row) {
+        check(row);
+        return vehicleId[row];
+    }
+
+    /** Task type of the row; see {@link MaintenanceItem#taskTypeOf(String, String)}. */
+    public String taskType(int row) {
+        check(row);
+        return tasks.get(taskId(row));
+    }
+
+    public int lastServiceDay(int row) {
+        check(row);
+        return lastServiceDay[row];
+    }
+
+    public int intervalDays(int row) {
+        check(row);
+        return intervalDays[row];
+    }
+
+    public int nextDueDay(int row) {
+        check(row);
+        return dueDay(row);
+    }
+
+    public void setLastServiceDay(int row, int epochDay) {
+        check(row);
+        lastServiceDay[row] = epochDay;
+        due.put(handleOf[row], dueDay(row));
+        touch(handleOf[row]);
+    }
+
+    public void setIntervalDays(int row, int days) {
+        check(row);
+        intervalDays[row] = days;
+        due.put(handleOf[row], dueDay(row));
+        touch(handleOf[row]);
+    }
+
+    /** Rows overdue as of {@code asOfDay} (due before it), most overdue first. */
+    public int[] overdueRows(int asOfDay) {
+        return rowsDueBetween(Integer.MIN_VALUE, asOfDay - 1);
+    }
+
+    /** Rows due on days in {@code [asOfDay, asOfDay + days]}, soonest first. */
+    public int[] dueWithinRows(int asOfDay, int days) {
+        return rowsDueBetween(asOfDay, asOfDay + days);
+    }
+
+    /** Rows whose next service falls in {@code [fromDay, toDay]}, ordered by that day. */
+    public int[] rowsDueBetween(int fromDay, int toDay) {
+        int[] rows = due.range(fromDay, toDay);
+        for (int i = 0; i < rows.length; i++) rows[i] = rowOf[rows[i]];
+        return rows;
+    }
+
+    public int countDueBetween(int fromDay, int toDay) {
+        return due.count(fromDay, toDay);
+    }
+
+    public void setName(int row, String name) {
+        check(row);
+        nameId[row] = names.intern(name);
+        touch(handleOf[row]);
+    }
+
+    public void setVehicle(int row, String vehicle) {
+        check(row);
+        vehicleId[row] = vehicles.intern(vehicle);
+        touch(handleOf[row]);
+    }
+
+    /**
+     * Per-vehicle and per-task-type aggregates with overdue counts as of {@code asOfDay}. Built
+     * from the rows on the first call; after that, kept current by every change to the store, so
+     * this only moves the as-of day.
+     */
+    public FleetRollups rollups(int asOfDay) {
+        if (rollups == null) {
+            rollups = new FleetRollups(due, asOfDay);
+            for (int row = 0; row < size; row++) roll(row);
+        }
+        rollups.advanceTo(asOfDay);
+        return rollups;
+    }
+
+    /**
+     * Search index over item names, keyed by handle; see {@link #rowsOf(BitSet)}. Built from the
+     * rows on the first call and kept current by every change to the store after that.
+     */
+    public NameIndex nameIndex() {
+        if (nameIndex == null) {
+            nameIndex = new NameIndex();
+            for (int row = 0; row < size; row++) nameIndex.put(handleOf[row], nameId[row], names.get(nameId[row]));
+        }
+        return nameIndex;
+    }
+
+    /** Current rows, ascending, of the handles in a {@link NameIndex} result. */
+    public int[] rowsOf(BitSet handles) {
+        int n = handles.cardinality();
+        int[] rows = new int[n];
+        if (n > size >>> 3) {
+            int i = 0;
+            for (int row = 0; row < size && i < n; row++) {
+                if (handles.get(handleOf[row])) rows[i++] = row;
+            }
+            return i == n ? rows : Arrays.copyOf(rows, i);
+        }
+        int i = 0;
+        for (int h = handles.nextSetBit(0); h >= 0; h = handles.nextSetBit(h + 1)) {
+            if (h < nextHandle && rowOf[h] < size && handleOf[rowOf[h]] == h) rows[i++] = rowOf[h];
+        }
+        rows = i == n ? rows : Arrays.copyOf(rows, i);
+        Arrays.sort(rows);
+        return rows;
+    }
+
+    /**
+     * Services per day and per task type for {@code days} days from {@code fromDay}; see
+     * {@link WorkloadForecast}. The result is cached until the store changes or another window
+     * is asked for.
+     */
+    public WorkloadForecast forecast(int fromDay, int days) {
+        WorkloadForecast f = forecast;
+        if (f != null && forecastAt == changeCount && f.getStartDay() == fromDay && f.getDays() == days) return f;
+        int[] taskIds = new int[size];
+        for (int row = 0; row < size; row++) taskIds[row] = taskId(row);
+        List<String> taskTypes = new ArrayList<>(tasks.size());
+        for (int t = 0; t < tasks.size(); t++) taskTypes.add(tasks.get(t));
+        forecast = WorkloadForecast.compute(lastServiceDay, intervalDays, taskIds, size, taskTypes, fromDay, days);
+        forecastAt = changeCount;
+        return forecast;
+    }
+
+    /** Counter bumped by every change; a value read from a snapshot can be passed to {@link #markClean(long)}. */
+    public long changeCount() {
+        return changeCount;
+    }
+
+    public boolean hasChanges() {
+        return dirtyCount > 0 || !deletedAt.isEmpty();
+    }
+
+    /** Detached copies of the items added or changed since the last clean point, in row order. */
+    public List<MaintenanceItem> changedItems() {
+        int[] rows = new int[dirtyCount];
+        for (int i = 0; i < dirtyCount; i++) rows[i] = rowOf[dirty[i]];
+        Arrays.sort(rows);
+        List<MaintenanceItem> out = new ArrayList<>(rows.length);
+        for (int row : rows) out.add(copy(row));
+        return out;
+    }
+
+    /** Ids removed since the last clean point and not added back. */
+    public List<String> deletedIds() {
+        return new ArrayList<>(deletedAt.keySet());
+    }
+
+    /**
+     * Records that everything up to {@code upTo} (a {@link #changeCount()}) has been persisted.
+     * Changes made after that point, e.g. while a background save ran, stay pending.
+     */
+    public void markClean(long upTo) {
+        cleanAt = Math.max(cleanAt, upTo);
+        deletedAt.values().removeIf(at -> at <= upTo);
+        for (int i = dirtyCount - 1; i >= 0; i--) {
+            if (changedAt[dirty[i]] <= cleanAt) unlistDirty(dirty[i]);
+        }
+    }
+
+    /** Marks rows {@code [fromRow, toRow]} as persisted, e.g. rows just filled from storage. */
+    public void markClean(int fromRow, int toRow) {
+        for (int row = fromRow; row <= toRow; row++) {
+            check(row);
+            changedAt[handleOf[row]] = 0;
+            unlistDirty(handleOf[row]);
+        }
+    }
+
+    /** Number of distinct names seen so far. */
+    public int distinctNames() {
+        return names.size();
+    }
+
+    /** Returns {overdue, dueSoon, ok} counts as of the given epoch day, read off the due index. */
+    public int[] statusCounts(int asOfDay) {
+        int overdue = countDueBetween(Integer.MIN_VALUE, asOfDay - 1);
+        int dueSoon = countDueBetween(asOfDay, asOfDay + MaintenanceScheduler.DUE_SOON_DAYS);
+        return new int[]{overdue, dueSoon, size - overdue - dueSoon};
+    }
+
+    /** Classifies every row as of {@code asOfDay}; see {@link MaintenanceScheduler#classify}. */
+    public int[] classify(int asOfDay, byte[] statusOut, int[] daysUntilOut) {
+        return MaintenanceScheduler.classify(lastServiceDay, intervalDays, size, asOfDay, statusOut, daysUntilOut);
+    }
+
+    /** A live view onto {@code row}. */
+    public MaintenanceItem get(int row) {
+        check(row);
+        return new Row(row);
+    }
+
+    /** A mutable {@code List} view so existing list-based callers can use the store directly. */
+    public List<MaintenanceItem> asList() {
+        return new ListView();
+    }
+
+    private MaintenanceItem copy(int row) {
+        return new MaintenanceItem(id(row), name(row), LocalDate.ofEpochDay(lastServiceDay(row)), intervalDays(row), vehicle(row));
+    }
+
+    private void write(int row, String id, String name, int day, int interval, String vehicle) {
+        lastServiceDay[row] = day;
+        intervalDays[row] = interval;
+        due.put(handleOf[row], dueDay(row));
+        nameId[row] = names.intern(name);
+        vehicleId[row] = vehicles.intern(vehicle);
+        int split = numberSuffixStart(id);
+        if (split < 0) {
+            idPrefix[row] = 0;
+            idNumber[row] = NO_NUMBER;
+            idLiteral[row] = id;
+        } else {
+            idPrefix[row] = prefixes.intern(id.substring(0, split));
+            idNumber[row] = Long.parseLong(id.substring(split));
+            idLiteral[row] = null;
+        }
+    }
+
+    // String.hashCode() of id(row), computed without building the String.
+    private int idHash(int row) {
+        if (idLiteral[row] != null) return idLiteral[row].hashCode();
+        int h = prefixes.get(idPrefix[row]).hashCode();
+        long n = idNumber[row];
+        long scale = 1;
+        while (scale <= n / 10) scale *= 10;
+        for (; scale > 0; scale /= 10) h = 31 * h + (char) ('0' + (n / scale) % 10);
+        return h;
+    }
+
+    // Whether the row behind handle has this id, without building the String.
+    private boolean idEquals(int handle, String id) {
+        int row = rowOf[handle];
+        if (idLiteral[row] != null) return idLiteral[row].equals(id);
+        String prefix = prefixes.get(idPrefix[row]);
+        if (!id.startsWith(prefix)) return false;
+        long n = idNumber[row];
+        int end = id.length();
+        do {
+            if (end == prefix.length() || id.charAt(--end) != (char) ('0' + n % 10)) return false;
+            n /= 10;
+        } while (n > 0);
+        return end == prefix.length();
+    }
+
+    private void touch(int handle) {
+        changedAt[handle] = ++changeCount;
+        if (dirtyPos[handle] == 0) {
+            if (dirtyCount == dirty.length) dirty = Arrays.copyOf(dirty, dirtyCount * 2);
+            dirty[dirtyCount++] = handle;
+            dirtyPos[handle] = dirtyCount;
+        }
+        if (rollups != null) roll(rowOf[handle]);
+        if (nameIndex != null) {
+            int row = rowOf[handle];
+            nameIndex.put(handle, nameId[row], names.get(nameId[row]));
+        }
+    }
+
+    // Drops handle from the dirty list by moving the last entry into its place.
+    private void unlistDirty(int handle) {
+        int pos = dirtyPos[handle] - 1;
+        if (pos < 0) return;
+        int last = dirty[--dirtyCount];
+        dirty[pos] = last;
+        dirtyPos[last] = pos + 1;
+        dirtyPos[handle] = 0;
+    }
+
+    private void roll(int row) {
+        int vehicle = vehicleId[row];
+        int task = taskId(row);
+        rollups.put(handleOf[row], vehicle, vehicles.get(vehicle), task, tasks.get(task), lastServiceDay[row], dueDay(row));
+    }
+
+    private int taskId(int row) {
+        Long pair = ((long) nameId[row] << 32) | vehicleId[row];
+        Integer task = taskOfPair.get(pair);
+        if (task == null) {
+            task = tasks.intern(MaintenanceItem.taskTypeOf(names.get(nameId[row]), vehicles.get(vehicleId[row])));
+            taskOfPair.put(pair, task);
+        }
+        return task;
+    }
+
+    private int dueDay(int row) {
+        long next = (long) lastServiceDay[row] + intervalDays[row];
+        return (int) Math.max(Integer.MIN_VALUE + 1, Math.min(Integer.MAX_VALUE, next));
+    }
+
+    private int allocateHandle() {
+        if (freeCount > 0) return freeHandles[--freeCount];
+        int h = nextHandle++;
+        if (h == rowOf.length) {
+            rowOf = Arrays.copyOf(rowOf, h * 2);
+            changedAt = Arrays.copyOf(changedAt, h * 2);
+            dirtyPos = Arrays.copyOf(dirtyPos, h * 2);
+        }
+        return h;
+    }
+
+    private void freeHandle(int handle) {
+        if (freeCount == freeHandles.length) freeHandles = Arrays.copyOf(freeHandles, freeCount * 2);
+        freeHandles[freeCount++] = handle;
+    }
+
+    // Start of a canonical decimal suffix (no sign, no leading zero), or -1 if the id has none.
+    private static int numberSuffixStart(String id) {
+        int i = id.length();
+        while (i > 0 && Character.isDigit(id.charAt(i - 1)) && id.charAt(i - 1) < 128) i--;
+        int digits = id.length() - i;
+        if (digits == 0 || digits > 18) return -1;
+        if (id.charAt(i) == '0' && digits > 1) return -1;
+        return i;
+    }
+
+    private void ensureCapacity(int min) {
+        if (min <= lastServiceDay.length) return;
+        int cap = Math.max(min, lastServiceDay.length + (lastServiceDay.length >> 1));
+        lastServiceDay = Arrays.copyOf(lastServiceDay, cap);
+        intervalDays = Arrays.copyOf(intervalDays, cap);
+        nameId = Arrays.copyOf(nameId, cap);
+        vehicleId = Arrays.copyOf(vehicleId, cap);
+        idPrefix = Arrays.copyOf(idPrefix, cap);
+        idNumber = Arrays.copyOf(idNumber, cap);
+        idLiteral = Arrays.copyOf(idLiteral, cap);
+        handleOf = Arrays.copyOf(handleOf, cap);
+    }
+
+    private void check(int row) {
+        if (row < 0 || row >= size) throw new IndexOutOfBoundsException("Row " + row + ", size " + size);
+    }
+
+    private static final class Interner {
+        private final Map<String, Integer> ids = new HashMap<>();
+        private String[] values = new String[16];
+
+        int intern(String s) {
+            Integer id = ids.get(s);
+            if (id != null) return id;
+            int next = ids.size();
+            if (next == values.length) values = Arrays.copyOf(values, next * 2);
+            values[next] = s;
+            ids.put(s, next);
+            return next;
+        }
+
+        String get(int id) {
+            return values[id];
+        }
+
+        int size() {
+            return ids.size();
+        }
+
+        Interner copy() {
+            Interner c = new Interner();
+            c.ids.putAll(ids);
+            c.values = values.clone();
+            return c;
+        }
+    }
+
+    private final class Row extends MaintenanceItem {
+        private final int row;
+
+        Row(int row) {
+            super(null, null, null, 0);
+            this.row = row;
+        }
+
+        @Override
+        public String getId() {
+            return id(row);
+        }
+
+        @Override
+        public String getName() {
+            return name(row);
+        }
+
+        @Override
+        public void setName(String name) {
+            ColumnarItemStore.this.setName(row, name);
+        }
+
+        @Override
+        public LocalDate getLastServiceDate() {
+            return LocalDate.ofEpochDay(lastServiceDay(row));
+        }
+
+        @Override
+        public void setLastServiceDate(LocalDate date) {
+            setLastServiceDay(row, (int) date.toEpochDay());
+        }
+
+        @Override
+        public int getIntervalDays() {
+            return intervalDays(row);
+        }
+
+        @Override
+        public void setIntervalDays(int days) {
+            ColumnarItemStore.this.setIntervalDays(row, days);
+        }
+
+        @Override
+        public String getVehicle() {
+            return vehicle(row);
+        }
+
+        @Override
+        public void setVehicle(String vehicle) {
+            ColumnarItemStore.this.setVehicle(row, vehicle);
+        }
+    }
+
+    private final class ListView extends AbstractList<MaintenanceItem> implements RandomAccess {
+        @Override
+        public MaintenanceItem get(int index) {
+            return ColumnarItemStore.this.get(index);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public MaintenanceItem set(int index, MaintenanceItem item) {
+            MaintenanceItem old = copy(index);
+            ColumnarItemStore.this.set(index, item);
+            return old;
+        }
+
+        @Override
+        public void add(int index, MaintenanceItem item) {
+            if (index != size) throw new UnsupportedOperationException("Items can only be appended");
+            ColumnarItemStore.this.add(item);
+            modCount++;
+        }
+
+        @Override
+        public MaintenanceItem remove(int index) {
+            MaintenanceItem old = copy(index);
+            ColumnarItemStore.this.remove(index);
+            modCount++;
+            return old;
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.example.maintenance.core;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Calendar-queue index from next-service epoch day to item handles (small, stable ints chosen by
+ * the owner). Each day with at least one item has a bucket; the non-empty days are kept in a
+ * sorted array, so a range query costs O(log d + k) for d distinct days and k results, and
+ * put/remove are O(1) plus an occasional insert into the day array.
+ */
+public class DueDateIndex {
+    private static final int ABSENT = -1;
+
+    private int[] dueOf = new int[16];
+    private int[] posOf = filled(16);
+    private final Map<Integer, Bucket> buckets = new HashMap<>();
+    private int[] days = new int[16];
+    private int dayCount;
+    private int size;
+
+    /** An empty index; handles are added with {@link #put}. */
+    public DueDateIndex() {
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean contains(int handle) {
+        return handle < posOf.length && posOf[handle] != ABSENT;
+    }
+
+    /** Adds the handle, or moves it if it is already indexed under another day. */
+    public void put(int handle, int dueDay) {
+        if (contains(handle)) {
+            if (dueOf[handle] == dueDay) return;
+            remove(handle);
+        }
+        ensureHandle(handle);
+        Bucket b = buckets.get(dueDay);
+        if (b == null) {
+            b = new Bucket();
+            buckets.put(dueDay, b);
+            insertDay(dueDay);
+        }
+        dueOf[handle] = dueDay;
+        posOf[handle] = b.add(handle);
+        size++;
+    }
+
+    public void remove(int handle) {
+        if (!contains(handle)) return;
+        int day = dueOf[handle];
+        Bucket b = buckets.get(day);
+        int moved = b.removeAt(posOf[handle]);
+        if (moved != ABSENT) posOf[moved] = posOf[handle];
+        posOf[handle] = ABSENT;
+        size--;
+        if (b.size == 0) {
+            buckets.remove(day);
+            removeDay(day);
+        }
+    }
+
+    public int dueDay(int handle) {
+        if (!contains(handle)) throw new IllegalArgumentException("Handle not indexed: " + handle);
+        return dueOf[handle];
+    }
+
+    /** Handles due on days in {@code [fromDay, toDay]}, ordered by due day. */
+    public int[] range(int fromDay, int toDay) {
+        int[] out = new int[count(fromDay, toDay)];
+        int n = 0;
+        for (int d = firstDayAtOrAfter(fromDay); d < dayCount && days[d] <= toDay; d++) {
+            Bucket b = buckets.get(days[d]);
+            System.arraycopy(b.handles, 0, out, n, b.size);
+            n += b.size;
+        }
+        return out;
+    }
+
+    /** Number of handles due on days in {@code [fromDay, toDay]}. */
+    public int count(int fromDay, int toDay) {
+        int n = 0;
+        for (int d = firstDayAtOrAfter(fromDay); d < dayCount && days[d] <= toDay; d++) {
+            n += buckets.get(days[d]).size;
+        }
+        return n;
+    }
+
+    /** An independent deep copy. */
+    public DueDateIndex copy() {
+        DueDateIndex c = new DueDateIndex();
+        c.dueOf = dueOf.clone();
+        c.posOf = posOf.clone();
+        for (Map.Entry<Integer, Bucket> e : buckets.entrySet()) {
+            Bucket b = new Bucket();
+            b.handles = Arrays.copyOf(e.getValue().handles, e.getValue().size);
+            b.size = e.getValue().size;
+            c.buckets.put(e.getKey(), b);
+        }
+        c.days = days.clone();
+        c.dayCount = dayCount;
+        c.size = size;
+        return c;
+    }
+
+    public void clear() {
+        Arrays.fill(posOf, ABSENT);
+        buckets.clear();
+        dayCount = 0;
+        size = 0;
+    }
+
+    private int firstDayAtOrAfter(int day) {
+        int i = Arrays.binarySearch(days, 0, dayCount, day);
+        return i >= 0 ? i : -i - 1;
+    }
+
+    private void insertDay(int day) {
+        int i = firstDayAtOrAfter(day);
+        if (dayCount == days.length) days = Arrays.copyOf(days, dayCount * 2);
+        System.arraycopy(days, i, days, i + 1, dayCount - i);
+        days[i] = day;
+        dayCount++;
+    }
+
+    private void removeDay(int day) {
+        int i = Arrays.binarySearch(days, 0, dayCount, day);
+        System.arraycopy(days, i + 1, days, i, dayCount - i - 1);
+        dayCount--;
+    }
+
+    private void ensureHandle(int handle) {
+        if (handle < posOf.length) return;
+        int cap = Math.max(handle + 1, posOf.length * 2);
+        dueOf = Arrays.copyOf(dueOf, cap);
+        int old = posOf.length;
+        posOf = Arrays.copyOf(posOf, cap);
+        Arrays.fill(posOf, old, cap, ABSENT);
+    }
+
+    private static int[] filled(int n) {
+        int[] a = new int[n];
+        Arrays.fill(a, ABSENT);
+        return a;
+    }
+
+    private static final class Bucket {
+        int[] handles = new int[4];
+        int size;
+
+        int add(int handle) {
+            if (size == handles.length) handles = Arrays.copyOf(handles, size * 2);
+            handles[size] = handle;
+            return size++;
+        }
+
+        // Swap-removes the entry at pos; returns the handle moved into pos, or ABSENT.
+        int removeAt(int pos) {
+            int last = --size;
+            if (pos == last) return ABSENT;
+            handles[pos] = handles[last];
+            return handles[pos];
+        }
+    }
+}
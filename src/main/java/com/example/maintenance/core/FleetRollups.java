@@ -0,0 +1,244 @@
+package com.example.maintenance.core;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Per-vehicle, per-task-type and fleet-wide aggregates over a {@link ColumnarItemStore}, kept up
+ * to date by the store on every change instead of being recomputed by scanning it. Each
+ * {@link Rollup} holds its item count, how many items are overdue as of {@link #asOfDay()}, the
+ * earliest next-service date, and service counts per month: services done (by last service date)
+ * and services due (by next service date).
+ *
+ * <p>Overdue counts depend on the day. Moving the day only touches the items whose next service
+ * falls between the old and new day, found through the store's {@link DueDateIndex}.
+ *
+ * <p>Obtained from {@link ColumnarItemStore#rollups(int)}; rollups are live and, like the store,
+ * not thread-safe.
+ */
+public class FleetRollups {
+    private static final int ABSENT = -1;
+
+    /** Aggregates of one group of items. */
+    public static final class Rollup {
+        private final String key;
+        private int items;
+        private int overdue;
+        private final TreeMap<Integer, Integer> dueDays = new TreeMap<>();
+        private final TreeMap<Integer, Integer> servicedByMonth = new TreeMap<>();
+        private final TreeMap<Integer, Integer> dueByMonth = new TreeMap<>();
+
+        Rollup(String key) {
+            this.key = key;
+        }
+
+        /** The vehicle or task type, or null for the fleet total. */
+        public String getKey() {
+            return key;
+        }
+
+        public int getItems() {
+            return items;
+        }
+
+        public int getOverdue() {
+            return overdue;
+        }
+
+        /** Earliest next-service date in the group, overdue ones included; null when empty. */
+        public LocalDate getNextDueDate() {
+            return dueDays.isEmpty() ? null : LocalDate.ofEpochDay(dueDays.firstKey());
+        }
+
+        /** Items last serviced in {@code month}. */
+        public int getServicesIn(YearMonth month) {
+            return servicedByMonth.getOrDefault(monthIndex(month), 0);
+        }
+
+        /** Items whose next service falls in {@code month}. */
+        public int getDueIn(YearMonth month) {
+            return dueByMonth.getOrDefault(monthIndex(month), 0);
+        }
+
+        public SortedMap<YearMonth, Integer> getServicesPerMonth() {
+            return byMonth(servicedByMonth);
+        }
+
+        public SortedMap<YearMonth, Integer> getDuePerMonth() {
+            return byMonth(dueByMonth);
+        }
+
+        void add(int lastDay, int dueDay, boolean isOverdue) {
+            items++;
+            if (isOverdue) overdue++;
+            increment(dueDays, dueDay, 1);
+            increment(servicedByMonth, monthIndex(lastDay), 1);
+            increment(dueByMonth, monthIndex(dueDay), 1);
+        }
+
+        void remove(int lastDay, int dueDay, boolean isOverdue) {
+            items--;
+            if (isOverdue) overdue--;
+            increment(dueDays, dueDay, -1);
+            increment(servicedByMonth, monthIndex(lastDay), -1);
+            increment(dueByMonth, monthIndex(dueDay), -1);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: %d items, %d overdue, next due %s", key == null ? "fleet" : key, items, overdue,
+                    getNextDueDate());
+        }
+    }
+
+    private final DueDateIndex due;
+    private int asOfDay;
+    private final Rollup total = new Rollup(null);
+    private final List<Rollup> vehicles = new ArrayList<>(); // by the store's vehicle id
+    private final List<Rollup> tasks = new ArrayList<>(); // by the store's task id
+    private final Map<String, Rollup> vehiclesByKey = new HashMap<>();
+    private final Map<String, Rollup> tasksByKey = new HashMap<>();
+    // by store handle
+    private int[] vehicleOf = filled(16);
+    private int[] taskOf = new int[16];
+    private int[] lastOf = new int[16];
+    private int[] dueOf = new int[16];
+
+    FleetRollups(DueDateIndex due, int asOfDay) {
+        this.due = due;
+        this.asOfDay = asOfDay;
+    }
+
+    /** Overdue counts are as of this epoch day. */
+    public int asOfDay() {
+        return asOfDay;
+    }
+
+    public Rollup total() {
+        return total;
+    }
+
+    /** The rollup for one vehicle, or null if no item has it. */
+    public Rollup vehicle(String vehicle) {
+        Rollup r = vehiclesByKey.get(vehicle);
+        return r == null || r.items == 0 ? null : r;
+    }
+
+    public Rollup task(String taskType) {
+        Rollup r = tasksByKey.get(taskType);
+        return r == null || r.items == 0 ? null : r;
+    }
+
+    /** Non-empty vehicle rollups ordered by vehicle. */
+    public List<Rollup> vehicles() {
+        return sorted(vehicles);
+    }
+
+    /** Non-empty task-type rollups ordered by task type. */
+    public List<Rollup> tasks() {
+        return sorted(tasks);
+    }
+
+    void put(int handle, int vehicleId, String vehicle, int taskId, String task, int lastDay, int dueDay) {
+        remove(handle);
+        ensureHandle(handle);
+        vehicleOf[handle] = vehicleId;
+        taskOf[handle] = taskId;
+        lastOf[handle] = lastDay;
+        dueOf[handle] = dueDay;
+        boolean isOverdue = dueDay < asOfDay;
+        total.add(lastDay, dueDay, isOverdue);
+        group(vehicles, vehiclesByKey, vehicleId, vehicle).add(lastDay, dueDay, isOverdue);
+        group(tasks, tasksByKey, taskId, task).add(lastDay, dueDay, isOverdue);
+    }
+
+    void remove(int handle) {
+        if (handle >= vehicleOf.length || vehicleOf[handle] == ABSENT) return;
+        boolean isOverdue = dueOf[handle] < asOfDay;
+        total.remove(lastOf[handle], dueOf[handle], isOverdue);
+        vehicles.get(vehicleOf[handle]).remove(lastOf[handle], dueOf[handle], isOverdue);
+        tasks.get(taskOf[handle]).remove(lastOf[handle], dueOf[handle], isOverdue);
+        vehicleOf[handle] = ABSENT;
+    }
+
+    // Items due in [old day, new day) become overdue when moving forward, and stop being overdue
+    // when moving back; nothing else changes.
+    void advanceTo(int day) {
+        if (day == asOfDay) return;
+        int delta = day > asOfDay ? 1 : -1;
+        int[] crossed = day > asOfDay ? due.range(asOfDay, day - 1) : due.range(day, asOfDay - 1);
+        asOfDay = day;
+        for (int h : crossed) {
+            if (h >= vehicleOf.length || vehicleOf[h] == ABSENT) continue;
+            total.overdue += delta;
+            vehicles.get(vehicleOf[h]).overdue += delta;
+            tasks.get(taskOf[h]).overdue += delta;
+        }
+    }
+
+    private static Rollup group(List<Rollup> byId, Map<String, Rollup> byKey, int id, String key) {
+        while (byId.size() <= id) byId.add(null);
+        Rollup r = byId.get(id);
+        if (r == null) {
+            r = byKey.computeIfAbsent(key, Rollup::new);
+            byId.set(id, r);
+        }
+        return r;
+    }
+
+    private static List<Rollup> sorted(List<Rollup> groups) {
+        List<Rollup> out = new ArrayList<>();
+        for (Rollup r : groups) {
+            if (r != null && r.items > 0) out.add(r);
+        }
+        out.sort(Comparator.comparing(Rollup::getKey, Comparator.nullsFirst(Comparator.naturalOrder())));
+        return Collections.unmodifiableList(out);
+    }
+
+    private static void increment(TreeMap<Integer, Integer> counts, int key, int delta) {
+        counts.merge(key, delta, (a, b) -> a + b == 0 ? null : a + b);
+    }
+
+    private static int monthIndex(int epochDay) {
+        LocalDate d = LocalDate.ofEpochDay(epochDay);
+        return d.getYear() * 12 + d.getMonthValue() - 1;
+    }
+
+    private static int monthIndex(YearMonth month) {
+        return month.getYear() * 12 + month.getMonthValue() - 1;
+    }
+
+    private static SortedMap<YearMonth, Integer> byMonth(TreeMap<Integer, Integer> counts) {
+        SortedMap<YearMonth, Integer> out = new TreeMap<>();
+        for (Map.Entry<Integer, Integer> e : counts.entrySet()) {
+            out.put(YearMonth.of(Math.floorDiv(e.getKey(), 12), Math.floorMod(e.getKey(), 12) + 1), e.getValue());
+        }
+        return Collections.unmodifiableSortedMap(out);
+    }
+
+    private void ensureHandle(int handle) {
+        if (handle < vehicleOf.length) return;
+        int cap = Math.max(handle + 1, vehicleOf.length * 2);
+        int old = vehicleOf.length;
+        vehicleOf = Arrays.copyOf(vehicleOf, cap);
+        Arrays.fill(vehicleOf, old, cap, ABSENT);
+        taskOf = Arrays.copyOf(taskOf, cap);
+        lastOf = Arrays.copyOf(lastOf, cap);
+        dueOf = Arrays.copyOf(dueOf, cap);
+    }
+
+    private static int[] filled(int n) {
+        int[] a = new int[n];
+        Arrays.fill(a, ABSENT);
+        return a;
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.maintenance.core;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash index from item id to an int slot (a row handle of the owning store).
+ * The index does not hold the id strings themselves: it keeps each entry's hash and slot in two
+ * int arrays and asks the owner's {@link Keys} to compare ids, so ids the store keeps in compact
+ * form are never materialized. Linear probing with backward-shift deletion keeps lookups O(1)
+ * without tombstones.
+ */
+public class IdIndex {
+    /** Resolves the id stored at a slot without creating Strings. */
+    public interface Keys {
+        boolean idEquals(int slot, String id);
+    }
+
+    private static final int EMPTY = -1;
+    private static final float MAX_LOAD = 0.6f;
+
+    private final Keys keys;
+    private int[] hashes;
+    private int[] slots;
+    private int size;
+
+    public IdIndex(Keys keys) {
+        this(keys, 16);
+    }
+
+    public IdIndex(Keys keys, int expected) {
+        this.keys = keys;
+        int cap = Integer.highestOneBit(Math.max(16, (int) (expected / MAX_LOAD)) - 1) << 1;
+        hashes = new int[cap];
+        slots = new int[cap];
+        Arrays.fill(slots, EMPTY);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /** Slot for {@code id}, or -1. */
+    public int get(String id) {
+        int h = spread(id.hashCode());
+        int mask = slots.length - 1;
+        for (int i = h & mask; slots[i] != EMPTY; i = (i + 1) & mask) {
+            if (hashes[i] == h && keys.idEquals(slots[i], id)) return slots[i];
+        }
+        return EMPTY;
+    }
+
+    /** Maps {@code id} to {@code slot}; returns the previous slot or -1. */
+    public int put(String id, int slot) {
+        return put(id.hashCode(), id, slot);
+    }
+
+    /** Same as {@link #put(String, int)} with the id's {@code String.hashCode()} precomputed. */
+    public int put(int idHash, String id, int slot) {
+        if (size + 1 > slots.length * MAX_LOAD) resize(slots.length * 2);
+        int h = spread(idHash);
+        int mask = slots.length - 1;
+        int i = h & mask;
+        for (; slots[i] != EMPTY; i = (i + 1) & mask) {
+            if (hashes[i] == h && keys.idEquals(slots[i], id)) {
+                int old = slots[i];
+                slots[i] = slot;
+                return old;
+            }
+        }
+        hashes[i] = h;
+        slots[i] = slot;
+        size++;
+        return EMPTY;
+    }
+
+    /** Removes the entry pointing at {@code slot}, found via the id's hash; returns whether it was present. */
+    public boolean remove(int idHash, int slot) {
+        int h = spread(idHash);
+        int mask = slots.length - 1;
+        for (int i = h & mask; slots[i] != EMPTY; i = (i + 1) & mask) {
+            if (slots[i] == slot) {
+                deleteAt(i);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** A copy of the table that resolves ids through {@code keys}. */
+    public IdIndex copy(Keys keys) {
+        IdIndex c = new IdIndex(keys);
+        c.hashes = hashes.clone();
+        c.slots = slots.clone();
+        c.size = size;
+        return c;
+    }
+
+    public void clear() {
+        Arrays.fill(slots, EMPTY);
+        size = 0;
+    }
+
+    // Backward-shift deletion: pull later entries of the probe run into the hole.
+    private void deleteAt(int hole) {
+        int mask = slots.length - 1;
+        int i = hole;
+        while (true) {
+            i = (i + 1) & mask;
+            if (slots[i] == EMPTY) break;
+            int home = hashes[i] & mask;
+            boolean movable = hole <= i ? (home <= hole || home > i) : (home <= hole && home > i);
+            if (movable) {
+                hashes[hole] = hashes[i];
+                slots[hole] = slots[i];
+                hole = i;
+            }
+        }
+        slots[hole] = EMPTY;
+        size--;
+    }
+
+    private void resize(int cap) {
+        int[] oldHashes = hashes;
+        int[] oldSlots = slots;
+        hashes = new int[cap];
+        slots = new int[cap];
+        Arrays.fill(slots, EMPTY);
+        int mask = cap - 1;
+        for (int j = 0; j < oldSlots.length; j++) {
+            if (oldSlots[j] == EMPTY) continue;
+            int i = oldHashes[j] & mask;
+            while (slots[i] != EMPTY) i = (i + 1) & mask;
+            hashes[i] = oldHashes[j];
+            slots[i] = oldSlots[j];
+        }
+    }
+
+    private static int spread(int h) {
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
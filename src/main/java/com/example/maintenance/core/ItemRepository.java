@@ -0,0 +1,402 @@
+package com.example.maintenance.core;
+
+import com.example.maintenance.model.MaintenanceItem;
+
+import java.time.LocalDate;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Thread-safe item store for the consumers that really are concurrent: HTTP handlers, an import
+ * merging into a fleet that is being served, and the {@link AlertEngine} fed by both.
+ *
+ * <p>Each item's current state is an immutable, versioned {@link Entry} in a concurrent map, so
+ * lookups by id never lock. Fleet-wide reads go through a {@link View}: a
+ * {@link ColumnarItemStore} copy that nobody writes to, published through a volatile field and
+ * rebuilt, from the writes queued since, by the first reader after a change. Writers take one of
+ * {@value #STRIPES} locks chosen by id and never wait for readers, so a scan of the whole fleet
+ * does not hold up an importer, and the other way round.
+ *
+ * <p>{@link #withLock} runs a read-modify-write under an item's lock, so a caller can persist the
+ * new state before it {@link #put}s it and readers never see an unsaved value.
+ */
+public class ItemRepository {
+    static final int STRIPES = 64;
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final ReentrantLock[] stripes = new ReentrantLock[STRIPES];
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final AtomicLong writes = new AtomicLong();
+
+    // Entries put and ids removed since the last view. Writers only queue; readers that publish
+    // a view drain it into master under publishLock.
+    private final ConcurrentLinkedQueue<Object> pending = new ConcurrentLinkedQueue<>();
+    private final Object publishLock = new Object();
+    private final ColumnarItemStore master;
+    private volatile View view;
+
+    /** An empty repository; items are added with {@link #put}. */
+    public ItemRepository() {
+        this(new ColumnarItemStore());
+    }
+
+    private ItemRepository(ColumnarItemStore master) {
+        for (int i = 0; i < STRIPES; i++) stripes[i] = new ReentrantLock();
+        this.master = master;
+        master.markClean(master.changeCount());
+        for (int row = 0; row < master.size(); row++) {
+            Entry e = new Entry(master.id(row), master.name(row), master.vehicle(row), master.lastServiceDay(row),
+                    master.intervalDays(row), 1);
+            entries.put(e.id, e);
+        }
+        this.view = new View(master.snapshot(), 0);
+    }
+
+    /** A repository holding {@code items} in list order; a later item with the same id wins. */
+    public static ItemRepository of(List<MaintenanceItem> items) {
+        ColumnarItemStore store = new ColumnarItemStore();
+        for (MaintenanceItem it : items) store.upsert(it);
+        return new ItemRepository(store);
+    }
+
+    /** Current state of the item with this id, or null. Never blocks. */
+    public Entry get(String id) {
+        return entries.get(id);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /** Number of writes so far. */
+    public long writes() {
+        return writes.get();
+    }
+
+    /**
+     * Stores {@code item} as the current state of its id and returns the new entry. The caller
+     * needs no lock; inside {@link #withLock} the write is ordered with the caller's others.
+     */
+    public Entry put(MaintenanceItem item) {
+        Objects.requireNonNull(item.getId(), "id");
+        ReentrantLock lock = stripe(item.getId());
+        lock.lock();
+        try {
+            Entry previous = entries.get(item.getId());
+            Entry e = new Entry(item.getId(), item.getName(), item.getVehicle(),
+                    (int) item.getLastServiceDate().toEpochDay(), item.getIntervalDays(),
+                    previous == null ? 1 : previous.version + 1);
+            entries.put(e.id, e);
+            committed(e);
+            for (Listener l : listeners) l.changed(e);
+            return e;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Removes the item with this id; returns whether there was one. */
+    public boolean remove(String id) {
+        ReentrantLock lock = stripe(id);
+        lock.lock();
+        try {
+            Entry removed = entries.remove(id);
+            if (removed == null) return false;
+            committed(id);
+            for (Listener l : listeners) l.removed(id);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Same as {@link #withLocks} for one id. */
+    public <T> T withLock(String id, Callable<T> action) throws Exception {
+        return withLocks(List.of(id), action);
+    }
+
+    /**
+     * Runs {@code action} holding the write locks of {@code ids}, so no other writer changes
+     * those items meanwhile; {@link #put} and {@link #remove} may be called from inside. Locks
+     * are taken in a fixed order, so overlapping batches cannot deadlock. Readers are not held
+     * up.
+     */
+    public <T> T withLocks(Collection<String> ids, Callable<T> action) throws Exception {
+        boolean[] held = new boolean[STRIPES];
+        for (String id : ids) held[stripeOf(id)] = true;
+        lock(held);
+        try {
+            return action.call();
+        } finally {
+            unlock(held);
+        }
+    }
+
+    /**
+     * The items as of the last write, for fleet-wide reads. Returns the published view if no
+     * write has happened since; otherwise the first caller applies the queued writes to its own
+     * copy and publishes a new view, which concurrent callers then share. Writers go on meanwhile.
+     */
+    public View view() {
+        View v = view;
+        if (v.writes == writes.get()) return v;
+        synchronized (publishLock) {
+            v = view;
+            // Writers queue before counting, so every write up to this count is in the queue.
+            long upTo = writes.get();
+            if (v.writes == upTo) return v;
+            for (Object o; (o = pending.poll()) != null; ) {
+                if (o instanceof Entry) master.upsert(((Entry) o).toItem());
+                else master.removeById((String) o);
+            }
+            master.markClean(master.changeCount());
+            v = new View(master.snapshot(), upTo);
+            view = v;
+            return v;
+        }
+    }
+
+    /**
+     * A read-only list of the items that takes a {@link #view()} only when first read, e.g. for
+     * {@code ItemStorage.saveChanges}, which only reads the full list when it has nothing loaded.
+     */
+    public List<MaintenanceItem> asList() {
+        return new LazyList();
+    }
+
+    /**
+     * Registers {@code listener} and hands {@code current} every item as of that moment. Both run
+     * with every write lock held, so no write falls between them: the listener hears of exactly
+     * the writes that {@code current} did not see.
+     */
+    public void addListener(Listener listener, Consumer<? super Collection<Entry>> current) {
+        boolean[] all = new boolean[STRIPES];
+        Arrays.fill(all, true);
+        lock(all);
+        try {
+            current.accept(new ArrayList<>(entries.values()));
+            listeners.add(listener);
+        } finally {
+            unlock(all);
+        }
+    }
+
+    /** Stops reporting to {@code listener}; when this returns, no call to it is in progress. */
+    public void removeListener(Listener listener) {
+        boolean[] all = new boolean[STRIPES];
+        Arrays.fill(all, true);
+        lock(all);
+        try {
+            listeners.remove(listener);
+        } finally {
+            unlock(all);
+        }
+    }
+
+    // Called under the item's stripe with an Entry or a removed id: queue first, then count, so
+    // a reader that sees the count finds the write queued.
+    private void committed(Object write) {
+        pending.add(write);
+        writes.incrementAndGet();
+    }
+
+    // Ascending stripe order, so two callers locking overlapping sets cannot deadlock.
+    private void lock(boolean[] held) {
+        for (int i = 0; i < STRIPES; i++) {
+            if (held[i]) stripes[i].lock();
+        }
+    }
+
+    private void unlock(boolean[] held) {
+        for (int i = STRIPES - 1; i >= 0; i--) {
+            if (held[i]) stripes[i].unlock();
+        }
+    }
+
+    private ReentrantLock stripe(String id) {
+        return stripes[stripeOf(id)];
+    }
+
+    static int stripeOf(String id) {
+        int h = id.hashCode() * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & (STRIPES - 1);
+    }
+
+    /** Receives every write, on the writing thread with the item's lock held, so in order per id. */
+    public interface Listener {
+        void changed(Entry entry);
+
+        void removed(String id);
+    }
+
+    /** Immutable state of one item as of one write. */
+    public static final class Entry {
+        private final String id;
+        private final String name;
+        private final String vehicle;
+        private final int lastServiceDay;
+        private final int intervalDays;
+        private final long version;
+
+        Entry(String id, String name, String vehicle, int lastServiceDay, int intervalDays, long version) {
+            this.id = id;
+            this.name = name;
+            this.vehicle = vehicle;
+            this.lastServiceDay = lastServiceDay;
+            this.intervalDays = intervalDays;
+            this.version = version;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getVehicle() {
+            return vehicle;
+        }
+
+        public int getLastServiceDay() {
+            return lastServiceDay;
+        }
+
+        public LocalDate getLastServiceDate() {
+            return LocalDate.ofEpochDay(lastServiceDay);
+        }
+
+        public int getIntervalDays() {
+            return intervalDays;
+        }
+
+        public int getNextDueDay() {
+            long next = (long) lastServiceDay + intervalDays;
+            return (int) Math.max(Integer.MIN_VALUE + 1, Math.min(Integer.MAX_VALUE, next));
+        }
+
+        /** 1 for the item's first state, one more for every later {@link #put} of its id. */
+        public long getVersion() {
+            return version;
+        }
+
+        /** A detached, mutable copy. */
+        public MaintenanceItem toItem() {
+            return new MaintenanceItem(id, name, getLastServiceDate(), intervalDays, vehicle);
+        }
+    }
+
+    /**
+     * The items at one version, in a {@link ColumnarItemStore} that is never written again. Row
+     * reads need no lock. Rollups and forecasts are built lazily inside the store, so those
+     * calls take turns on the view; they still never wait for a writer.
+     */
+    public static final class View {
+        private final ColumnarItemStore store;
+        private final long writes;
+
+        View(ColumnarItemStore store, long writes) {
+            this.store = store;
+            this.writes = writes;
+        }
+
+        /** The repository's {@link ItemRepository#writes()} count this view includes all writes up to. */
+        public long writes() {
+            return writes;
+        }
+
+        public int size() {
+            return store.size();
+        }
+
+        public int indexOf(String id) {
+            return store.indexOf(id);
+        }
+
+        public String id(int row) {
+            return store.id(row);
+        }
+
+        public String name(int row) {
+            return store.name(row);
+        }
+
+        public String vehicle(int row) {
+            return store.vehicle(row);
+        }
+
+        public int lastServiceDay(int row) {
+            return store.lastServiceDay(row);
+        }
+
+        public int intervalDays(int row) {
+            return store.intervalDays(row);
+        }
+
+        public int nextDueDay(int row) {
+            return store.nextDueDay(row);
+        }
+
+        /** See {@link ColumnarItemStore#rowsDueBetween}. */
+        public int[] rowsDueBetween(int fromDay, int toDay) {
+            return store.rowsDueBetween(fromDay, toDay);
+        }
+
+        /** See {@link ColumnarItemStore#statusCounts}. */
+        public int[] statusCounts(int asOfDay) {
+            return store.statusCounts(asOfDay);
+        }
+
+        /**
+         * Applies {@code read} to the rollups as of {@code asOfDay}. Moving the as-of day updates
+         * the rollups, so {@code read} must be done with them when it returns.
+         */
+        public synchronized <T> T rollups(int asOfDay, Function<FleetRollups, T> read) {
+            return read.apply(store.rollups(asOfDay));
+        }
+
+        /** See {@link ColumnarItemStore#forecast}. */
+        public synchronized WorkloadForecast forecast(int fromDay, int days) {
+            return store.forecast(fromDay, days);
+        }
+
+        /** A detached copy of the item at {@code row}. */
+        public MaintenanceItem item(int row) {
+            return new MaintenanceItem(store.id(row), store.name(row), LocalDate.ofEpochDay(store.lastServiceDay(row)),
+                    store.intervalDays(row), store.vehicle(row));
+        }
+    }
+
+    private final class LazyList extends AbstractList<MaintenanceItem> implements RandomAccess {
+        private View taken;
+
+        private View taken() {
+            if (taken == null) taken = view();
+            return taken;
+        }
+
+        @Override
+        public MaintenanceItem get(int index) {
+            return taken().item(index);
+        }
+
+        @Override
+        public int size() {
+            return taken().size();
+        }
+    }
+}
@@ -1,11 +1,21 @@
 package com.example.maintenance.core;
 
+import com.example.maintenance.metrics.Counter;
+import com.example.maintenance.metrics.LatencyHistogram;
+import com.example.maintenance.metrics.Metrics;
 import com.example.maintenance.model.MaintenanceItem;
 
 import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
+import java.util.List;
 
 public class MaintenanceScheduler {
+    // Items due within this many days (and not yet overdue) are DUE_SOON.
+    public static final int DUE_SOON_DAYS = 7;
+
+    private static final Status[] STATUSES = Status.values();
+    private static final LatencyHistogram CLASSIFY_TIME = Metrics.histogram("scheduler.classify");
+    private static final Counter CLASSIFIED_ITEMS = Metrics.counter("scheduler.classify.items");
 
     public static LocalDate nextServiceDate(MaintenanceItem item) {
         return item.getLastServiceDate().plusDays(item.getIntervalDays());
@@ -16,12 +26,83 @@ public class MaintenanceScheduler {
         return ChronoUnit.DAYS.between(LocalDate.now(), next);
     }
 
+    public static long daysUntilNext(MaintenanceItem item, int asOfDay) {
+        return item.getLastServiceDate().toEpochDay() + item.getIntervalDays() - asOfDay;
+    }
+
     public static Status status(MaintenanceItem item) {
-        long days = daysUntilNext(item);
-        if (days < 0) return Status.OVERDUE;
-        if (days <= 7) return Status.DUE_SOON; // within a week
+        return statusOf(daysUntilNext(item));
+    }
+
+    public static Status status(MaintenanceItem item, int asOfDay) {
+        return statusOf(daysUntilNext(item, asOfDay));
+    }
+
+    public static Status statusOf(long daysUntil) {
+        if (daysUntil < 0) return Status.OVERDUE;
+        if (daysUntil <= DUE_SOON_DAYS) return Status.DUE_SOON; // within a week
         return Status.OK;
     }
 
+    /** Decodes a status code written by {@code classify}. */
+    public static Status status(byte code) {
+        return STATUSES[code];
+    }
+
+    /** Today's date as an epoch day, to pass as the "as of" day of a batch. */
+    public static int today() {
+        return (int) LocalDate.now().toEpochDay();
+    }
+
+    /**
+     * Classifies items {@code [0, count)} given as parallel epoch-day and interval columns, all
+     * against the same {@code asOfDay}. Writes each item's {@link Status#ordinal()} to
+     * {@code statusOut} and its days until next service to {@code daysUntilOut} (either may be
+     * null) and returns the counts indexed by status ordinal. Nothing is allocated per item.
+     */
+    public static int[] classify(int[] lastServiceDays, int[] intervalDays, int count, int asOfDay,
+                                 byte[] statusOut, int[] daysUntilOut) {
+        long started = System.nanoTime();
+        int overdue = 0;
+        int dueSoon = 0;
+        for (int i = 0; i < count; i++) {
+            long days = (long) lastServiceDays[i] + intervalDays[i] - asOfDay;
+            byte code;
+            if (days < 0) {
+                code = 0;
+                overdue++;
+            } else if (days <= DUE_SOON_DAYS) {
+                code = 1;
+                dueSoon++;
+            } else {
+                code = 2;
+            }
+            if (statusOut != null) statusOut[i] = code;
+            if (daysUntilOut != null) daysUntilOut[i] = (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, days));
+        }
+        CLASSIFY_TIME.recordSince(started);
+        CLASSIFIED_ITEMS.add(count);
+        return new int[]{overdue, dueSoon, count - overdue - dueSoon};
+    }
+
+    /** Same as the columnar {@code classify}, for a list of items. */
+    public static int[] classify(List<MaintenanceItem> items, int asOfDay, byte[] statusOut, int[] daysUntilOut) {
+        long started = System.nanoTime();
+        int n = items.size();
+        int overdue = 0;
+        int dueSoon = 0;
+        for (int i = 0; i < n; i++) {
+            long days = daysUntilNext(items.get(i), asOfDay);
+            Status s = statusOf(days);
+            if (s == Status.OVERDUE) overdue++;
+            else if (s == Status.DUE_SOON) dueSoon++;
+            if (statusOut != null) statusOut[i] = (byte) s.ordinal();
+            if (daysUntilOut != null) daysUntilOut[i] = (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, days));
+        }
+        CLASSIFY_TIME.recordSince(started);
+        CLASSIFIED_ITEMS.add(n);
+        return new int[]{overdue, dueSoon, n - overdue - dueSoon};
+    }
+
     public enum Status {OVERDUE, DUE_SOON, OK}
 }
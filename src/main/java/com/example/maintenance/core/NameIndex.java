@@ -0,0 +1,317 @@
+package com.example.maintenance.core;
+
+import com.example.maintenance.metrics.LatencyHistogram;
+import com.example.maintenance.metrics.Metrics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Inverted index from the words of item names to item handles. Names are split into lowercase
+ * tokens at every character that is not a letter or digit; a sorted token dictionary maps each
+ * token to a posting list of the handles whose name contains it, stored as delta-encoded varints.
+ * Supported queries, all case-insensitive:
+ * <ul>
+ *   <li>{@link #prefix}: a token starts with the text;</li>
+ *   <li>{@link #allOf}: every word of the text is the prefix of some token ("scoot bra");</li>
+ *   <li>{@link #substring}: the name contains the text anywhere, found through the dictionary
+ *       and confirmed against the name only when the text spans several words.</li>
+ * </ul>
+ * Results are sets of handles. Names are identified by the store's interned name ids, so each
+ * distinct name is tokenized once. Updates are incremental: small changes to a posting list are
+ * buffered and merged into its encoded form once they add up to a fraction of it.
+ *
+ * <p>Maintained by {@link ColumnarItemStore}, which creates it on first use. Not thread-safe.
+ */
+public class NameIndex {
+    private static final LatencyHistogram QUERY_TIME = Metrics.histogram("search.query");
+    private static final int[] NO_TOKENS = new int[0];
+
+    private final Map<String, Integer> tokenIds = new HashMap<>();
+    private final NavigableMap<String, Integer> dictionary = new TreeMap<>(); // same tokens, sorted
+    private final List<String> tokens = new ArrayList<>();
+    private final List<Postings> postings = new ArrayList<>();
+    private int[][] tokensOfName = new int[16][]; // by name id, null until first seen
+    private String[] lowerName = new String[16]; // by name id
+    private int[] nameOf = new int[0]; // by handle: name id, or -1 when not indexed
+
+    /** An empty index; names are added with {@link #put}. */
+    public NameIndex() {
+    }
+
+    /**
+     * Indexes {@code handle} under the name with id {@code nameId}, replacing what it was indexed
+     * under before. {@code name} is only read the first time a name id is seen.
+     */
+    public void put(int handle, int nameId, String name) {
+        if (handle < nameOf.length && nameOf[handle] == nameId) return;
+        remove(handle);
+        if (handle >= nameOf.length) {
+            int old = nameOf.length;
+            nameOf = Arrays.copyOf(nameOf, Math.max(handle + 1, old * 2));
+            Arrays.fill(nameOf, old, nameOf.length, -1);
+        }
+        nameOf[handle] = nameId;
+        for (int token : tokensOf(nameId, name)) postings.get(token).add(handle);
+    }
+
+    public void remove(int handle) {
+        if (handle >= nameOf.length || nameOf[handle] < 0) return;
+        for (int token : tokensOfName[nameOf[handle]]) postings.get(token).remove(handle);
+        nameOf[handle] = -1;
+    }
+
+    /** Number of distinct tokens. */
+    public int tokenCount() {
+        return tokens.size();
+    }
+
+    /**
+     * The query syntax of the GUI filter box: text in double quotes is a {@link #substring}
+     * search, anything else an {@link #allOf} search.
+     */
+    public BitSet query(String text) {
+        String t = text.trim();
+        if (t.length() >= 2 && t.startsWith("\"") && t.endsWith("\"")) return substring(t.substring(1, t.length() - 1));
+        return allOf(t);
+    }
+
+    /** Handles whose name has a token starting with {@code prefix}. */
+    public BitSet prefix(String prefix) {
+        long started = System.nanoTime();
+        BitSet out = prefixMatches(prefix.toLowerCase(Locale.ROOT));
+        QUERY_TIME.recordSince(started);
+        return out;
+    }
+
+    /** Handles whose name has, for every word of {@code text}, a token starting with that word. */
+    public BitSet allOf(String text) {
+        long started = System.nanoTime();
+        BitSet out = null;
+        for (String word : split(text.toLowerCase(Locale.ROOT))) {
+            BitSet matches = prefixMatches(word);
+            if (out == null) out = matches;
+            else out.and(matches);
+            if (out.isEmpty()) break;
+        }
+        if (out == null) out = all();
+        QUERY_TIME.recordSince(started);
+        return out;
+    }
+
+    /** Handles whose name contains {@code text}, ignoring case. */
+    public BitSet substring(String text) {
+        long started = System.nanoTime();
+        String needle = text.toLowerCase(Locale.ROOT);
+        List<String> words = split(needle);
+        BitSet out;
+        if (words.isEmpty()) {
+            out = needle.isEmpty() ? all() : verified(all(), needle);
+        } else if (words.size() == 1 && words.get(0).equals(needle)) {
+            // within one token: the union over every token containing it is exact
+            out = new BitSet();
+            for (int t = 0; t < tokens.size(); t++) {
+                if (tokens.get(t).contains(needle)) postings.get(t).addTo(out);
+            }
+        } else {
+            // spans tokens: the first word ends a token, inner words are whole tokens and the
+            // last starts one (unless the text ends at a separator); names are then checked
+            out = null;
+            for (int i = 0; i < words.size(); i++) {
+                String w = words.get(i);
+                boolean first = i == 0 && needle.startsWith(w);
+                boolean last = i == words.size() - 1 && needle.endsWith(w);
+                BitSet matches = new BitSet();
+                for (int t = 0; t < tokens.size(); t++) {
+                    String token = tokens.get(t);
+                    boolean hit = first && last ? token.contains(w)
+                            : first ? token.endsWith(w)
+                            : last ? token.startsWith(w)
+                            : token.equals(w);
+                    if (hit) postings.get(t).addTo(matches);
+                }
+                if (out == null) out = matches;
+                else out.and(matches);
+                if (out.isEmpty()) break;
+            }
+            out = verified(out, needle);
+        }
+        QUERY_TIME.recordSince(started);
+        return out;
+    }
+
+    private BitSet prefixMatches(String prefix) {
+        BitSet out = new BitSet();
+        for (int t : dictionary.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values()) {
+            postings.get(t).addTo(out);
+        }
+        return out;
+    }
+
+    private BitSet all() {
+        BitSet out = new BitSet(nameOf.length);
+        for (int h = 0; h < nameOf.length; h++) {
+            if (nameOf[h] >= 0) out.set(h);
+        }
+        return out;
+    }
+
+    private BitSet verified(BitSet candidates, String needle) {
+        BitSet out = new BitSet();
+        for (int h = candidates.nextSetBit(0); h >= 0; h = candidates.nextSetBit(h + 1)) {
+            if (lowerName[nameOf[h]].contains(needle)) out.set(h);
+        }
+        return out;
+    }
+
+    private int[] tokensOf(int nameId, String name) {
+        if (nameId >= tokensOfName.length) {
+            int cap = Math.max(nameId + 1, tokensOfName.length * 2);
+            tokensOfName = Arrays.copyOf(tokensOfName, cap);
+            lowerName = Arrays.copyOf(lowerName, cap);
+        }
+        int[] ids = tokensOfName[nameId];
+        if (ids != null) return ids;
+        String lower = name.toLowerCase(Locale.ROOT);
+        List<String> words = split(lower);
+        ids = words.isEmpty() ? NO_TOKENS : new int[words.size()];
+        int n = 0;
+        for (String w : words) {
+            Integer id = tokenIds.get(w);
+            if (id == null) {
+                id = tokens.size();
+                tokenIds.put(w, id);
+                dictionary.put(w, id);
+                tokens.add(w);
+                postings.add(new Postings());
+            }
+            boolean repeated = false;
+            for (int i = 0; i < n; i++) repeated |= ids[i] == id;
+            if (!repeated) ids[n++] = id;
+        }
+        ids = n == ids.length ? ids : Arrays.copyOf(ids, n);
+        tokensOfName[nameId] = ids;
+        lowerName[nameId] = lower;
+        return ids;
+    }
+
+    static List<String> split(String s) {
+        List<String> out = new ArrayList<>(4);
+        int start = -1;
+        for (int i = 0; i <= s.length(); i++) {
+            boolean word = i < s.length() && Character.isLetterOrDigit(s.charAt(i));
+            if (word && start < 0) start = i;
+            else if (!word && start >= 0) {
+                out.add(s.substring(start, i));
+                start = -1;
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Sorted handles as varint-encoded gaps, plus unsorted pending additions and removals that
+     * are merged in once they reach a sixteenth of the list.
+     */
+    static final class Postings {
+        private static final int MIN_PENDING = 32;
+
+        private byte[] data = new byte[4];
+        private int length;
+        private int size;
+        private int last = -1;
+        private int[] added = new int[0];
+        private int addedCount;
+        private int[] removed = new int[0];
+        private int removedCount;
+
+        void add(int handle) {
+            int i = indexOf(removed, removedCount, handle);
+            if (i >= 0) {
+                removed[i] = removed[--removedCount];
+            } else if (handle > last && addedCount == 0) {
+                append(handle);
+            } else {
+                if (addedCount == added.length) added = Arrays.copyOf(added, Math.max(8, addedCount * 2));
+                added[addedCount++] = handle;
+                mergeIfLarge();
+            }
+        }
+
+        void remove(int handle) {
+            int i = indexOf(added, addedCount, handle);
+            if (i >= 0) {
+                added[i] = added[--addedCount];
+                return;
+            }
+            if (removedCount == removed.length) removed = Arrays.copyOf(removed, Math.max(8, removedCount * 2));
+            removed[removedCount++] = handle;
+            mergeIfLarge();
+        }
+
+        int size() {
+            return size + addedCount - removedCount;
+        }
+
+        /** Sets the bit of every handle in the list, leaving other bits of {@code out} alone. */
+        void addTo(BitSet out) {
+            int[] skip = removedCount == 0 ? null : Arrays.copyOf(removed, removedCount);
+            if (skip != null) Arrays.sort(skip);
+            int s = 0;
+            int h = 0;
+            for (int pos = 0; pos < length; ) {
+                int gap = 0;
+                int shift = 0;
+                byte b;
+                do {
+                    b = data[pos++];
+                    gap |= (b & 0x7f) << shift;
+                    shift += 7;
+                } while (b < 0);
+                h += gap;
+                if (skip != null && s < skip.length && skip[s] == h) s++;
+                else out.set(h);
+            }
+            for (int i = 0; i < addedCount; i++) out.set(added[i]);
+        }
+
+        private void mergeIfLarge() {
+            if (addedCount + removedCount < Math.max(MIN_PENDING, size >>> 4)) return;
+            BitSet all = new BitSet();
+            addTo(all);
+            data = new byte[Math.max(4, length)];
+            length = 0;
+            size = 0;
+            last = -1;
+            addedCount = 0;
+            removedCount = 0;
+            for (int h = all.nextSetBit(0); h >= 0; h = all.nextSetBit(h + 1)) append(h);
+        }
+
+        private void append(int handle) {
+            int gap = handle - (last < 0 ? 0 : last);
+            if (length + 5 > data.length) data = Arrays.copyOf(data, data.length * 2 + 5);
+            while ((gap & ~0x7f) != 0) {
+                data[length++] = (byte) ((gap & 0x7f) | 0x80);
+                gap >>>= 7;
+            }
+            data[length++] = (byte) gap;
+            last = handle;
+            size++;
+        }
+
+        private static int indexOf(int[] a, int n, int v) {
+            for (int i = 0; i < n; i++) {
+                if (a[i] == v) return i;
+            }
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.example.maintenance.core;
+
+import com.example.maintenance.metrics.LatencyHistogram;
+import com.example.maintenance.metrics.Metrics;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Projected service workload per day over a window of days: every future occurrence
+ * {@code lastServiceDay + k * intervalDays} (k &gt;= 1) of every item that falls in the window,
+ * counted per day and per task type. Items whose next service is already past the start of the
+ * window still contribute their later occurrences, and are also counted once in
+ * {@link #getOverdue()} as pending work.
+ *
+ * <p>Computed by {@link #compute} over row partitions in parallel, each filling its own
+ * primitive counters, which are then summed. {@link ColumnarItemStore#forecast(int, int)} caches
+ * the result until the store changes. Immutable.
+ */
+public final class WorkloadForecast {
+    private static final LatencyHistogram COMPUTE_TIME = Metrics.histogram("forecast.compute");
+    // Cap on counters held by all partitions at once; more task types means fewer partitions.
+    private static final long MAX_PARTIAL_COUNTERS = 16L << 20;
+    private static final int MIN_PARTITION_ROWS = 4096;
+
+    private final int startDay;
+    private final int days;
+    private final int[] perDay;
+    private final int[] perTaskDay; // task * days + day
+    private final List<String> taskTypes;
+    private final int overdue;
+    private final long total;
+
+    private WorkloadForecast(int startDay, int days, int[] perDay, int[] perTaskDay, List<String> taskTypes,
+                             int overdue) {
+        this.startDay = startDay;
+        this.days = days;
+        this.perDay = perDay;
+        this.perTaskDay = perTaskDay;
+        this.taskTypes = taskTypes;
+        this.overdue = overdue;
+        long sum = 0;
+        for (int c : perDay) sum += c;
+        this.total = sum;
+    }
+
+    /**
+     * Forecasts rows {@code [0, count)} given as columns, for {@code days} days from
+     * {@code startDay}. {@code taskIds} index into {@code taskTypes}. Items with a non-positive
+     * interval contribute only their next occurrence.
+     */
+    public static WorkloadForecast compute(int[] lastServiceDays, int[] intervalDays, int[] taskIds, int count,
+                                           List<String> taskTypes, int startDay, int days) {
+        if (days < 0) throw new IllegalArgumentException("days must be >= 0: " + days);
+        long started = System.nanoTime();
+        int tasks = taskTypes.size();
+        long countersPerPartition = (long) (tasks + 1) * days + 1;
+        int cores = Runtime.getRuntime().availableProcessors();
+        int parts = (int) Math.max(1, Math.min(Math.min(cores * 4L, count / MIN_PARTITION_ROWS),
+                MAX_PARTIAL_COUNTERS / countersPerPartition));
+        List<int[][]> partials = IntStream.range(0, parts)
+                .parallel()
+                .mapToObj(p -> partition(lastServiceDays, intervalDays, taskIds, (int) ((long) count * p / parts),
+                        (int) ((long) count * (p + 1) / parts), tasks, startDay, days))
+                .collect(Collectors.toList());
+        int[] perDay = partials.get(0)[0];
+        int[] perTaskDay = partials.get(0)[1];
+        int overdue = partials.get(0)[2][0];
+        for (int p = 1; p < partials.size(); p++) {
+            add(perDay, partials.get(p)[0]);
+            add(perTaskDay, partials.get(p)[1]);
+            overdue += partials.get(p)[2][0];
+        }
+        WorkloadForecast f = new WorkloadForecast(startDay, days, perDay, perTaskDay,
+                Collections.unmodifiableList(new ArrayList<>(taskTypes)), overdue);
+        COMPUTE_TIME.recordSince(started);
+        return f;
+    }
+
+    // Counters for rows [from, to): per day, per task and day, and the overdue count.
+    private static int[][] partition(int[] last, int[] interval, int[] taskIds, int from, int to, int tasks,
+                                     int startDay, int days) {
+        int[] perDay = new int[days];
+        int[] perTaskDay = new int[tasks * days];
+        int overdue = 0;
+        long end = (long) startDay + days;
+        for (int i = from; i < to; i++) {
+            long step = interval[i];
+            long next = last[i] + step;
+            if (next < startDay) {
+                overdue++;
+                if (step <= 0) continue;
+                next += (startDay - next + step - 1) / step * step;
+            }
+            int base = taskIds[i] * days;
+            for (long d = next; d < end; d += step) {
+                int offset = (int) (d - startDay);
+                perDay[offset]++;
+                perTaskDay[base + offset]++;
+                if (step <= 0) break;
+            }
+        }
+        return new int[][]{perDay, perTaskDay, {overdue}};
+    }
+
+    private static void add(int[] into, int[] from) {
+        for (int i = 0; i < into.length; i++) into[i] += from[i];
+    }
+
+    /** First forecast day, as an epoch day. */
+    public int getStartDay() {
+        return startDay;
+    }
+
+    public LocalDate getStartDate() {
+        return LocalDate.ofEpochDay(startDay);
+    }
+
+    public int getDays() {
+        return days;
+    }
+
+    /** Items whose next service falls before the start day. */
+    public int getOverdue() {
+        return overdue;
+    }
+
+    /** Services over the whole window. */
+    public long getTotal() {
+        return total;
+    }
+
+    /** Services due on {@code date}; 0 outside the window. */
+    public int on(LocalDate date) {
+        long offset = date.toEpochDay() - startDay;
+        return offset < 0 || offset >= days ? 0 : perDay[(int) offset];
+    }
+
+    /** Services due on day {@code offset} of the window. */
+    public int onDay(int offset) {
+        return perDay[offset];
+    }
+
+    /** Services of one task type due on day {@code offset}; 0 for an unknown task type. */
+    public int onDay(String taskType, int offset) {
+        int task = taskTypes.indexOf(taskType);
+        return task < 0 ? 0 : perTaskDay[task * days + offset];
+    }
+
+    /** Copy of the per-day counts. */
+    public int[] daily() {
+        return perDay.clone();
+    }
+
+    /** Copy of the per-day counts of one task type; all zeros for an unknown task type. */
+    public int[] daily(String taskType) {
+        int task = taskTypes.indexOf(taskType);
+        return task < 0 ? new int[days] : Arrays.copyOfRange(perTaskDay, task * days, (task + 1) * days);
+    }
+
+    /** Task types that have at least one service in the window, in order of first appearance. */
+    public List<String> getTaskTypes() {
+        List<String> out = new ArrayList<>();
+        for (int t = 0; t < taskTypes.size(); t++) {
+            for (int d = 0; d < days; d++) {
+                if (perTaskDay[t * days + d] != 0) {
+                    out.add(taskTypes.get(t));
+                    break;
+                }
+            }
+        }
+        return out;
+    }
+}
@@ -0,0 +1,224 @@
+package com.example.maintenance.gui;
+
+import com.example.maintenance.core.ColumnarItemStore;
+import com.example.maintenance.core.MaintenanceScheduler;
+import com.example.maintenance.io.LazyItemFile;
+import com.example.maintenance.model.MaintenanceItem;
+
+import javax.swing.table.AbstractTableModel;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Table model that reads cells straight from the {@link ColumnarItemStore} when Swing asks for
+ * them, so only visible rows are ever formatted. Changes made through the model fire row-level
+ * events instead of rebuilding the table.
+ *
+ * <p>A name filter ({@link #setFilter}) narrows the table to the matches of a
+ * {@link com.example.maintenance.core.NameIndex} query; row numbers taken by and passed to the
+ * model are then view rows, see {@link #storeRow(int)}.
+ *
+ * <p>In lazy mode ({@link #browse}) cells come from a {@link LazyItemFile} instead, which parses
+ * only the rows Swing paints; edits go to the file's journal and filtering is not available.
+ */
+public class ItemTableModel extends AbstractTableModel {
+    private static final long serialVersionUID = 1L;
+
+    static final String[] COLUMNS = {"ID", "Vehicle Name", "Vehicle", "Last Service", "Interval", "Next Service", "Days Until", "Status"};
+
+    private final ColumnarItemStore store;
+    private int today = MaintenanceScheduler.today();
+    private String filter = "";
+    private int[] visible; // store rows shown while filtering, null when not filtering
+    private LazyItemFile lazy;
+
+    public ItemTableModel(ColumnarItemStore store) {
+        this.store = store;
+    }
+
+    @Override
+    public int getRowCount() {
+        if (lazy != null) return lazy.size();
+        return visible == null ? store.size() : visible.length;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMNS.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMNS[column];
+    }
+
+    @Override
+    public Object getValueAt(int viewRow, int column) {
+        if (lazy != null) return lazyValueAt(viewRow, column);
+        int row = storeRow(viewRow);
+        switch (column) {
+            case 0:
+                return store.id(row);
+            case 1:
+                return store.name(row);
+            case 2:
+                return store.vehicle(row);
+            case 3:
+                return LocalDate.ofEpochDay(store.lastServiceDay(row));
+            case 4:
+                return store.intervalDays(row) + " days";
+            case 5:
+                return LocalDate.ofEpochDay(store.nextDueDay(row));
+            case 6:
+                return daysUntil(row) + " days";
+            case 7:
+                return statusText(MaintenanceScheduler.statusOf(daysUntil(row)));
+            default:
+                throw new IndexOutOfBoundsException("Column " + column);
+        }
+    }
+
+    public ColumnarItemStore store() {
+        return store;
+    }
+
+    public int today() {
+        return today;
+    }
+
+    /** Switches to lazy mode: rows come from {@code file} from now on. */
+    public void browse(LazyItemFile file) {
+        lazy = file;
+        filter = "";
+        visible = null;
+        fireTableDataChanged();
+    }
+
+    public boolean isLazy() {
+        return lazy != null;
+    }
+
+    /** Id of the item shown at {@code viewRow}. */
+    public String idAt(int viewRow) {
+        return lazy != null ? lazy.get(viewRow).getId() : store.id(storeRow(viewRow));
+    }
+
+    /** Shows only items whose name matches {@code text}; a blank text shows everything. */
+    public void setFilter(String text) {
+        if (lazy != null) return;
+        filter = text.trim();
+        applyFilter();
+        fireTableDataChanged();
+    }
+
+    public String getFilter() {
+        return filter;
+    }
+
+    /** Store row shown at {@code viewRow}. */
+    public int storeRow(int viewRow) {
+        return visible == null ? viewRow : visible[viewRow];
+    }
+
+    public void addItem(MaintenanceItem item) {
+        if (lazy != null) {
+            int row = lazy.add(item);
+            fireTableRowsInserted(row, row);
+            return;
+        }
+        int row = store.add(item);
+        if (visible == null) {
+            fireTableRowsInserted(row, row);
+        } else {
+            applyFilter();
+            fireTableDataChanged();
+        }
+    }
+
+    /** Appends a batch of items with a single insert event. */
+    public void addItems(List<MaintenanceItem> items) {
+        if (items.isEmpty()) return;
+        int first = store.size();
+        for (MaintenanceItem it : items) store.add(it);
+        if (visible == null) {
+            fireTableRowsInserted(first, store.size() - 1);
+        } else {
+            applyFilter();
+            fireTableDataChanged();
+        }
+    }
+
+    /** Like {@link #addItems}, for items read from storage: they are not marked as changed. */
+    public void addLoadedItems(List<MaintenanceItem> items) {
+        if (items.isEmpty()) return;
+        int first = store.size();
+        addItems(items);
+        store.markClean(first, store.size() - 1);
+    }
+
+    public void updateItem(int viewRow, MaintenanceItem item) {
+        if (lazy != null) lazy.set(viewRow, item);
+        else store.set(storeRow(viewRow), item);
+        if (visible == null) {
+            fireTableRowsUpdated(viewRow, viewRow);
+        } else {
+            applyFilter();
+            fireTableDataChanged();
+        }
+    }
+
+    public void removeRow(int viewRow) {
+        if (lazy != null) {
+            lazy.remove(viewRow);
+            fireTableRowsDeleted(viewRow, viewRow);
+            return;
+        }
+        store.remove(storeRow(viewRow));
+        if (visible != null) applyFilter();
+        fireTableRowsDeleted(viewRow, viewRow);
+    }
+
+    /** Moves "today" forward if the date changed and repaints; nothing is rebuilt. */
+    public void refresh() {
+        today = MaintenanceScheduler.today();
+        if (getRowCount() > 0) fireTableRowsUpdated(0, getRowCount() - 1);
+    }
+
+    private Object lazyValueAt(int row, int column) {
+        MaintenanceItem it = lazy.get(row);
+        long daysUntil = (long) lazy.nextDueDay(row) - today;
+        switch (column) {
+            case 0:
+                return it.getId();
+            case 1:
+                return it.getName();
+            case 2:
+                return it.getVehicle();
+            case 3:
+                return it.getLastServiceDate();
+            case 4:
+                return it.getIntervalDays() + " days";
+            case 5:
+                return LocalDate.ofEpochDay(lazy.nextDueDay(row));
+            case 6:
+                return daysUntil + " days";
+            case 7:
+                return statusText(MaintenanceScheduler.statusOf(daysUntil));
+            default:
+                throw new IndexOutOfBoundsException("Column " + column);
+        }
+    }
+
+    private void applyFilter() {
+        visible = filter.isEmpty() ? null : store.rowsOf(store.nameIndex().query(filter));
+    }
+
+    private long daysUntil(int row) {
+        return (long) store.nextDueDay(row) - today;
+    }
+
+    static String statusText(MaintenanceScheduler.Status status) {
+        return status == MaintenanceScheduler.Status.OVERDUE ? "⚠️ OVERDUE" :
+               status == MaintenanceScheduler.Status.DUE_SOON ? "⏰ DUE SOON" : "✅ OK";
+    }
+}
@@ -1,41 +1,74 @@
 package com.example.maintenance.gui;
 
+import com.example.maintenance.core.AlertEngine;
+import com.example.maintenance.core.ColumnarItemStore;
 import com.example.maintenance.core.MaintenanceScheduler;
+import com.example.maintenance.metrics.LatencyHistogram;
+import com.example.maintenance.metrics.Metrics;
 import com.example.maintenance.model.MaintenanceItem;
+import com.example.maintenance.model.ValuePool;
+import com.example.maintenance.io.ItemStorage;
+import com.example.maintenance.io.LazyItemFile;
 import com.example.maintenance.io.Storage;
 
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 import javax.swing.table.DefaultTableCellRenderer;
 import javax.swing.table.JTableHeader;
 import java.awt.*;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.io.IOException;
 import java.time.LocalDate;
-import java.util.List;
 import java.util.ArrayList;
+import java.util.List;
 
 public class MaintenanceGUI extends JFrame {
+    private ColumnarItemStore store;
     private List<MaintenanceItem> items;
-    private Storage storage;
+    private ItemStorage storage;
     private JTable table;
-    private DefaultTableModel tableModel;
+    private ItemTableModel tableModel;
     private JLabel statusLabel;
+    private JLabel countLabel;
+    private JButton saveButton;
+    // Add and delete stay disabled until the initial load has finished
+    private JButton addButton;
+    private JButton deleteButton;
+    private JTextField filterField;
+    private LazyItemFile lazy; // set in lazy mode, where the store stays empty
+    // Pushes status changes into the status bar as items change and days pass
+    private final AlertEngine alerts = new AlertEngine();
+    // Saving is refused until the initial load has finished, so a partial list is never written.
+    private boolean loading = true;
+
+    // Rows are handed to the table in batches of this size while loading.
+    private static final int LOAD_BATCH = 5000;
+    private static final LatencyHistogram TABLE_UPDATE_TIME = Metrics.histogram("gui.table.update");
 
     public MaintenanceGUI() {
-        // Initialize storage and load items
-        storage = new Storage(Storage.defaultPath());
-        try {
-            items = storage.load();
-        } catch (Exception ex) {
-            items = new ArrayList<>();
-            JOptionPane.showMessageDialog(this, "Error loading data: " + ex.getMessage());
-        }
+        // Items are loaded in the background once the window is built
+        storage = ItemStorage.configured();
+        store = new ColumnarItemStore();
+        items = store.asList();
+        // Created up front so it fills batch by batch during loading, not on the first keystroke
+        store.nameIndex();
+        Metrics.gauge("items", store::size);
 
         // Setup main window
         setTitle("Vehicle Maintenance Tracker");
         setSize(1200, 700);
-        setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        // Closing stops the alert thread and closes the storage before the window goes away
+        setDefaultCloseOperation(JFrame.DO_NOTHING_ON_CLOSE);
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                shutDown();
+            }
+        });
         setLocationRelativeTo(null);
 
         // Create main panel
@@ -59,6 +92,100 @@ public class MaintenanceGUI extends JFrame {
         mainPanel.add(buttonPanel, BorderLayout.SOUTH);
 
         add(mainPanel);
+
+        alerts.addListener(transitions -> SwingUtilities.invokeLater(() -> showTransitions(transitions)));
+        alerts.start();
+        if (Boolean.getBoolean(ItemStorage.LAZY_PROPERTY) && storage instanceof Storage) openLazyInBackground();
+        else loadInBackground();
+    }
+
+    // Lazy mode: only the file index is built; rows are parsed as the table shows them.
+    private void openLazyInBackground() {
+        Storage fileStorage = (Storage) storage;
+        statusLabel.setText("Indexing " + fileStorage.dataFile() + "...");
+        new SwingWorker<LazyItemFile, Void>() {
+            @Override
+            protected LazyItemFile doInBackground() throws Exception {
+                // shares the storage, and so its journal, rather than opening the file a second time
+                return LazyItemFile.open(fileStorage, LazyItemFile.DEFAULT_CACHE_ITEMS);
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    lazy = get();
+                } catch (Exception ex) {
+                    Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+                    statusLabel.setText("Lazy mode unavailable (" + cause.getMessage() + "), loading everything");
+                    loadInBackground();
+                    return;
+                }
+                finishLoading();
+                tableModel.browse(lazy);
+                filterField.setEnabled(false);
+                filterField.setToolTipText("Filtering needs every name loaded; not available in lazy mode");
+                statusLabel.setText("Indexed " + lazy.size() + " items; rows are read on demand");
+                countLabel.setText(lazy.size() + " Vehicles");
+            }
+        }.execute();
+    }
+
+    // Rows are streamed from storage and published every LOAD_BATCH items, so the first rows
+    // show before the file has been read to the end; the alert engine is fed the same batches
+    // from the worker thread, leaving the EDT only the table inserts.
+    private void loadInBackground() {
+        statusLabel.setText("Loading " + storage.location() + "...");
+        SwingWorker<Integer, List<MaintenanceItem>> worker = new SwingWorker<>() {
+            private List<MaintenanceItem> batch = new ArrayList<>(LOAD_BATCH);
+            private int count;
+
+            @Override
+            protected Integer doInBackground() throws Exception {
+                alerts.replaceAll(List.of());
+                storage.loadEach(it -> {
+                    batch.add(it);
+                    if (batch.size() == LOAD_BATCH) flush();
+                });
+                flush();
+                return count;
+            }
+
+            private void flush() {
+                if (batch.isEmpty()) return;
+                alerts.addAll(batch);
+                count += batch.size();
+                publish(batch);
+                batch = new ArrayList<>(LOAD_BATCH);
+            }
+
+            @Override
+            protected void process(List<List<MaintenanceItem>> batches) {
+                for (List<MaintenanceItem> b : batches) tableModel.addLoadedItems(b);
+                statusLabel.setText("Loading... (" + store.size() + " items)");
+                countLabel.setText(store.size() + " Vehicles");
+            }
+
+            @Override
+            protected void done() {
+                finishLoading();
+                try {
+                    get();
+                    statusLabel.setText("Loaded " + store.size() + " items");
+                } catch (Exception ex) {
+                    Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+                    JOptionPane.showMessageDialog(MaintenanceGUI.this, "Error loading data: " + cause.getMessage());
+                    statusLabel.setText("Load failed!");
+                }
+                countLabel.setText(store.size() + " Vehicles");
+            }
+        };
+        worker.execute();
+    }
+
+    private void finishLoading() {
+        loading = false;
+        addButton.setEnabled(true);
+        deleteButton.setEnabled(true);
     }
 
     private JPanel createHeaderPanel() {
@@ -87,7 +214,7 @@ public class MaintenanceGUI extends JFrame {
         JPanel rightPanel = new JPanel(new GridLayout(2, 1));
         rightPanel.setOpaque(false);
         
-        JLabel countLabel = new JLabel(items.size() + " Vehicles", SwingConstants.RIGHT);
+        countLabel = new JLabel(items.size() + " Vehicles", SwingConstants.RIGHT);
         countLabel.setFont(new Font("Segoe UI", Font.BOLD, 18));
         countLabel.setForeground(Color.WHITE);
         
@@ -107,17 +234,9 @@ public class MaintenanceGUI extends JFrame {
         panel.setBackground(Color.WHITE);
         panel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
 
-        // Create table model
-        String[] columns = {"ID", "Vehicle Name", "Last Service", "Interval", "Next Service", "Days Until", "Status"};
-        tableModel = new DefaultTableModel(columns, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
-
-        // Populate table
-        updateTable();
+        // Create table model; cells are read from the store on demand
+        tableModel = new ItemTableModel(store);
+        statusLabel.setText("Table updated - " + store.size() + " items");
 
         table = new JTable(tableModel);
         table.setRowHeight(30);
@@ -137,7 +256,7 @@ public class MaintenanceGUI extends JFrame {
         header.setPreferredSize(new Dimension(header.getWidth(), 35));
 
         // Custom cell renderer for status column with colors
-        table.getColumnModel().getColumn(6).setCellRenderer(new DefaultTableCellRenderer() {
+        table.getColumnModel().getColumn(7).setCellRenderer(new DefaultTableCellRenderer() {
             @Override
             public Component getTableCellRendererComponent(JTable table, Object value,
                     boolean isSelected, boolean hasFocus, int row, int column) {
@@ -164,12 +283,13 @@ public class MaintenanceGUI extends JFrame {
 
         // Set column widths
         table.getColumnModel().getColumn(0).setPreferredWidth(80);
-        table.getColumnModel().getColumn(1).setPreferredWidth(280);
-        table.getColumnModel().getColumn(2).setPreferredWidth(110);
-        table.getColumnModel().getColumn(3).setPreferredWidth(80);
-        table.getColumnModel().getColumn(4).setPreferredWidth(110);
-        table.getColumnModel().getColumn(5).setPreferredWidth(100);
-        table.getColumnModel().getColumn(6).setPreferredWidth(120);
+        table.getColumnModel().getColumn(1).setPreferredWidth(240);
+        table.getColumnModel().getColumn(2).setPreferredWidth(90);
+        table.getColumnModel().getColumn(3).setPreferredWidth(110);
+        table.getColumnModel().getColumn(4).setPreferredWidth(80);
+        table.getColumnModel().getColumn(5).setPreferredWidth(110);
+        table.getColumnModel().getColumn(6).setPreferredWidth(100);
+        table.getColumnModel().getColumn(7).setPreferredWidth(120);
 
         JScrollPane scrollPane = new JScrollPane(table);
         scrollPane.setBorder(BorderFactory.createLineBorder(new Color(189, 195, 199), 1));
@@ -185,8 +305,9 @@ public class MaintenanceGUI extends JFrame {
         panel.setBorder(BorderFactory.createMatteBorder(1, 0, 0, 0, new Color(206, 212, 218)));
 
         // Add Item button
-        JButton addButton = createModernButton("➕ Add Vehicle", new Color(46, 204, 113), new Color(39, 174, 96));
+        addButton = createModernButton("➕ Add Vehicle", new Color(46, 204, 113), new Color(39, 174, 96));
         addButton.addActionListener(e -> showAddItemDialog());
+        addButton.setEnabled(false);
         panel.add(addButton);
 
         // Show Alerts button
@@ -200,15 +321,33 @@ public class MaintenanceGUI extends JFrame {
         panel.add(refreshButton);
 
         // Save button
-        JButton saveButton = createModernButton("💾 Save", new Color(155, 89, 182), new Color(142, 68, 173));
+        saveButton = createModernButton("💾 Save", new Color(155, 89, 182), new Color(142, 68, 173));
         saveButton.addActionListener(e -> saveData());
         panel.add(saveButton);
 
         // Delete button
-        JButton deleteButton = createModernButton("🗑️ Delete", new Color(231, 76, 60), new Color(192, 57, 43));
+        deleteButton = createModernButton("🗑️ Delete", new Color(231, 76, 60), new Color(192, 57, 43));
         deleteButton.addActionListener(e -> deleteItem());
+        deleteButton.setEnabled(false);
         panel.add(deleteButton);
 
+        // Name filter, applied on every keystroke; "quoted" text matches anywhere in the name
+        filterField = new JTextField(16);
+        filterField.setFont(new Font("Segoe UI", Font.PLAIN, 13));
+        filterField.setToolTipText("Filter by name: words match word starts, \"quoted\" text matches anywhere");
+        filterField.getDocument().addDocumentListener(new DocumentListener() {
+            public void insertUpdate(DocumentEvent e) {
+                filterChanged(filterField.getText());
+            }
+            public void removeUpdate(DocumentEvent e) {
+                filterChanged(filterField.getText());
+            }
+            public void changedUpdate(DocumentEvent e) {
+            }
+        });
+        panel.add(new JLabel("🔍"));
+        panel.add(filterField);
+
         // Add spacing
         panel.add(Box.createHorizontalStrut(20));
 
@@ -269,28 +408,20 @@ public class MaintenanceGUI extends JFrame {
         return button;
     }
 
+    private void filterChanged(String text) {
+        tableModel.setFilter(text);
+        statusLabel.setText(tableModel.getFilter().isEmpty() ? store.size() + " items"
+                : tableModel.getRowCount() + " of " + store.size() + " items match");
+    }
+
+    // Firing the model event only queues a repaint; painting the queued regions right away makes
+    // the histogram cover the visible rows being rendered, which is where the time goes.
     private void updateTable() {
-        tableModel.setRowCount(0);
-        for (MaintenanceItem item : items) {
-            LocalDate nextDate = MaintenanceScheduler.nextServiceDate(item);
-            long daysUntil = MaintenanceScheduler.daysUntilNext(item);
-            MaintenanceScheduler.Status status = MaintenanceScheduler.status(item);
-
-            String statusText = status == MaintenanceScheduler.Status.OVERDUE ? "⚠️ OVERDUE" :
-                               status == MaintenanceScheduler.Status.DUE_SOON ? "⏰ DUE SOON" : "✅ OK";
-
-            Object[] row = {
-                item.getId(),
-                item.getName(),
-                item.getLastServiceDate(),
-                item.getIntervalDays() + " days",
-                nextDate,
-                daysUntil + " days",
-                statusText
-            };
-            tableModel.addRow(row);
-        }
-        statusLabel.setText("Table updated - " + items.size() + " items");
+        long started = System.nanoTime();
+        tableModel.refresh();
+        RepaintManager.currentManager(table).paintDirtyRegions();
+        TABLE_UPDATE_TIME.recordSince(started);
+        statusLabel.setText("Table updated - " + (lazy != null ? lazy.size() : store.size()) + " items");
     }
 
     private void showAddItemDialog() {
@@ -372,9 +503,10 @@ public class MaintenanceGUI extends JFrame {
                     return;
                 }
 
-                MaintenanceItem newItem = new MaintenanceItem(name, date, interval);
-                items.add(newItem);
-                updateTable();
+                ValuePool pool = ValuePool.shared();
+                MaintenanceItem newItem = new MaintenanceItem(pool.string(name), pool.date(date), interval);
+                tableModel.addItem(newItem);
+                alerts.itemChanged(newItem);
                 statusLabel.setText("✓ Added: " + name);
                 dialog.dispose();
                 JOptionPane.showMessageDialog(this, "Vehicle added successfully!", 
@@ -418,21 +550,17 @@ public class MaintenanceGUI extends JFrame {
         alertMsg.append("<html><body style='width: 500px'>");
         alertMsg.append("<h2>Maintenance Alerts</h2>");
 
-        int overdueCount = 0;
-        int dueSoonCount = 0;
+        int today = MaintenanceScheduler.today();
+        int[] overdue = lazy != null ? lazy.overdueRows(today) : store.overdueRows(today);
+        int[] dueSoon = lazy != null ? lazy.dueWithinRows(today, MaintenanceScheduler.DUE_SOON_DAYS)
+                : store.dueWithinRows(today, MaintenanceScheduler.DUE_SOON_DAYS);
+        int overdueCount = overdue.length;
+        int dueSoonCount = dueSoon.length;
 
         alertMsg.append("<h3 style='color: red;'>⚠️ OVERDUE:</h3><ul>");
-        for (MaintenanceItem item : items) {
-            MaintenanceScheduler.Status status = MaintenanceScheduler.status(item);
-            long days = MaintenanceScheduler.daysUntilNext(item);
-            
-            if (status == MaintenanceScheduler.Status.OVERDUE) {
-                overdueCount++;
-                if (overdueCount <= 10) { // Show only first 10
-                    alertMsg.append("<li><b>").append(item.getName()).append("</b> - ")
-                           .append(Math.abs(days)).append(" days overdue</li>");
-                }
-            }
+        for (int i = 0; i < overdueCount && i < 10; i++) { // Show only first 10
+            alertMsg.append("<li><b>").append(nameOf(overdue[i])).append("</b> - ")
+                   .append(today - nextDueDayOf(overdue[i])).append(" days overdue</li>");
         }
         if (overdueCount > 10) {
             alertMsg.append("<li><i>...and ").append(overdueCount - 10).append(" more</i></li>");
@@ -443,15 +571,9 @@ public class MaintenanceGUI extends JFrame {
         alertMsg.append("</ul>");
 
         alertMsg.append("<h3 style='color: orange;'>⏰ DUE SOON (within 7 days):</h3><ul>");
-        for (MaintenanceItem item : items) {
-            MaintenanceScheduler.Status status = MaintenanceScheduler.status(item);
-            long days = MaintenanceScheduler.daysUntilNext(item);
-            
-            if (status == MaintenanceScheduler.Status.DUE_SOON) {
-                dueSoonCount++;
-                alertMsg.append("<li><b>").append(item.getName()).append("</b> - ")
-                       .append(days).append(" days</li>");
-            }
+        for (int row : dueSoon) {
+            alertMsg.append("<li><b>").append(nameOf(row)).append("</b> - ")
+                   .append(nextDueDayOf(row) - today).append(" days</li>");
         }
         if (dueSoonCount == 0) {
             alertMsg.append("<li>None</li>");
@@ -461,7 +583,7 @@ public class MaintenanceGUI extends JFrame {
         alertMsg.append("<p><b>Summary:</b><br>");
         alertMsg.append("Overdue: ").append(overdueCount).append("<br>");
         alertMsg.append("Due Soon: ").append(dueSoonCount).append("<br>");
-        alertMsg.append("Total: ").append(items.size()).append("</p>");
+        alertMsg.append("Total: ").append(tableModel.getRowCount()).append("</p>");
         alertMsg.append("</body></html>");
 
         JOptionPane.showMessageDialog(this, alertMsg.toString(), "Maintenance Alerts", 
@@ -469,16 +591,116 @@ public class MaintenanceGUI extends JFrame {
         statusLabel.setText("Alerts: " + overdueCount + " overdue, " + dueSoonCount + " due soon");
     }
 
+    private String nameOf(int row) {
+        return lazy != null ? lazy.get(row).getName() : store.name(row);
+    }
+
+    private int nextDueDayOf(int row) {
+        return lazy != null ? lazy.nextDueDay(row) : store.nextDueDay(row);
+    }
+
     private void saveData() {
+        if (loading) {
+            JOptionPane.showMessageDialog(this, "Still loading data, please try again in a moment.");
+            return;
+        }
+        if (lazy != null) {
+            saveLazy();
+            return;
+        }
+        if (!store.hasChanges()) {
+            statusLabel.setText("No changes to save");
+            return;
+        }
+        // Save a copy taken now; edits made while the save runs stay pending for the next save.
+        ColumnarItemStore snapshot = store.snapshot();
+        List<MaintenanceItem> changed = snapshot.changedItems();
+        List<String> deleted = snapshot.deletedIds();
+        saveButton.setEnabled(false);
+        statusLabel.setText("Saving " + changed.size() + " changed and " + deleted.size() + " deleted items...");
+        new SwingWorker<Void, Void>() {
+            @Override
+            protected Void doInBackground() throws Exception {
+                storage.saveChanges(snapshot.asList(), changed, deleted);
+                return null;
+            }
+
+            @Override
+            protected void done() {
+                saveButton.setEnabled(true);
+                try {
+                    get();
+                    store.markClean(snapshot.changeCount());
+                    JOptionPane.showMessageDialog(MaintenanceGUI.this, "Data saved successfully!\n"
+                            + changed.size() + " changed, " + deleted.size() + " deleted.");
+                    statusLabel.setText("Saved " + snapshot.size() + " items");
+                } catch (Exception ex) {
+                    Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+                    JOptionPane.showMessageDialog(MaintenanceGUI.this, "Error saving data: " + cause.getMessage(),
+                                                 "Error", JOptionPane.ERROR_MESSAGE);
+                    statusLabel.setText("Save failed!");
+                }
+            }
+        }.execute();
+    }
+
+    // Lazy mode keeps edits in the LazyItemFile and appends them to the storage journal.
+    private void saveLazy() {
+        if (!lazy.hasChanges()) {
+            statusLabel.setText("No changes to save");
+            return;
+        }
+        saveButton.setEnabled(false);
+        new SwingWorker<Integer, Void>() {
+            @Override
+            protected Integer doInBackground() throws Exception {
+                return lazy.save();
+            }
+
+            @Override
+            protected void done() {
+                saveButton.setEnabled(true);
+                try {
+                    int records = get();
+                    JOptionPane.showMessageDialog(MaintenanceGUI.this, "Data saved successfully!\n"
+                            + records + " changes journaled.");
+                    statusLabel.setText("Saved " + records + " changes");
+                } catch (Exception ex) {
+                    Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+                    JOptionPane.showMessageDialog(MaintenanceGUI.this, "Error saving data: " + cause.getMessage(),
+                                                 "Error", JOptionPane.ERROR_MESSAGE);
+                    statusLabel.setText("Save failed!");
+                }
+            }
+        }.execute();
+    }
+
+    // Closes what the window opened, then exits as EXIT_ON_CLOSE did.
+    private void shutDown() {
+        alerts.close();
+        try {
+            if (lazy != null) lazy.close();
+        } catch (IOException ex) {
+            System.err.println("Failed to close lazy file: " + ex.getMessage());
+        }
         try {
-            storage.save(items);
-            JOptionPane.showMessageDialog(this, "Data saved successfully!\n" + items.size() + " items saved.");
-            statusLabel.setText("Saved " + items.size() + " items");
-        } catch (Exception ex) {
-            JOptionPane.showMessageDialog(this, "Error saving data: " + ex.getMessage(), 
-                                         "Error", JOptionPane.ERROR_MESSAGE);
-            statusLabel.setText("Save failed!");
+            storage.close();
+        } catch (IOException ex) {
+            System.err.println("Failed to close storage: " + ex.getMessage());
         }
+        dispose();
+        System.exit(0);
+    }
+
+    private void showTransitions(List<AlertEngine.Transition> transitions) {
+        AlertEngine.Transition first = transitions.get(0);
+        String more = transitions.size() > 1 ? " (+" + (transitions.size() - 1) + " more)" : "";
+        statusLabel.setText("🔔 " + first.getName() + " is now " + ItemTableModel.statusText(first.getTo()) + more);
+        StringBuilder tip = new StringBuilder("<html>");
+        for (int i = 0; i < Math.min(transitions.size(), 20); i++) tip.append(transitions.get(i)).append("<br>");
+        statusLabel.setToolTipText(tip.append("</html>").toString());
+        // the day may have changed as well, so let the table recompute its status column
+        tableModel.refresh();
     }
 
     private void deleteItem() {
@@ -494,13 +716,14 @@ public class MaintenanceGUI extends JFrame {
             "Confirm Delete", JOptionPane.YES_NO_OPTION);
 
         if (confirm == JOptionPane.YES_OPTION) {
-            items.remove(selectedRow);
-            updateTable();
+            alerts.itemRemoved(tableModel.idAt(selectedRow));
+            tableModel.removeRow(selectedRow);
             statusLabel.setText("Deleted: " + itemName);
         }
     }
 
     public static void main(String[] args) {
+        Metrics.registerJmx();
         try {
             // Set system look and feel
             UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
@@ -0,0 +1,417 @@
+package com.example.maintenance.http;
+
+import com.example.maintenance.core.FleetRollups;
+import com.example.maintenance.core.ItemRepository;
+import com.example.maintenance.core.MaintenanceScheduler;
+import com.example.maintenance.core.WorkloadForecast;
+import com.example.maintenance.io.ItemStorage;
+import com.example.maintenance.io.JsonFormat;
+import com.example.maintenance.io.ServiceHistory;
+import com.example.maintenance.metrics.LatencyHistogram;
+import com.example.maintenance.metrics.Metrics;
+import com.example.maintenance.model.MaintenanceItem;
+import com.example.maintenance.model.ServiceEvent;
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Embedded JSON API over an {@link ItemRepository}, on the JDK's built-in HTTP server:
+ * <pre>
+ *   GET  /items?offset=0&amp;limit=100       page of items in store order
+ *   GET  /items/{id}                        one item, 404 if unknown
+ *   GET  /items/due?within=7                overdue items and items due within N days, soonest first
+ *   POST /items/{id}/serviced?date=ISO-DATE marks the item serviced (today if no date)
+ *   GET  /items/{id}/history?from=&amp;to=  the item's recorded services, optionally between dates
+ *   GET  /fleet?by=vehicle                  per-vehicle (or by=task, per-task-type) rollups
+ *   GET  /forecast?days=365&amp;by=task          services due per day (and per task type) from today
+ *   GET  /metrics                           text dump of {@link Metrics}
+ * </pre>
+ * Lookups read the item's current entry without locking. Listings, due queries, fleet rollups
+ * and forecasts read the repository's {@link ItemRepository.View}, so they never wait for a
+ * writer and a writer never waits for them. Mark-serviced holds only that item's write lock:
+ * when a storage is given it journals just that item, then makes the new date visible and
+ * appends the event to the {@link ServiceHistory}; a failed save leaves the item as it was.
+ * Responses have a fixed length so connections stay alive, and bodies above
+ * {@link #GZIP_MIN_BYTES} are gzipped for clients that accept it. Handlers run on virtual
+ * threads when the JDK has them (21+), otherwise on a fixed pool.
+ */
+public class ApiServer implements AutoCloseable {
+    static final int GZIP_MIN_BYTES = 1024;
+    private static final int DEFAULT_LIMIT = 100;
+    private static final int MAX_LIMIT = 10_000;
+    private static final int MAX_FORECAST_DAYS = 3660;
+    private static final LatencyHistogram REQUEST_TIME = Metrics.histogram("http.request");
+
+    private final ItemRepository items;
+    private final ItemStorage storage;
+    private final ServiceHistory history;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    /**
+     * {@code storage} may be null for a server that does not persist; otherwise it must be the
+     * storage {@code items} was loaded from, so that saves only have to journal the changed item.
+     */
+    public ApiServer(ItemRepository items, ItemStorage storage, InetSocketAddress address) throws IOException {
+        this.items = items;
+        this.storage = storage;
+        this.history = storage == null ? null : new ServiceHistory(storage.historyDirectory());
+        this.server = HttpServer.create(address, 0);
+        this.executor = newExecutor();
+        server.setExecutor(executor);
+        server.createContext("/items", this::handle);
+        server.createContext("/fleet", this::handle);
+        server.createContext("/forecast", this::handle);
+        server.createContext("/metrics", ApiServer::metrics);
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public InetSocketAddress address() {
+        return server.getAddress();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+        if (history != null) {
+            try {
+                history.close();
+            } catch (IOException ex) {
+                System.err.println("Failed to close service history: " + ex.getMessage());
+            }
+        }
+    }
+
+    // Executors.newVirtualThreadPerTaskExecutor() exists from JDK 21; this code targets 11.
+    private static ExecutorService newExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException ex) {
+            int threads = Math.max(8, Runtime.getRuntime().availableProcessors() * 4);
+            return Executors.newFixedThreadPool(threads, r -> {
+                Thread t = new Thread(r, "http-api");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+    }
+
+    private void handle(HttpExchange ex) throws IOException {
+        long started = System.nanoTime();
+        try {
+            drain(ex.getRequestBody());
+            String path = ex.getRequestURI().getRawPath();
+            String[] parts = path.substring(1).split("/", -1);
+            String method = ex.getRequestMethod();
+            Map<String, String> query = query(ex.getRequestURI().getRawQuery());
+            try {
+                // contexts match by prefix, so /itemsfoo also lands here
+                if (!parts[0].equals("items") && !parts[0].equals("fleet") && !parts[0].equals("forecast")) {
+                    throw new ApiError(404, "No such resource: " + path);
+                }
+                if (parts[0].equals("fleet") || parts[0].equals("forecast")) {
+                    if (parts.length > 2 || (parts.length == 2 && !parts[1].isEmpty())) {
+                        throw new ApiError(404, "No such resource: " + path);
+                    }
+                    if (!method.equals("GET")) throw new ApiError(405, "Use GET");
+                    if (parts[0].equals("fleet")) fleet(ex, query);
+                    else forecast(ex, query);
+                } else if (parts.length == 1 || (parts.length == 2 && parts[1].isEmpty())) {
+                    if (!method.equals("GET")) throw new ApiError(405, "Use GET");
+                    list(ex, query);
+                } else if (parts.length == 2 && parts[1].equals("due")) {
+                    if (!method.equals("GET")) throw new ApiError(405, "Use GET");
+                    due(ex, query);
+                } else if (parts.length == 2) {
+                    if (!method.equals("GET")) throw new ApiError(405, "Use GET");
+                    lookup(ex, decode(parts[1]));
+                } else if (parts.length == 3 && parts[2].equals("history")) {
+                    if (!method.equals("GET")) throw new ApiError(405, "Use GET");
+                    history(ex, decode(parts[1]), query);
+                } else if (parts.length == 3 && parts[2].equals("serviced")) {
+                    if (!method.equals("POST")) throw new ApiError(405, "Use POST");
+                    markServiced(ex, decode(parts[1]), query);
+                } else {
+                    throw new ApiError(404, "No such resource: " + path);
+                }
+            } catch (ApiError err) {
+                StringBuilder sb = new StringBuilder("{\"error\":");
+                JsonFormat.appendString(sb, err.getMessage());
+                send(ex, err.status, sb.append("}\n"));
+            } catch (RuntimeException | IOException err) {
+                StringBuilder sb = new StringBuilder("{\"error\":");
+                JsonFormat.appendString(sb, String.valueOf(err.getMessage()));
+                send(ex, 500, sb.append("}\n"));
+            }
+        } finally {
+            ex.close();
+            REQUEST_TIME.recordSince(started);
+        }
+    }
+
+    private static void metrics(HttpExchange ex) throws IOException {
+        try {
+            drain(ex.getRequestBody());
+            send(ex, 200, "text/plain; charset=utf-8", Metrics.dump());
+        } finally {
+            ex.close();
+        }
+    }
+
+    private void list(HttpExchange ex, Map<String, String> query) throws IOException {
+        int offset = intParam(query, "offset", 0);
+        int limit = Math.min(intParam(query, "limit", DEFAULT_LIMIT), MAX_LIMIT);
+        if (offset < 0 || limit < 0) throw new ApiError(400, "offset and limit must be >= 0");
+        int today = MaintenanceScheduler.today();
+        StringBuilder sb = new StringBuilder(64 + limit * 200);
+        ItemRepository.View view = items.view();
+        int end = (int) Math.min(view.size(), (long) offset + limit);
+        sb.append("{\"total\":").append(view.size()).append(",\"offset\":").append(offset).append(",\"items\":[");
+        for (int row = offset; row < end; row++) {
+            if (row > offset) sb.append(',');
+            appendRow(sb, view, row, today);
+        }
+        send(ex, 200, sb.append("]}\n"));
+    }
+
+    private void lookup(HttpExchange ex, String id) throws IOException {
+        ItemRepository.Entry e = items.get(id);
+        if (e == null) throw new ApiError(404, "No item with id " + id);
+        StringBuilder sb = new StringBuilder(256);
+        appendEntry(sb, e, MaintenanceScheduler.today());
+        send(ex, 200, sb.append('\n'));
+    }
+
+    private void due(HttpExchange ex, Map<String, String> query) throws IOException {
+        int within = intParam(query, "within", MaintenanceScheduler.DUE_SOON_DAYS);
+        if (within < 0) throw new ApiError(400, "within must be >= 0");
+        int today = MaintenanceScheduler.today();
+        StringBuilder sb = new StringBuilder(1024);
+        ItemRepository.View view = items.view();
+        int[] rows = view.rowsDueBetween(Integer.MIN_VALUE, (int) Math.min(Integer.MAX_VALUE, (long) today + within));
+        sb.append("{\"count\":").append(rows.length).append(",\"items\":[");
+        for (int i = 0; i < rows.length; i++) {
+            if (i > 0) sb.append(',');
+            appendRow(sb, view, rows[i], today);
+        }
+        send(ex, 200, sb.append("]}\n"));
+    }
+
+    private void fleet(HttpExchange ex, Map<String, String> query) throws IOException {
+        String by = query.getOrDefault("by", "vehicle");
+        if (!by.equals("vehicle") && !by.equals("task")) throw new ApiError(400, "by must be vehicle or task");
+        int today = MaintenanceScheduler.today();
+        YearMonth month = YearMonth.from(LocalDate.ofEpochDay(today));
+        StringBuilder sb = new StringBuilder(1024);
+        items.view().rollups(today, rollups -> {
+            List<FleetRollups.Rollup> groups = by.equals("vehicle") ? rollups.vehicles() : rollups.tasks();
+            try {
+                sb.append("{\"total\":");
+                JsonFormat.appendRollup(sb, rollups.total(), month);
+                sb.append(",\"groups\":[");
+                for (int i = 0; i < groups.size(); i++) {
+                    if (i > 0) sb.append(',');
+                    JsonFormat.appendRollup(sb, groups.get(i), month);
+                }
+            } catch (IOException err) {
+                throw new UncheckedIOException(err); // a StringBuilder never throws
+            }
+            return sb;
+        });
+        send(ex, 200, sb.append("]}\n"));
+    }
+
+    private void forecast(HttpExchange ex, Map<String, String> query) throws IOException {
+        int days = intParam(query, "days", 365);
+        if (days < 0 || days > MAX_FORECAST_DAYS) throw new ApiError(400, "days must be 0-" + MAX_FORECAST_DAYS);
+        String by = query.get("by");
+        if (by != null && !by.equals("task")) throw new ApiError(400, "by must be task");
+        int today = MaintenanceScheduler.today();
+        WorkloadForecast f = items.view().forecast(today, days);
+        StringBuilder sb = new StringBuilder(256 + days * 8);
+        sb.append("{\"from\":\"").append(f.getStartDate()).append("\",\"days\":").append(days);
+        sb.append(",\"total\":").append(f.getTotal()).append(",\"overdue\":").append(f.getOverdue());
+        sb.append(",\"daily\":");
+        appendCounts(sb, f.daily());
+        if (by != null) {
+            sb.append(",\"tasks\":{");
+            List<String> tasks = f.getTaskTypes();
+            for (int t = 0; t < tasks.size(); t++) {
+                if (t > 0) sb.append(',');
+                JsonFormat.appendString(sb, String.valueOf(tasks.get(t)));
+                sb.append(':');
+                appendCounts(sb, f.daily(tasks.get(t)));
+            }
+            sb.append('}');
+        }
+        send(ex, 200, sb.append("}\n"));
+    }
+
+    private static void appendCounts(StringBuilder sb, int[] counts) {
+        sb.append('[');
+        for (int i = 0; i < counts.length; i++) {
+            if (i > 0) sb.append(',');
+            sb.append(counts[i]);
+        }
+        sb.append(']');
+    }
+
+    private void markServiced(HttpExchange ex, String id, Map<String, String> query) throws IOException {
+        LocalDate date = dateParam(query, "date");
+        LocalDate day = date != null ? date : LocalDate.ofEpochDay(MaintenanceScheduler.today());
+        ItemRepository.Entry saved;
+        try {
+            // Under the item's write lock requests for it are saved one at a time, so the journal
+            // keeps their order; other items only share the fsync.
+            saved = items.withLock(id, () -> {
+                ItemRepository.Entry current = items.get(id);
+                if (current == null) throw new ApiError(404, "No item with id " + id);
+                MaintenanceItem changed = current.toItem();
+                changed.setLastServiceDate(day);
+                // the full list is only read by a storage with nothing loaded, which the constructor rules out
+                if (storage != null) storage.saveChanges(items.asList(), List.of(changed), List.of());
+                ItemRepository.Entry e = items.put(changed);
+                if (history != null) history.record(new ServiceEvent(id, day, changed.getIntervalDays()));
+                return e;
+            });
+        } catch (IOException | RuntimeException err) {
+            throw err;
+        } catch (Exception err) {
+            throw new IOException("Failed to save: " + err.getMessage(), err);
+        }
+        StringBuilder sb = new StringBuilder(256);
+        appendEntry(sb, saved, MaintenanceScheduler.today());
+        send(ex, 200, sb.append('\n'));
+    }
+
+    private void history(HttpExchange ex, String id, Map<String, String> query) throws IOException {
+        if (history == null) throw new ApiError(404, "No service history without a storage");
+        LocalDate from = dateParam(query, "from");
+        LocalDate to = dateParam(query, "to");
+        List<ServiceEvent> events = history.query(id, from, to);
+        StringBuilder sb = new StringBuilder(64 + events.size() * 64);
+        sb.append("{\"count\":").append(events.size()).append(",\"events\":[");
+        for (int i = 0; i < events.size(); i++) {
+            if (i > 0) sb.append(',');
+            JsonFormat.appendEvent(sb, events.get(i));
+        }
+        send(ex, 200, sb.append("]}\n"));
+    }
+
+    private static void appendRow(StringBuilder sb, ItemRepository.View view, int row, int today) throws IOException {
+        JsonFormat.appendItem(sb, view.id(row), view.name(row), view.vehicle(row), view.lastServiceDay(row), view.intervalDays(row), today);
+    }
+
+    private static void appendEntry(StringBuilder sb, ItemRepository.Entry e, int today) throws IOException {
+        JsonFormat.appendItem(sb, e.getId(), e.getName(), e.getVehicle(), e.getLastServiceDay(), e.getIntervalDays(), today);
+    }
+
+    private static void send(HttpExchange ex, int status, CharSequence body) throws IOException {
+        send(ex, status, "application/json; charset=utf-8", body);
+    }
+
+    private static void send(HttpExchange ex, int status, String contentType, CharSequence body) throws IOException {
+        byte[] bytes = body.toString().getBytes(StandardCharsets.UTF_8);
+        Headers h = ex.getResponseHeaders();
+        h.set("Content-Type", contentType);
+        if (bytes.length >= GZIP_MIN_BYTES && acceptsGzip(ex)) {
+            ByteArrayOutputStream buf = new ByteArrayOutputStream(bytes.length / 4);
+            try (GZIPOutputStream gz = new GZIPOutputStream(buf)) {
+                gz.write(bytes);
+            }
+            bytes = buf.toByteArray();
+            h.set("Content-Encoding", "gzip");
+            h.set("Vary", "Accept-Encoding");
+        }
+        ex.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = ex.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static boolean acceptsGzip(HttpExchange ex) {
+        String accept = ex.getRequestHeaders().getFirst("Accept-Encoding");
+        return accept != null && accept.contains("gzip");
+    }
+
+    // The request body has to be consumed for the connection to be reused.
+    private static void drain(InputStream in) throws IOException {
+        byte[] buf = new byte[512];
+        while (in.read(buf) >= 0) {
+            // discard
+        }
+    }
+
+    private static Map<String, String> query(String raw) {
+        Map<String, String> out = new HashMap<>();
+        if (raw == null || raw.isEmpty()) return out;
+        for (String pair : raw.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq < 0) out.put(decode(pair), "");
+            else out.put(decode(pair.substring(0, eq)), decode(pair.substring(eq + 1)));
+        }
+        return out;
+    }
+
+    private static String decode(String s) {
+        try {
+            return URLDecoder.decode(s, StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException ex) {
+            throw new ApiError(400, "Bad escape in " + s);
+        }
+    }
+
+    private static int intParam(Map<String, String> query, String name, int fallback) {
+        String v = query.get(name);
+        if (v == null) return fallback;
+        try {
+            return Integer.parseInt(v);
+        } catch (NumberFormatException ex) {
+            throw new ApiError(400, name + " must be a number");
+        }
+    }
+
+    private static LocalDate dateParam(Map<String, String> query, String name) {
+        String v = query.get(name);
+        if (v == null) return null;
+        try {
+            return LocalDate.parse(v);
+        } catch (DateTimeParseException ex) {
+            throw new ApiError(400, name + " must be YYYY-MM-DD");
+        }
+    }
+
+    private static final class ApiError extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        final int status;
+
+        ApiError(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.maintenance.io;
+
+import com.example.maintenance.core.AlertEngine;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+/** Alert listener that appends one timestamped line per status change to a text file. */
+public class AlertFileSink implements AlertEngine.Listener {
+    private final Path file;
+    private final Clock clock;
+
+    public AlertFileSink(Path file) {
+        this(file, Clock.systemDefaultZone());
+    }
+
+    public AlertFileSink(Path file, Clock clock) {
+        this.file = file;
+        this.clock = clock;
+    }
+
+    @Override
+    public void statusChanged(List<AlertEngine.Transition> transitions) {
+        String stamp = LocalDateTime.now(clock).truncatedTo(ChronoUnit.SECONDS).toString();
+        try {
+            Path parent = file.toAbsolutePath().getParent();
+            if (parent != null) Files.createDirectories(parent);
+            try (BufferedWriter w = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                for (AlertEngine.Transition t : transitions) {
+                    w.write(stamp + " " + t);
+                    w.newLine();
+                }
+            }
+        } catch (IOException ex) {
+            System.err.println("Failed to write alerts to " + file + ": " + ex.getMessage());
+        }
+    }
+}
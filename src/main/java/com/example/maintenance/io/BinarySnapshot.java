@@ -0,0 +1,165 @@
+package com.example.maintenance.io;
+
+import com.example.maintenance.model.MaintenanceItem;
+import com.example.maintenance.model.ValuePool;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Versioned binary snapshot of the item list, an alternative to the CSV file for fast cold starts.
+ *
+ * <pre>
+ * header   magic "VMTB" | int version | int recordCount | int stringCount
+ * strings  stringCount x (int byteLength, UTF-8 bytes)      ids and de-duplicated names and vehicles
+ * records  recordCount x (int idRef, int nameRef, int lastServiceEpochDay, int intervalDays, int vehicleRef)
+ * </pre>
+ * All ints are little-endian; a vehicleRef of -1 is a null vehicle. Version 1 records have no
+ * vehicleRef and are read with the vehicle derived from the name. The CSV format stays the
+ * interchange format.
+ */
+public class BinarySnapshot {
+    public static final int MAGIC = 0x42544D56; // "VMTB" read little-endian
+    public static final int VERSION = 2;
+    static final int HEADER_BYTES = 16;
+    static final int RECORD_BYTES = 20;
+    static final int V1_RECORD_BYTES = 16;
+
+    private BinarySnapshot() {
+    }
+
+    public static boolean isSnapshot(Path file) throws IOException {
+        if (!Files.exists(file) || Files.size(file) < HEADER_BYTES) return false;
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer b = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+            ch.read(b, 0);
+            return b.getInt(0) == MAGIC;
+        }
+    }
+
+    public static List<MaintenanceItem> read(Path file) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (ch.size() > Integer.MAX_VALUE) throw new IOException("Snapshot too large to map: " + file);
+            MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+            buf.order(ByteOrder.LITTLE_ENDIAN);
+            if (buf.getInt(0) != MAGIC) throw new IOException("Not a binary snapshot: " + file);
+            int version = buf.getInt(4);
+            if (version != VERSION && version != 1) throw new IOException("Unsupported snapshot version " + version + ": " + file);
+            int recordBytes = version == 1 ? V1_RECORD_BYTES : RECORD_BYTES;
+            int count = buf.getInt(8);
+            int stringCount = buf.getInt(12);
+
+            String[] strings = new String[stringCount];
+            int pos = HEADER_BYTES;
+            byte[] scratch = new byte[256];
+            for (int i = 0; i < stringCount; i++) {
+                int len = buf.getInt(pos);
+                pos += 4;
+                if (len > scratch.length) scratch = new byte[len];
+                buf.position(pos);
+                buf.get(scratch, 0, len);
+                strings[i] = new String(scratch, 0, len, StandardCharsets.UTF_8);
+                pos += len;
+            }
+
+            // names and vehicles are already shared through the string table
+            ValuePool pool = ValuePool.shared();
+            List<MaintenanceItem> out = new ArrayList<>(count);
+            for (int i = 0; i < count; i++, pos += recordBytes) {
+                String id = strings[buf.getInt(pos)];
+                String name = strings[buf.getInt(pos + 4)];
+                LocalDate date = pool.date(LocalDate.ofEpochDay(buf.getInt(pos + 8)));
+                int interval = buf.getInt(pos + 12);
+                if (version == 1) {
+                    out.add(new MaintenanceItem(id, name, date, interval));
+                } else {
+                    int vehicle = buf.getInt(pos + 16);
+                    out.add(new MaintenanceItem(id, name, date, interval, vehicle < 0 ? null : strings[vehicle]));
+                }
+            }
+            return out;
+        }
+    }
+
+    /** Writes the snapshot to a temporary file and atomically renames it over {@code file}. */
+    public static void write(Path file, Collection<MaintenanceItem> items) throws IOException {
+        StringTable table = new StringTable();
+        int[] records = new int[items.size() * (RECORD_BYTES / 4)];
+        int r = 0;
+        for (MaintenanceItem it : items) {
+            records[r++] = table.ref(it.getId());
+            records[r++] = table.ref(it.getName());
+            records[r++] = (int) it.getLastServiceDate().toEpochDay();
+            records[r++] = it.getIntervalDays();
+            records[r++] = it.getVehicle() == null ? -1 : table.ref(it.getVehicle());
+        }
+        List<byte[]> strings = table.strings;
+        long stringBytes = table.bytes;
+
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buf = ByteBuffer.allocateDirect(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+            buf.putInt(MAGIC).putInt(VERSION).putInt(items.size()).putInt(strings.size());
+            for (byte[] s : strings) {
+                if (buf.remaining() < 4 + s.length) drain(ch, buf);
+                if (buf.remaining() < 4 + s.length) {
+                    buf.putInt(s.length);
+                    drain(ch, buf);
+                    ch.write(ByteBuffer.wrap(s));
+                } else {
+                    buf.putInt(s.length).put(s);
+                }
+            }
+            for (int v : records) {
+                if (buf.remaining() < 4) drain(ch, buf);
+                buf.putInt(v);
+            }
+            drain(ch, buf);
+            if (ch.size() != HEADER_BYTES + stringBytes + (long) records.length * 4) {
+                throw new IOException("Short write to " + tmp);
+            }
+            ch.force(true);
+        }
+        Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static final class StringTable {
+        final Map<String, Integer> refs = new HashMap<>();
+        final List<byte[]> strings = new ArrayList<>();
+        long bytes;
+
+        int ref(String s) {
+            Integer ref = refs.get(s);
+            if (ref == null) {
+                ref = strings.size();
+                refs.put(s, ref);
+                byte[] b = s.getBytes(StandardCharsets.UTF_8);
+                strings.add(b);
+                bytes += 4 + b.length;
+            }
+            return ref;
+        }
+    }
+
+    private static void drain(FileChannel ch, ByteBuffer buf) throws IOException {
+        buf.flip();
+        while (buf.hasRemaining()) ch.write(buf);
+        buf.clear();
+    }
+}
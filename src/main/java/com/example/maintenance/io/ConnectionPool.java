@@ -0,0 +1,112 @@
+package com.example.maintenance.io;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Small fixed-size JDBC connection pool. Connections are opened lazily through
+ * {@link DriverManager}, checked with {@link Connection#isValid} when they are borrowed again,
+ * and handed out through {@link #withConnection} so they always come back.
+ */
+public class ConnectionPool implements AutoCloseable {
+    /** Work done with a borrowed connection. */
+    public interface Work<T> {
+        T apply(Connection c) throws SQLException;
+    }
+
+    private static final int VALIDATE_TIMEOUT_SECONDS = 2;
+
+    private final String url;
+    private final String user;
+    private final String password;
+    private final Semaphore permits;
+    private final long borrowTimeoutMillis;
+    private final Deque<Connection> idle = new ArrayDeque<>();
+    private boolean closed;
+
+    public ConnectionPool(String url, String user, String password, int size, long borrowTimeoutMillis) {
+        if (size < 1) throw new IllegalArgumentException("Pool size must be >= 1: " + size);
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.permits = new Semaphore(size, true);
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+    }
+
+    public <T> T withConnection(Work<T> work) throws SQLException {
+        Connection c = borrow();
+        boolean broken = true;
+        try {
+            T result = work.apply(c);
+            broken = false;
+            return result;
+        } finally {
+            release(c, broken);
+        }
+    }
+
+    private Connection borrow() throws SQLException {
+        try {
+            if (!permits.tryAcquire(borrowTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new SQLException("Timed out waiting for a connection to " + url);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted waiting for a connection", ex);
+        }
+        try {
+            while (true) {
+                Connection c;
+                synchronized (this) {
+                    if (closed) throw new SQLException("Connection pool is closed");
+                    c = idle.pollFirst();
+                }
+                if (c == null) return open();
+                if (c.isValid(VALIDATE_TIMEOUT_SECONDS)) return c;
+                closeQuietly(c);
+            }
+        } catch (SQLException | RuntimeException ex) {
+            permits.release();
+            throw ex;
+        }
+    }
+
+    // A connection whose work failed may be mid-transaction or dead, so it is not reused.
+    private void release(Connection c, boolean broken) {
+        boolean keep = !broken;
+        synchronized (this) {
+            if (closed) keep = false;
+            if (keep) idle.addFirst(c);
+        }
+        if (!keep) closeQuietly(c);
+        permits.release();
+    }
+
+    private Connection open() throws SQLException {
+        return user == null ? DriverManager.getConnection(url) : DriverManager.getConnection(url, user, password);
+    }
+
+    @Override
+    public void close() {
+        Deque<Connection> toClose;
+        synchronized (this) {
+            closed = true;
+            toClose = new ArrayDeque<>(idle);
+            idle.clear();
+        }
+        for (Connection c : toClose) closeQuietly(c);
+    }
+
+    private static void closeQuietly(Connection c) {
+        try {
+            c.close();
+        } catch (SQLException ignored) {
+            // nothing left to do with a connection we are discarding
+        }
+    }
+}
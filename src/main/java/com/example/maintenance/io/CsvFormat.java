@@ -0,0 +1,20 @@
+package com.example.maintenance.io;
+
+/**
+ * RFC 4180 quoting for the plain CSV the batch reports and the import rejects file write, as
+ * opposed to the backslash-escaped item data format of {@link com.example.maintenance.model.MaintenanceItem}.
+ */
+public final class CsvFormat {
+    private CsvFormat() {
+    }
+
+    /** The field as is, or in double quotes with inner quotes doubled if it holds a comma, quote or line break. */
+    public static String field(String s) {
+        if (s == null) return "";
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') return '"' + s.replace("\"", "\"\"") + '"';
+        }
+        return s;
+    }
+}
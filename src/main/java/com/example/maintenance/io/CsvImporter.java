@@ -0,0 +1,372 @@
+package com.example.maintenance.io;
+
+import com.example.maintenance.core.ColumnarItemStore;
+import com.example.maintenance.core.ItemRepository;
+import com.example.maintenance.model.MaintenanceItem;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Bulk import of large CSV dumps into a {@link ColumnarItemStore}, as a three-stage pipeline
+ * joined by bounded queues: one reader thread cuts the file into batches of whole lines, worker
+ * threads parse and validate batches in parallel, and the calling thread merges the results into
+ * the store in file order, upserting by id (a later line for the same id wins).
+ *
+ * <p>Batches always end at a line break and escaped names never contain one, so an escaped
+ * {@code \,} can never be split across batches. Lines that fail validation are written to a
+ * rejects file as {@code line,reason,text}, quoted per RFC 4180 (see {@link CsvFormat}); blank
+ * lines are ignored, as in {@link Storage#load()}.
+ *
+ * <p>Merging stops at the first read or parse failure, and {@link ImportFailedException} reports
+ * how far it got: lines up to {@link Result#mergedThroughLine()} are in the store, none after.
+ *
+ * <p>An import can also merge into an {@link ItemRepository} that other threads are reading and
+ * writing, such as the one behind a running {@code ApiServer}; see
+ * {@link #importInto(ItemRepository, ItemStorage)}.
+ */
+public class CsvImporter {
+    private static final int BATCH_LINES = 4096;
+    private static final DateTimeFormatter F = DateTimeFormatter.ISO_LOCAL_DATE;
+    private static final Batch END = new Batch(-1, 0, null, false);
+
+    private final Path source;
+    private final Path rejectsFile;
+    private final int workers;
+
+    public CsvImporter(Path source) {
+        this(source, defaultRejectsFile(source), Runtime.getRuntime().availableProcessors());
+    }
+
+    public CsvImporter(Path source, Path rejectsFile, int workers) {
+        if (workers < 1) throw new IllegalArgumentException("workers must be >= 1: " + workers);
+        this.source = source;
+        this.rejectsFile = rejectsFile;
+        this.workers = workers;
+    }
+
+    public static Path defaultRejectsFile(Path source) {
+        return source.resolveSibling(source.getFileName() + ".rejects.csv");
+    }
+
+    /**
+     * Runs the import, merging on the calling thread (which must own {@code store}). The rejects
+     * file is rewritten on every run and removed when nothing was rejected.
+     *
+     * @throws ImportFailedException if reading or parsing failed; earlier lines stay merged
+     */
+    public Result importInto(ColumnarItemStore store) throws Exception {
+        return run((items, result) -> {
+            for (MaintenanceItem it : items) {
+                int before = store.size();
+                store.upsert(it);
+                if (store.size() > before) result.added++;
+                else result.updated++;
+            }
+        });
+    }
+
+    /**
+     * Runs the import into a repository that may be in use by other threads. Each batch is
+     * written under the write locks of its ids: it is first saved to {@code storage} (if not
+     * null; it must be the storage the repository was loaded from), then put, so readers only
+     * ever see saved items and a concurrent write to one of them lands before or after the
+     * batch, never in between. Readers are not held up; with thousands of lines per batch a
+     * batch usually holds every lock, so other writers wait for at most one batch's save.
+     *
+     * @throws ImportFailedException if reading, parsing or saving failed; earlier batches stay merged
+     */
+    public Result importInto(ItemRepository repository, ItemStorage storage) throws Exception {
+        return run((items, result) -> {
+            List<String> ids = new ArrayList<>(items.size());
+            for (MaintenanceItem it : items) ids.add(it.getId());
+            repository.withLocks(ids, () -> {
+                if (storage != null) storage.saveChanges(repository.asList(), items, List.of());
+                for (MaintenanceItem it : items) {
+                    if (repository.get(it.getId()) == null) result.added++;
+                    else result.updated++;
+                    repository.put(it);
+                }
+                return null;
+            });
+        });
+    }
+
+    private Result run(Target target) throws Exception {
+        long started = System.nanoTime();
+        BlockingQueue<Batch> raw = new ArrayBlockingQueue<>(workers * 2);
+        BlockingQueue<Batch> parsed = new ArrayBlockingQueue<>(workers * 2);
+        AtomicReference<Exception> failure = new AtomicReference<>();
+        AtomicInteger threadId = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(workers + 1, r -> {
+            Thread t = new Thread(r, "csv-import-" + threadId.getAndIncrement());
+            t.setDaemon(true);
+            return t;
+        });
+        Result result = new Result(rejectsFile);
+        try {
+            pool.execute(() -> read(raw, failure));
+            for (int i = 0; i < workers; i++) pool.execute(() -> parse(raw, parsed, failure));
+            merge(parsed, target, result, failure);
+        } finally {
+            pool.shutdownNow();
+        }
+        result.nanos = System.nanoTime() - started;
+        if (failure.get() != null) throw new ImportFailedException(result, failure.get());
+        return result;
+    }
+
+    // Stage 1: cut the file into batches of whole lines.
+    private void read(BlockingQueue<Batch> out, AtomicReference<Exception> failure) {
+        try {
+            // Malformed bytes become U+FFFD instead of failing the whole import; such lines are
+            // then rejected individually by validation if they no longer parse.
+            BufferedReader r = new BufferedReader(new InputStreamReader(Files.newInputStream(source),
+                    StandardCharsets.UTF_8.newDecoder()
+                            .onMalformedInput(CodingErrorAction.REPLACE)
+                            .onUnmappableCharacter(CodingErrorAction.REPLACE)), 1 << 16);
+            try (r) {
+                long lineNo = 1;
+                int seq = 0;
+                List<String> lines = new ArrayList<>(BATCH_LINES);
+                // Files saved by Storage start with MaintenanceItem.CSV_HEADER; anything else
+                // uses the old escaping. The header stays in as a blank line to keep numbering.
+                Boolean legacy = null;
+                String line;
+                while ((line = r.readLine()) != null) {
+                    if (legacy == null && !line.isBlank()) {
+                        legacy = !MaintenanceItem.isCsvHeader(line);
+                        if (!legacy) line = "";
+                    }
+                    lines.add(line);
+                    if (lines.size() == BATCH_LINES) {
+                        out.put(new Batch(seq++, lineNo, lines, legacy != Boolean.FALSE));
+                        lineNo += lines.size();
+                        lines = new ArrayList<>(BATCH_LINES);
+                    }
+                }
+                if (!lines.isEmpty()) out.put(new Batch(seq, lineNo, lines, legacy != Boolean.FALSE));
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return;
+        } catch (Exception ex) {
+            failure.compareAndSet(null, ex);
+        }
+        try {
+            for (int i = 0; i < workers; i++) out.put(END);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Stage 2: parse and validate each line of a batch.
+    private void parse(BlockingQueue<Batch> in, BlockingQueue<Batch> out, AtomicReference<Exception> failure) {
+        try {
+            while (true) {
+                Batch b = in.take();
+                if (b == END) break;
+                try {
+                    b.parse();
+                } catch (RuntimeException ex) {
+                    // the batch is still passed on so the merge stage stops at it, not after it
+                    failure.compareAndSet(null, ex);
+                }
+                out.put(b);
+            }
+            out.put(END);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Stage 3: apply batches in file order; batches that finish early wait in pending.
+    private void merge(BlockingQueue<Batch> in, Target target, Result result,
+                       AtomicReference<Exception> failure) throws Exception {
+        Map<Integer, Batch> pending = new HashMap<>();
+        int next = 0;
+        int finished = 0;
+        BufferedWriter rejects = null;
+        try {
+            merging:
+            while (finished < workers) {
+                Batch b = in.take();
+                if (b == END) {
+                    finished++;
+                    continue;
+                }
+                pending.put(b.seq, b);
+                for (Batch ready; (ready = pending.remove(next)) != null; next++) {
+                    if (failure.get() != null) break merging;
+                    try {
+                        target.merge(ready.items, result);
+                    } catch (Exception ex) {
+                        failure.compareAndSet(null, ex);
+                        break merging;
+                    }
+                    result.lines += ready.lines.size();
+                    result.mergedThroughLine = ready.firstLine + ready.lines.size() - 1;
+                    if (ready.rejects.isEmpty()) continue;
+                    if (rejects == null) {
+                        rejects = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(rejectsFile), StandardCharsets.UTF_8));
+                        rejects.write("line,reason,text");
+                        rejects.newLine();
+                    }
+                    for (String r : ready.rejects) {
+                        rejects.write(r);
+                        rejects.newLine();
+                    }
+                    result.rejected += ready.rejects.size();
+                }
+            }
+        } finally {
+            if (rejects != null) rejects.close();
+        }
+        if (rejects == null) Files.deleteIfExists(rejectsFile);
+    }
+
+    // Where stage 3 puts each batch's items, counting them as added or updated.
+    private interface Target {
+        void merge(List<MaintenanceItem> items, Result result) throws Exception;
+    }
+
+    private static final class Batch {
+        final int seq;
+        final long firstLine;
+        final List<String> lines;
+        final boolean legacy;
+        List<MaintenanceItem> items;
+        List<String> rejects;
+
+        Batch(int seq, long firstLine, List<String> lines, boolean legacy) {
+            this.seq = seq;
+            this.firstLine = firstLine;
+            this.lines = lines;
+            this.legacy = legacy;
+        }
+
+        void parse() {
+            items = new ArrayList<>(lines.size());
+            rejects = new ArrayList<>();
+            for (int i = 0; i < lines.size(); i++) {
+                String line = lines.get(i).trim();
+                if (line.isEmpty()) continue;
+                String reason = validate(line);
+                if (reason != null) rejects.add((firstLine + i) + "," + CsvFormat.field(reason) + "," + CsvFormat.field(line));
+            }
+        }
+
+        // Adds the item and returns null, or returns why the line was rejected.
+        private String validate(String line) {
+            String[] f = MaintenanceItem.splitCsvLine(line, legacy);
+            if (f == null) return "missing-fields";
+            String id = f[0].trim();
+            if (id.isEmpty()) return "blank-id";
+            LocalDate date;
+            try {
+                date = LocalDate.parse(f[2].trim(), F);
+            } catch (DateTimeParseException ex) {
+                return "bad-date";
+            }
+            int interval;
+            try {
+                interval = Integer.parseInt(f[3].trim());
+            } catch (NumberFormatException ex) {
+                return "bad-interval";
+            }
+            if (interval <= 0) return "non-positive-interval";
+            String vehicle = f[4] == null ? "" : f[4].trim();
+            items.add(vehicle.isEmpty() ? new MaintenanceItem(id, f[1], date, interval)
+                    : new MaintenanceItem(id, f[1], date, interval, vehicle));
+            return null;
+        }
+    }
+
+    /** Counts and timing of one import run. */
+    public static final class Result {
+        private final Path rejectsFile;
+        private long lines;
+        private long added;
+        private long updated;
+        private long rejected;
+        private long mergedThroughLine;
+        private long nanos;
+
+        Result(Path rejectsFile) {
+            this.rejectsFile = rejectsFile;
+        }
+
+        public long lines() {
+            return lines;
+        }
+
+        public long added() {
+            return added;
+        }
+
+        public long updated() {
+            return updated;
+        }
+
+        public long rejected() {
+            return rejected;
+        }
+
+        /** Last line number merged into the store, 0 if none. */
+        public long mergedThroughLine() {
+            return mergedThroughLine;
+        }
+
+        public long elapsedMillis() {
+            return nanos / 1_000_000;
+        }
+
+        public double linesPerSecond() {
+            return nanos == 0 ? 0 : lines * 1e9 / nanos;
+        }
+
+        @Override
+        public String toString() {
+            String s = String.format("Read %d lines in %d ms (%.0f lines/s): %d added, %d updated, %d rejected",
+                    lines, elapsedMillis(), linesPerSecond(), added, updated, rejected);
+            return rejected == 0 ? s : s + " (see " + rejectsFile + ")";
+        }
+    }
+
+    /** An import that stopped early; {@link #getResult()} counts what was merged before it did. */
+    public static final class ImportFailedException extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        private final transient Result result;
+
+        ImportFailedException(Result result, Exception cause) {
+            super("Import stopped (" + cause.getMessage() + "); "
+                    + (result.mergedThroughLine == 0 ? "nothing was merged"
+                    : "lines 1-" + result.mergedThroughLine + " were merged"), cause);
+            this.result = result;
+        }
+
+        public Result getResult() {
+            return result;
+        }
+    }
+}
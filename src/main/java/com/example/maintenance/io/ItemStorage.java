@@ -0,0 +1,114 @@
+package com.example.maintenance.io;
+
+import com.example.maintenance.model.MaintenanceItem;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Where the item list is persisted: the CSV/binary file {@link Storage}, a directory of hash
+ * shards ({@link ShardedStorage}) or the relational {@link JdbcStorage}. Callers load the full list once and hand the edited list back to
+ * {@link #save}; implementations decide how much of it actually has to be written.
+ */
+public interface ItemStorage extends AutoCloseable {
+    String JDBC_URL_PROPERTY = "maintenance.jdbc.url";
+    String JDBC_USER_PROPERTY = "maintenance.jdbc.user";
+    String JDBC_PASSWORD_PROPERTY = "maintenance.jdbc.password";
+    String SHARDS_PROPERTY = "maintenance.shards";
+    // GUI only: browse the CSV data file through a LazyItemFile instead of loading it
+    String LAZY_PROPERTY = "maintenance.lazy";
+
+    List<MaintenanceItem> load() throws Exception;
+
+    /**
+     * Loads like {@link #load}, setting the baseline later saves build on, but hands the items
+     * to {@code action} as they are read instead of returning them all at the end.
+     */
+    default void loadEach(Consumer<? super MaintenanceItem> action) throws Exception {
+        for (MaintenanceItem it : load()) action.accept(it);
+    }
+
+    void save(List<MaintenanceItem> items) throws Exception;
+
+    /**
+     * Persists only {@code changed} and {@code deleted} on top of what this storage last loaded
+     * or saved, and does no I/O when both are empty. {@code items} is the full list, used when
+     * there is nothing to build on yet.
+     */
+    default void saveChanges(List<MaintenanceItem> items, Collection<MaintenanceItem> changed,
+                             Collection<String> deleted) throws Exception {
+        if (!changed.isEmpty() || !deleted.isEmpty()) save(items);
+    }
+
+    /**
+     * Writes every item, not just the differences, so rows stored in an older format are
+     * rewritten in the current one (e.g. with the vehicle column filled in).
+     */
+    void rewrite(List<MaintenanceItem> items) throws Exception;
+
+    /**
+     * Hands every stored item to {@code action} without keeping them; implementations stream
+     * where they can, so very large stores can be reported on with constant memory.
+     */
+    default void forEach(Consumer<? super MaintenanceItem> action) throws Exception {
+        for (MaintenanceItem it : load()) action.accept(it);
+    }
+
+    /** Streams the items whose next service date is on or before {@code day}. */
+    default void forEachDueBy(LocalDate day, Consumer<? super MaintenanceItem> action) throws Exception {
+        forEach(it -> {
+            if (!it.getLastServiceDate().plusDays(it.getIntervalDays()).isAfter(day)) action.accept(it);
+        });
+    }
+
+    /** Items whose next service date is on or before {@code day}: overdue and due-soon alerts. */
+    default List<MaintenanceItem> dueBy(LocalDate day) throws Exception {
+        List<MaintenanceItem> out = new ArrayList<>();
+        forEachDueBy(day, out::add);
+        return out;
+    }
+
+    /** Where the {@link ServiceHistory} for these items is kept. */
+    default Path historyDirectory() {
+        return ServiceHistory.directoryFor(Storage.defaultPath());
+    }
+
+    /** Human-readable location for messages, without credentials. */
+    String location();
+
+    /** Releases pools, threads and open files. */
+    @Override
+    default void close() throws IOException {
+    }
+
+    /**
+     * The storage selected by the {@code maintenance.jdbc.*} system properties; else, with
+     * {@code maintenance.shards=N}, the default shard directory (N shards if it is new); else
+     * the default data file.
+     */
+    static ItemStorage configured() {
+        String url = System.getProperty(JDBC_URL_PROPERTY);
+        if (url != null && !url.isEmpty()) {
+            return new JdbcStorage(url, System.getProperty(JDBC_USER_PROPERTY), System.getProperty(JDBC_PASSWORD_PROPERTY));
+        }
+        String shards = System.getProperty(SHARDS_PROPERTY);
+        if (shards != null && !shards.isEmpty()) {
+            return new ShardedStorage(ShardedStorage.defaultDirectory(), Integer.parseInt(shards));
+        }
+        return new Storage(Storage.defaultPath());
+    }
+
+    /** {@link ShardedStorage} if {@code path} is a directory, else the data file {@link Storage}. */
+    static ItemStorage open(Path path) {
+        if (Files.isDirectory(path)) {
+            return new ShardedStorage(path, ShardedStorage.DEFAULT_SHARDS);
+        }
+        return new Storage(path);
+    }
+}
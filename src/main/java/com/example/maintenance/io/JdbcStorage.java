@@ -0,0 +1,368 @@
+package com.example.maintenance.io;
+
+import com.example.maintenance.metrics.Counter;
+import com.example.maintenance.metrics.Metrics;
+import com.example.maintenance.model.MaintenanceItem;
+import com.example.maintenance.model.ValuePool;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Stores items in the {@code maintenance_items} table from {@code sql/schema_*.sql}. Saves write
+ * only the rows that changed since the last load or save, as batched upserts in one transaction
+ * ({@code INSERT ... ON CONFLICT} on PostgreSQL and SQLite, {@code ON DUPLICATE KEY UPDATE} on
+ * MySQL, {@code MERGE} on H2). {@link #forEachDueBy} filters in the database through the
+ * {@code maintenance_with_next} view or the {@code next_service_date} column when either exists.
+ */
+public class JdbcStorage implements ItemStorage {
+    private static final int POOL_SIZE = 4;
+    private static final long BORROW_TIMEOUT_MILLIS = 30_000;
+    private static final int BATCH_SIZE = 500;
+    private static final int FETCH_SIZE = 1000;
+    private static final Counter SAVE_ROWS = Metrics.counter("storage.save.rows");
+    private static final String COLUMNS = "id, name, last_service_date, interval_days";
+    private static final String COLUMNS_WITH_VEHICLE = COLUMNS + ", vehicle";
+
+    private enum Dialect {
+        POSTGRES, MYSQL, H2, SQLITE;
+
+        static Dialect of(DatabaseMetaData meta) throws SQLException {
+            String product = meta.getDatabaseProductName().toLowerCase(Locale.ROOT);
+            if (product.contains("mysql") || product.contains("mariadb")) return MYSQL;
+            if (product.contains("h2")) return H2;
+            if (product.contains("sqlite")) return SQLITE;
+            return POSTGRES;
+        }
+
+        String upsertSql(boolean vehicle) {
+            String columns = vehicle ? COLUMNS_WITH_VEHICLE : COLUMNS;
+            String values = vehicle ? "(?, ?, ?, ?, ?)" : "(?, ?, ?, ?)";
+            switch (this) {
+                case MYSQL:
+                    return "INSERT INTO maintenance_items (" + columns + ") VALUES " + values
+                            + " ON DUPLICATE KEY UPDATE name = VALUES(name),"
+                            + " last_service_date = VALUES(last_service_date), interval_days = VALUES(interval_days)"
+                            + (vehicle ? ", vehicle = VALUES(vehicle)" : "");
+                case H2:
+                    return "MERGE INTO maintenance_items (" + columns + ") KEY (id) VALUES " + values;
+                default:
+                    return "INSERT INTO maintenance_items (" + columns + ") VALUES " + values
+                            + " ON CONFLICT (id) DO UPDATE SET name = excluded.name,"
+                            + " last_service_date = excluded.last_service_date, interval_days = excluded.interval_days"
+                            + (vehicle ? ", vehicle = excluded.vehicle" : "");
+            }
+        }
+
+        // SQLite has no date type; dates are kept as ISO text, which also sorts and compares correctly.
+        void setDate(PreparedStatement ps, int index, LocalDate date) throws SQLException {
+            if (this == SQLITE) ps.setString(index, date.toString());
+            else ps.setDate(index, java.sql.Date.valueOf(date));
+        }
+
+        LocalDate getDate(ResultSet rs, int index) throws SQLException {
+            if (this == SQLITE) return LocalDate.parse(rs.getString(index));
+            return rs.getDate(index).toLocalDate();
+        }
+    }
+
+    private final String url;
+    private final ConnectionPool pool;
+    private Dialect dialect;
+    private String dueSource; // table or view with a next_service_date column, or null
+    // Whether the table and dueSource have the vehicle column; without it, vehicles are derived
+    // from names on read and not written (see sql/migrate_vehicle_*.sql).
+    private boolean vehicleColumn;
+    private boolean dueSourceVehicle;
+    // id -> copy of the row as last loaded or saved; null until then
+    private Map<String, MaintenanceItem> persisted;
+
+    public JdbcStorage(String url, String user, String password) {
+        this(url, new ConnectionPool(url, user, password, POOL_SIZE, BORROW_TIMEOUT_MILLIS));
+    }
+
+    public JdbcStorage(String url, ConnectionPool pool) {
+        this.url = url;
+        this.pool = pool;
+    }
+
+    @Override
+    public String location() {
+        int params = url.indexOf('?');
+        return params < 0 ? url : url.substring(0, params);
+    }
+
+    @Override
+    public synchronized List<MaintenanceItem> load() throws SQLException {
+        long started = System.nanoTime();
+        List<MaintenanceItem> out = pool.withConnection(c -> {
+            Dialect d = dialect(c);
+            try (Statement st = c.createStatement();
+                 ResultSet rs = st.executeQuery("SELECT " + columns(vehicleColumn) + " FROM maintenance_items")) {
+                return read(rs, d, vehicleColumn);
+            }
+        });
+        persisted = copies(out);
+        Storage.ITEMS_LOADED.add(out.size());
+        Storage.LOAD_TIME.recordSince(started);
+        return out;
+    }
+
+    @Override
+    public synchronized void save(List<MaintenanceItem> items) throws SQLException {
+        Map<String, MaintenanceItem> before = persisted != null ? persisted : pool.withConnection(this::readIds);
+        List<MaintenanceItem> changed = new ArrayList<>();
+        Set<String> seen = new HashSet<>(items.size() * 2);
+        for (MaintenanceItem it : items) {
+            seen.add(it.getId());
+            MaintenanceItem old = before.get(it.getId());
+            if (old == null || !sameContent(old, it)) changed.add(it);
+        }
+        List<String> deleted = new ArrayList<>();
+        for (String id : before.keySet()) {
+            if (!seen.contains(id)) deleted.add(id);
+        }
+        if (!changed.isEmpty() || !deleted.isEmpty()) {
+            pool.withConnection(c -> {
+                write(c, changed, deleted);
+                return null;
+            });
+        }
+        persisted = copies(items);
+    }
+
+    @Override
+    public synchronized void saveChanges(List<MaintenanceItem> items, Collection<MaintenanceItem> changed,
+                                         Collection<String> deleted) throws SQLException {
+        if (persisted == null) {
+            save(items);
+            return;
+        }
+        List<MaintenanceItem> upserts = new ArrayList<>();
+        for (MaintenanceItem it : changed) {
+            MaintenanceItem old = persisted.get(it.getId());
+            if (old == null || !sameContent(old, it)) upserts.add(it);
+        }
+        List<String> removed = new ArrayList<>();
+        for (String id : deleted) {
+            if (persisted.containsKey(id)) removed.add(id);
+        }
+        if (upserts.isEmpty() && removed.isEmpty()) return;
+        pool.withConnection(c -> {
+            write(c, upserts, removed);
+            return null;
+        });
+        for (String id : removed) persisted.remove(id);
+        for (MaintenanceItem it : upserts) persisted.put(it.getId(), copy(it));
+    }
+
+    /** Upserts every row; rows loaded with a derived vehicle get it stored when the column exists. */
+    @Override
+    public synchronized void rewrite(List<MaintenanceItem> items) throws SQLException {
+        persisted = null;
+        save(items);
+    }
+
+    /** Streams the table with a bounded fetch size instead of loading it. */
+    @Override
+    public void forEach(Consumer<? super MaintenanceItem> action) throws SQLException {
+        pool.withConnection(c -> {
+            Dialect d = dialect(c);
+            try (PreparedStatement ps = c.prepareStatement("SELECT " + columns(vehicleColumn) + " FROM maintenance_items")) {
+                stream(c, ps, d, vehicleColumn, action);
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public void forEachDueBy(LocalDate day, Consumer<? super MaintenanceItem> action) throws SQLException {
+        boolean pushed = pool.withConnection(c -> {
+            Dialect d = dialect(c);
+            if (dueSource == null) return false;
+            String sql = "SELECT " + columns(dueSourceVehicle) + " FROM " + dueSource
+                    + " WHERE next_service_date <= ? ORDER BY next_service_date";
+            try (PreparedStatement ps = c.prepareStatement(sql)) {
+                d.setDate(ps, 1, day);
+                stream(c, ps, d, dueSourceVehicle, action);
+            }
+            return true;
+        });
+        // Neither the view nor the generated column exists: filter while streaming the table.
+        if (!pushed) {
+            forEach(it -> {
+                if (!it.getLastServiceDate().plusDays(it.getIntervalDays()).isAfter(day)) action.accept(it);
+            });
+        }
+    }
+
+    @Override
+    public void close() {
+        pool.close();
+    }
+
+    private void write(Connection c, List<MaintenanceItem> changed, List<String> deleted) throws SQLException {
+        long started = System.nanoTime();
+        Dialect d = dialect(c);
+        boolean autoCommit = c.getAutoCommit();
+        c.setAutoCommit(false);
+        try {
+            if (!changed.isEmpty()) {
+                try (PreparedStatement ps = c.prepareStatement(d.upsertSql(vehicleColumn))) {
+                    int n = 0;
+                    for (MaintenanceItem it : changed) {
+                        ps.setString(1, it.getId());
+                        ps.setString(2, it.getName());
+                        d.setDate(ps, 3, it.getLastServiceDate());
+                        ps.setInt(4, it.getIntervalDays());
+                        if (vehicleColumn) ps.setString(5, it.getVehicle());
+                        ps.addBatch();
+                        if (++n % BATCH_SIZE == 0) ps.executeBatch();
+                    }
+                    if (n % BATCH_SIZE != 0) ps.executeBatch();
+                }
+            }
+            if (!deleted.isEmpty()) {
+                try (PreparedStatement ps = c.prepareStatement("DELETE FROM maintenance_items WHERE id = ?")) {
+                    int n = 0;
+                    for (String id : deleted) {
+                        ps.setString(1, id);
+                        ps.addBatch();
+                        if (++n % BATCH_SIZE == 0) ps.executeBatch();
+                    }
+                    if (n % BATCH_SIZE != 0) ps.executeBatch();
+                }
+            }
+            c.commit();
+            SAVE_ROWS.add(changed.size() + deleted.size());
+            Storage.SAVE_TIME.recordSince(started);
+        } catch (SQLException | RuntimeException ex) {
+            c.rollback();
+            throw ex;
+        } finally {
+            c.setAutoCommit(autoCommit);
+        }
+    }
+
+    // Ids only, with null content so every listed item counts as changed: used when saving
+    // without a previous load, to find the rows that have to be deleted.
+    private Map<String, MaintenanceItem> readIds(Connection c) throws SQLException {
+        Map<String, MaintenanceItem> ids = new HashMap<>();
+        try (Statement st = c.createStatement();
+             ResultSet rs = st.executeQuery("SELECT id FROM maintenance_items")) {
+            while (rs.next()) ids.put(rs.getString(1), null);
+        }
+        return ids;
+    }
+
+    // PostgreSQL only honours the fetch size (instead of buffering the whole result) inside a transaction.
+    private static void stream(Connection c, PreparedStatement ps, Dialect d, boolean vehicle,
+                               Consumer<? super MaintenanceItem> action) throws SQLException {
+        long started = System.nanoTime();
+        boolean autoCommit = c.getAutoCommit();
+        if (d == Dialect.POSTGRES) c.setAutoCommit(false);
+        try {
+            ps.setFetchSize(FETCH_SIZE);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    action.accept(item(rs, d, vehicle));
+                }
+            }
+        } finally {
+            if (d == Dialect.POSTGRES) {
+                c.commit();
+                c.setAutoCommit(autoCommit);
+            }
+            Storage.SCAN_TIME.recordSince(started);
+        }
+    }
+
+    private static List<MaintenanceItem> read(ResultSet rs, Dialect d, boolean vehicle) throws SQLException {
+        List<MaintenanceItem> out = new ArrayList<>();
+        while (rs.next()) out.add(item(rs, d, vehicle));
+        return out;
+    }
+
+    // Rows not migrated yet have a null vehicle, which is derived from the name.
+    private static MaintenanceItem item(ResultSet rs, Dialect d, boolean vehicle) throws SQLException {
+        ValuePool pool = ValuePool.shared();
+        String name = pool.string(rs.getString(2));
+        String v = vehicle ? rs.getString(5) : null;
+        return new MaintenanceItem(rs.getString(1), name, pool.date(d.getDate(rs, 3)), rs.getInt(4),
+                pool.string(v == null ? MaintenanceItem.vehicleOf(name) : v));
+    }
+
+    private static String columns(boolean vehicle) {
+        return vehicle ? COLUMNS_WITH_VEHICLE : COLUMNS;
+    }
+
+    // Detected once from the first connection: the dialect, where next_service_date lives and
+    // whether the vehicle column exists.
+    private synchronized Dialect dialect(Connection c) throws SQLException {
+        if (dialect == null) {
+            DatabaseMetaData meta = c.getMetaData();
+            dialect = Dialect.of(meta);
+            if (hasTable(meta, "maintenance_with_next")) {
+                dueSource = "maintenance_with_next";
+            } else if (hasColumn(meta, "maintenance_items", "next_service_date")) {
+                dueSource = "maintenance_items";
+            }
+            vehicleColumn = hasColumn(meta, "maintenance_items", "vehicle");
+            dueSourceVehicle = dueSource != null && hasColumn(meta, dueSource, "vehicle");
+        }
+        return dialect;
+    }
+
+    // Unquoted names are folded to upper case by some databases and to lower case by others.
+    private static boolean hasTable(DatabaseMetaData meta, String name) throws SQLException {
+        for (String n : new String[] {name, name.toUpperCase(Locale.ROOT)}) {
+            try (ResultSet rs = meta.getTables(null, null, n, null)) {
+                if (rs.next()) return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean hasColumn(DatabaseMetaData meta, String table, String column) throws SQLException {
+        for (String t : new String[] {table, table.toUpperCase(Locale.ROOT)}) {
+            for (String col : new String[] {column, column.toUpperCase(Locale.ROOT)}) {
+                try (ResultSet rs = meta.getColumns(null, null, t, col)) {
+                    if (rs.next()) return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static Map<String, MaintenanceItem> copies(List<MaintenanceItem> items) {
+        Map<String, MaintenanceItem> m = new HashMap<>(items.size() * 2);
+        for (MaintenanceItem it : items) m.put(it.getId(), copy(it));
+        return m;
+    }
+
+    private static MaintenanceItem copy(MaintenanceItem it) {
+        return new MaintenanceItem(it.getId(), it.getName(), it.getLastServiceDate(), it.getIntervalDays(), it.getVehicle());
+    }
+
+    private static boolean sameContent(MaintenanceItem a, MaintenanceItem b) {
+        return a.getIntervalDays() == b.getIntervalDays()
+                && Objects.equals(a.getName(), b.getName())
+                && Objects.equals(a.getLastServiceDate(), b.getLastServiceDate())
+                && Objects.equals(a.getVehicle(), b.getVehicle());
+    }
+}
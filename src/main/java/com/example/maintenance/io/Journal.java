@@ -0,0 +1,187 @@
+package com.example.maintenance.io;
+
+import com.example.maintenance.model.MaintenanceItem;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only write-ahead journal of item changes, kept next to the snapshot file.
+ * Each line is {@code op,crc32,payload} where op is A (add), U (update) or D (delete);
+ * A and U carry a CSV item line, D carries the item id. Lines with a bad checksum
+ * (e.g. a torn write after a crash) are ignored on replay. Item lines always use the current
+ * escaping, since journals postdate {@link MaintenanceItem#CSV_HEADER}.
+ *
+ * <p>Durability uses group commit: {@link #append} only writes, and {@link #sync} issues a
+ * single fsync that covers every append made before it, so concurrent savers share one flush.
+ */
+public class Journal implements AutoCloseable {
+    public static final char ADD = 'A';
+    public static final char UPDATE = 'U';
+    public static final char DELETE = 'D';
+
+    private final Path file;
+    private final Object writeLock = new Object();
+    private final Object syncLock = new Object();
+    private FileChannel channel;
+    private long written;
+    private long records;
+    private volatile long synced;
+
+    public Journal(Path file) throws IOException {
+        this.file = file;
+        this.channel = open(file);
+        this.records = countRecords(file);
+        terminateTornTail();
+    }
+
+    public static String record(char op, MaintenanceItem item) {
+        return record(op, op == DELETE ? item.getId() : item.toCsvLine());
+    }
+
+    public static String record(char op, String payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload.getBytes(StandardCharsets.UTF_8));
+        return op + "," + Long.toHexString(crc.getValue()) + "," + payload;
+    }
+
+    /** Writes the records and returns a sequence number to pass to {@link #sync}. */
+    public long append(List<String> lines) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        for (String line : lines) sb.append(line).append('\n');
+        ByteBuffer buf = ByteBuffer.wrap(sb.toString().getBytes(StandardCharsets.UTF_8));
+        synchronized (writeLock) {
+            while (buf.hasRemaining()) channel.write(buf);
+            records += lines.size();
+            return ++written;
+        }
+    }
+
+    /** Blocks until everything up to {@code seq} is on disk. */
+    public void sync(long seq) throws IOException {
+        if (synced >= seq) return;
+        synchronized (syncLock) {
+            if (synced >= seq) return;
+            long target;
+            FileChannel ch;
+            synchronized (writeLock) {
+                target = written;
+                ch = channel;
+            }
+            ch.force(false);
+            synced = target;
+        }
+    }
+
+    public long records() {
+        synchronized (writeLock) {
+            return records;
+        }
+    }
+
+    /** Moves the current contents to {@code sealed} and starts an empty journal. */
+    public void rotate(Path sealed) throws IOException {
+        synchronized (syncLock) {
+            synchronized (writeLock) {
+                channel.force(false);
+                channel.close();
+                Files.move(file, sealed, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                channel = open(file);
+                records = 0;
+                synced = written;
+            }
+        }
+    }
+
+    /** Discards all records, used once a full snapshot has superseded them. */
+    public void truncate() throws IOException {
+        synchronized (syncLock) {
+            synchronized (writeLock) {
+                channel.truncate(0);
+                channel.force(false);
+                records = 0;
+                synced = written;
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (writeLock) {
+            channel.close();
+        }
+    }
+
+    /** Applies the journal at {@code path} (if any) to {@code items}, keyed by id. */
+    public static void replay(Path path, Map<String, MaintenanceItem> items) throws IOException {
+        replay(path, it -> items.put(it.getId(), it), items::remove);
+    }
+
+    /** Hands each valid record of the journal at {@code path} (if any) to {@code put} or {@code delete}. */
+    public static void replay(Path path, Consumer<MaintenanceItem> put, Consumer<String> delete) throws IOException {
+        if (!Files.exists(path)) return;
+        try (BufferedReader r = reader(path)) {
+            String line;
+            while ((line = r.readLine()) != null) {
+                String[] parts = line.split(",", 3);
+                if (parts.length < 3 || parts[0].length() != 1 || !record(parts[0].charAt(0), parts[2]).equals(line)) {
+                    continue;
+                }
+                char op = parts[0].charAt(0);
+                if (op == DELETE) {
+                    delete.accept(parts[2]);
+                } else if (op == ADD || op == UPDATE) {
+                    try {
+                        MaintenanceItem it = MaintenanceItem.fromCsvLine(parts[2]);
+                        if (it != null) put.accept(it);
+                    } catch (Exception ex) {
+                        System.err.println("Skipping malformed journal record: " + line);
+                    }
+                }
+            }
+        }
+    }
+
+    public static boolean isEmpty(Path path) throws IOException {
+        return !Files.exists(path) || Files.size(path) == 0;
+    }
+
+    // A crash can leave a partial last line; start new records on a fresh line.
+    private void terminateTornTail() throws IOException {
+        long size = channel.size();
+        if (size == 0) return;
+        ByteBuffer last = ByteBuffer.allocate(1);
+        try (FileChannel r = FileChannel.open(file, StandardOpenOption.READ)) {
+            r.read(last, size - 1);
+        }
+        if (last.get(0) != '\n') channel.write(ByteBuffer.wrap(new byte[]{'\n'}));
+    }
+
+    private static BufferedReader reader(Path path) throws IOException {
+        return new BufferedReader(new InputStreamReader(Files.newInputStream(path), StandardCharsets.UTF_8));
+    }
+
+    private static FileChannel open(Path file) throws IOException {
+        return FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private static long countRecords(Path file) throws IOException {
+        long n = 0;
+        try (BufferedReader r = reader(file)) {
+            while (r.readLine() != null) n++;
+        }
+        return n;
+    }
+}
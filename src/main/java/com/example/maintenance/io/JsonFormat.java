@@ -0,0 +1,98 @@
+package com.example.maintenance.io;
+
+import com.example.maintenance.core.FleetRollups;
+import com.example.maintenance.core.MaintenanceScheduler;
+import com.example.maintenance.model.MaintenanceItem;
+import com.example.maintenance.model.ServiceEvent;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.YearMonth;
+
+/**
+ * JSON form of an item, shared by batch reports and the HTTP API:
+ * {@code {"id":..,"name":..,"vehicle":..,"lastServiceDate":..,"intervalDays":..,"nextServiceDate":..,"daysUntil":..,"status":..}},
+ * and of a {@link FleetRollups.Rollup} and a {@link ServiceEvent}. Writes straight to any
+ * {@link Appendable} so callers can stream.
+ */
+public final class JsonFormat {
+    private JsonFormat() {
+    }
+
+    public static void appendItem(Appendable out, MaintenanceItem it, int today) throws IOException {
+        appendItem(out, it.getId(), it.getName(), it.getVehicle(), (int) it.getLastServiceDate().toEpochDay(),
+                it.getIntervalDays(), today);
+    }
+
+    public static void appendItem(Appendable out, String id, String name, String vehicle, int lastServiceDay,
+                                  int intervalDays, int today) throws IOException {
+        long next = (long) lastServiceDay + intervalDays;
+        out.append("{\"id\":");
+        appendString(out, id);
+        out.append(",\"name\":");
+        appendString(out, name);
+        out.append(",\"vehicle\":");
+        appendString(out, vehicle);
+        out.append(",\"lastServiceDate\":\"").append(LocalDate.ofEpochDay(lastServiceDay).toString());
+        out.append("\",\"intervalDays\":").append(Integer.toString(intervalDays));
+        out.append(",\"nextServiceDate\":\"").append(LocalDate.ofEpochDay(next).toString());
+        out.append("\",\"daysUntil\":").append(Long.toString(next - today));
+        out.append(",\"status\":\"").append(MaintenanceScheduler.statusOf(next - today).name()).append("\"}");
+    }
+
+    /**
+     * {@code {"key":..,"items":..,"overdue":..,"nextDueDate":..,"servicesThisMonth":..,"dueThisMonth":..}},
+     * with {@code month} as this month.
+     */
+    public static void appendRollup(Appendable out, FleetRollups.Rollup r, YearMonth month) throws IOException {
+        LocalDate next = r.getNextDueDate();
+        out.append("{\"key\":");
+        appendString(out, r.getKey());
+        out.append(",\"items\":").append(Integer.toString(r.getItems()));
+        out.append(",\"overdue\":").append(Integer.toString(r.getOverdue()));
+        out.append(",\"nextDueDate\":");
+        appendString(out, next == null ? null : next.toString());
+        out.append(",\"servicesThisMonth\":").append(Integer.toString(r.getServicesIn(month)));
+        out.append(",\"dueThisMonth\":").append(Integer.toString(r.getDueIn(month))).append('}');
+    }
+
+    /** {@code {"itemId":..,"date":..,"intervalDays":..}} */
+    public static void appendEvent(Appendable out, ServiceEvent e) throws IOException {
+        out.append("{\"itemId\":");
+        appendString(out, e.getItemId());
+        out.append(",\"date\":\"").append(e.getDate().toString());
+        out.append("\",\"intervalDays\":").append(Integer.toString(e.getIntervalDays())).append('}');
+    }
+
+    public static void appendString(Appendable out, String s) throws IOException {
+        if (s == null) {
+            out.append("null");
+            return;
+        }
+        out.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"':
+                    out.append("\\\"");
+                    break;
+                case '\\':
+                    out.append("\\\\");
+                    break;
+                case '\n':
+                    out.append("\\n");
+                    break;
+                case '\r':
+                    out.append("\\r");
+                    break;
+                case '\t':
+                    out.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) out.append(String.format("\\u%04x", (int) c));
+                    else out.append(c);
+            }
+        }
+        out.append('"');
+    }
+}
@@ -0,0 +1,459 @@
+package com.example.maintenance.io;
+
+import com.example.maintenance.metrics.Counter;
+import com.example.maintenance.metrics.LatencyHistogram;
+import com.example.maintenance.metrics.Metrics;
+import com.example.maintenance.model.MaintenanceItem;
+import com.example.maintenance.model.ValuePool;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * On-demand view of a CSV data file. Opening it only indexes the file: the byte range of each
+ * line, the hash of its id and its next-service day, about 20 bytes a row. Items are parsed
+ * from the file when asked for and kept in a bounded LRU cache; due-date queries run on the
+ * next-service column and never parse a line.
+ *
+ * <p>The file belongs to a {@link Storage}. Its journals are applied on open, while the storage
+ * holds off saves and compaction. Edits are kept in memory (never evicted) and written by
+ * {@link #save()} as records in the storage's journal, so they follow its rotations, count
+ * towards its compaction and are seen by a later full {@link Storage#load()}. Lookups by id go
+ * through a hash table of the id hashes, built on first use.
+ *
+ * <p>Items returned by {@link #get(int)} may be shared with the cache and must not be modified;
+ * change them through {@link #set(int, MaintenanceItem)}. Methods are synchronized.
+ */
+public class LazyItemFile implements AutoCloseable {
+    public static final int DEFAULT_CACHE_ITEMS = 4096;
+
+    static final LatencyHistogram OPEN_TIME = Metrics.histogram("lazy.open");
+    static final Counter CACHE_HITS = Metrics.counter("lazy.cache.hits");
+    static final Counter CACHE_MISSES = Metrics.counter("lazy.cache.misses");
+
+    private final Storage storage;
+    private final boolean ownsStorage; // opened by path: closed with this file
+    private final Path dataFile;
+    private FileChannel channel;
+    private final Map<Long, MaintenanceItem> cache; // by line offset, least recently used first
+    private int size;
+    private long[] ref = new long[16]; // >= 0: offset of the line in the file; < 0: -(i + 1) into edited
+    private int[] length = new int[16];
+    private int[] nextDue = new int[16];
+    private int[] idHash = new int[16];
+    private final List<MaintenanceItem> edited = new ArrayList<>();
+    private final List<String> pending = new ArrayList<>(); // journal records not saved yet
+    private boolean legacy; // no CSV_HEADER: lines use the old escaping
+    // Open addressing on idHash: row + 1 per slot, 0 when empty. Null until the first indexOf,
+    // and again after a change that moves rows or rehashes one.
+    private int[] idSlots;
+    private int idSlotsUsed;
+
+    private LazyItemFile(Storage storage, boolean ownsStorage, int cacheItems) {
+        this.storage = storage;
+        this.ownsStorage = ownsStorage;
+        this.dataFile = storage.dataFile();
+        this.cache = new LinkedHashMap<>(Math.min(cacheItems, 1 << 16) * 2, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, MaintenanceItem> eldest) {
+                return size() > cacheItems;
+            }
+        };
+    }
+
+    /** Opens {@code dataFile} with a {@link Storage} of its own, closed with the returned file. */
+    public static LazyItemFile open(Path dataFile, int cacheItems) throws IOException {
+        return open(new Storage(dataFile), true, cacheItems);
+    }
+
+    /**
+     * Indexes the data file of {@code storage} and applies its journals; {@code cacheItems}
+     * bounds the item cache. Saves go through {@code storage}, which stays open after
+     * {@link #close()}; it should be the only {@code Storage} of the file in this process.
+     */
+    public static LazyItemFile open(Storage storage, int cacheItems) throws IOException {
+        return open(storage, false, cacheItems);
+    }
+
+    private static LazyItemFile open(Storage storage, boolean ownsStorage, int cacheItems) throws IOException {
+        long started = System.nanoTime();
+        Path dataFile = storage.dataFile();
+        if (BinarySnapshot.isSnapshot(dataFile)) {
+            throw new IOException("Lazy loading needs a CSV data file: " + dataFile + " is a binary snapshot");
+        }
+        LazyItemFile f = new LazyItemFile(storage, ownsStorage, cacheItems);
+        try {
+            storage.holdFiles(() -> {
+                if (!Files.exists(dataFile)) {
+                    Files.createDirectories(dataFile.toAbsolutePath().getParent());
+                    Files.createFile(dataFile);
+                }
+                // the channel keeps this version of the file readable if a compaction replaces it
+                f.channel = FileChannel.open(dataFile, StandardOpenOption.READ);
+                f.index();
+                f.applyJournals();
+            });
+        } catch (IOException | RuntimeException ex) {
+            f.close();
+            throw ex;
+        }
+        OPEN_TIME.recordSince(started);
+        return f;
+    }
+
+    public Path dataFile() {
+        return dataFile;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    /** The item at {@code row}, parsed from the file unless it is cached or was edited. */
+    public synchronized MaintenanceItem get(int row) {
+        check(row);
+        long r = ref[row];
+        if (r < 0) return edited.get((int) (-r - 1));
+        MaintenanceItem it = cache.get(r);
+        if (it != null) {
+            CACHE_HITS.increment();
+            return it;
+        }
+        CACHE_MISSES.increment();
+        it = read(r, length[row]);
+        cache.put(r, it);
+        return it;
+    }
+
+    public synchronized int nextDueDay(int row) {
+        check(row);
+        return nextDue[row];
+    }
+
+    /** Row of the item with {@code id}, or -1; only rows whose id hash matches are parsed. */
+    public synchronized int indexOf(String id) {
+        if (idSlots == null) buildIdSlots();
+        int h = id.hashCode();
+        int mask = idSlots.length - 1;
+        for (int slot = mix(h) & mask; idSlots[slot] != 0; slot = (slot + 1) & mask) {
+            int row = idSlots[slot] - 1;
+            if (idHash[row] == h && get(row).getId().equals(id)) return row;
+        }
+        return -1;
+    }
+
+    /** Rows due before {@code asOfDay}, soonest first. */
+    public synchronized int[] overdueRows(int asOfDay) {
+        return rowsDueBetween(Integer.MIN_VALUE, asOfDay - 1);
+    }
+
+    /** Rows due on days in {@code [asOfDay, asOfDay + days]}, soonest first. */
+    public synchronized int[] dueWithinRows(int asOfDay, int days) {
+        return rowsDueBetween(asOfDay, (int) Math.min(Integer.MAX_VALUE, (long) asOfDay + days));
+    }
+
+    /** Rows whose next service falls in {@code [fromDay, toDay]}, ordered by that day. */
+    public synchronized int[] rowsDueBetween(int fromDay, int toDay) {
+        int n = 0;
+        long[] keys = new long[16];
+        for (int row = 0; row < size; row++) {
+            int d = nextDue[row];
+            if (d < fromDay || d > toDay) continue;
+            if (n == keys.length) keys = Arrays.copyOf(keys, n * 2);
+            keys[n++] = ((long) d << 32) | row;
+        }
+        Arrays.sort(keys, 0, n);
+        int[] rows = new int[n];
+        for (int i = 0; i < n; i++) rows[i] = (int) keys[i];
+        return rows;
+    }
+
+    public synchronized int add(MaintenanceItem item) {
+        ensureCapacity(size + 1);
+        int row = size++;
+        ref[row] = 0;
+        keep(row, item);
+        if (idSlots != null) addIdSlot(row);
+        pending.add(Journal.record(Journal.ADD, item));
+        return row;
+    }
+
+    public synchronized void set(int row, MaintenanceItem item) {
+        String before = get(row).getId();
+        if (!before.equals(item.getId())) {
+            pending.add(Journal.record(Journal.DELETE, before));
+            idSlots = null;
+        }
+        keep(row, item);
+        pending.add(Journal.record(Journal.UPDATE, item));
+    }
+
+    public synchronized void remove(int row) {
+        pending.add(Journal.record(Journal.DELETE, get(row).getId()));
+        if (ref[row] < 0) edited.set((int) (-ref[row] - 1), null);
+        int tail = size - row - 1;
+        System.arraycopy(ref, row + 1, ref, row, tail);
+        System.arraycopy(length, row + 1, length, row, tail);
+        System.arraycopy(nextDue, row + 1, nextDue, row, tail);
+        System.arraycopy(idHash, row + 1, idHash, row, tail);
+        size--;
+        idSlots = null;
+    }
+
+    public synchronized boolean hasChanges() {
+        return !pending.isEmpty();
+    }
+
+    /** Number of items currently parsed and cached, not counting edited ones. */
+    public synchronized int cachedItems() {
+        return cache.size();
+    }
+
+    /** Appends the edits made since the last save to the storage's journal and syncs it; returns the record count. */
+    public synchronized int save() throws IOException {
+        if (pending.isEmpty()) return 0;
+        storage.appendRecords(pending);
+        int n = pending.size();
+        pending.clear();
+        return n;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            if (channel != null) channel.close();
+        } finally {
+            if (ownsStorage) storage.close();
+        }
+    }
+
+    private void buildIdSlots() {
+        idSlots = new int[Math.max(16, Integer.highestOneBit(Math.max(1, size)) << 2)];
+        idSlotsUsed = 0;
+        for (int row = 0; row < size; row++) addIdSlot(row);
+    }
+
+    // Rows go in in order, so among equal ids the lowest row is found first. Kept at most half full.
+    private void addIdSlot(int row) {
+        if (++idSlotsUsed > idSlots.length / 2) {
+            buildIdSlots();
+            return;
+        }
+        int mask = idSlots.length - 1;
+        int slot = mix(idHash[row]) & mask;
+        while (idSlots[slot] != 0) slot = (slot + 1) & mask;
+        idSlots[slot] = row + 1;
+    }
+
+    // MurmurHash3 finalizer: String hashes of similar ids differ mostly in their low bits.
+    private static int mix(int h) {
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        return h ^ (h >>> 16);
+    }
+
+    // Pins an item to the row; its line in the file, if any, is no longer used.
+    private void keep(int row, MaintenanceItem item) {
+        MaintenanceItem copy = new MaintenanceItem(item.getId(), item.getName(), item.getLastServiceDate(),
+                item.getIntervalDays(), item.getVehicle());
+        if (ref[row] < 0) {
+            edited.set((int) (-ref[row] - 1), copy);
+        } else {
+            edited.add(copy);
+            ref[row] = -edited.size();
+        }
+        nextDue[row] = dueDay(item.getLastServiceDate().toEpochDay() + item.getIntervalDays());
+        idHash[row] = item.getId().hashCode();
+    }
+
+    private MaintenanceItem read(long offset, int len) {
+        ByteBuffer buf = ByteBuffer.allocate(len);
+        try {
+            while (buf.hasRemaining()) {
+                if (channel.read(buf, offset + buf.position()) < 0) throw new IOException("Unexpected end of " + dataFile);
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return MaintenanceItem.fromCsvLine(new String(buf.array(), StandardCharsets.UTF_8), ValuePool.shared(), legacy);
+    }
+
+    private void index() throws IOException {
+        long fileSize = channel.size();
+        if (fileSize == 0) return;
+        legacy = !MappedCsvLoader.startsWithHeader(channel, fileSize);
+        long[] bounds = MappedCsvLoader.chunkBounds(channel, fileSize);
+        List<Chunk> chunks = IntStream.range(0, bounds.length - 1)
+                .parallel()
+                .mapToObj(i -> indexChunk(bounds[i], bounds[i + 1]))
+                .collect(Collectors.toList());
+        int total = 0;
+        for (Chunk c : chunks) total += c.size;
+        ensureCapacity(total);
+        for (Chunk c : chunks) {
+            System.arraycopy(c.ref, 0, ref, size, c.size);
+            System.arraycopy(c.length, 0, length, size, c.size);
+            System.arraycopy(c.nextDue, 0, nextDue, size, c.size);
+            System.arraycopy(c.idHash, 0, idHash, size, c.size);
+            size += c.size;
+        }
+    }
+
+    private Chunk indexChunk(long from, long to) {
+        MappedByteBuffer buf;
+        try {
+            buf = channel.map(FileChannel.MapMode.READ_ONLY, from, to - from);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Unable to map " + from + ".." + to, ex);
+        }
+        Chunk c = new Chunk((int) Math.min(1 << 20, (to - from) / 40 + 1));
+        int limit = buf.limit();
+        int lineStart = 0;
+        for (int i = 0; i <= limit; i++) {
+            if (i == limit || buf.get(i) == '\n' || buf.get(i) == '\r') {
+                indexLine(buf, from, lineStart, i, legacy, c);
+                lineStart = i + 1;
+            }
+        }
+        return c;
+    }
+
+    // Same field rules as MappedCsvLoader.parseLine, but only the date and interval are parsed.
+    private static void indexLine(ByteBuffer buf, long base, int start, int end, boolean legacy, Chunk out) {
+        while (start < end && (buf.get(start) & 0xff) <= ' ') start++;
+        while (end > start && (buf.get(end - 1) & 0xff) <= ' ') end--;
+        if (start == end) return;
+        int c1 = MappedCsvLoader.indexOf(buf, start, end, (byte) ',');
+        int c2 = c1 < 0 ? -1 : MappedCsvLoader.nameEnd(buf, c1 + 1, end, legacy);
+        int c3 = c2 < 0 ? -1 : MappedCsvLoader.indexOf(buf, c2 + 1, end, (byte) ',');
+        if (c3 < 0) return;
+        int c4 = MappedCsvLoader.indexOf(buf, c3 + 1, end, (byte) ',');
+        try {
+            long day = MappedCsvLoader.parseDate(buf, c2 + 1, c3).toEpochDay();
+            int interval = MappedCsvLoader.parseInt(buf, c3 + 1, c4 < 0 ? end : c4);
+            out.add(base + start, end - start, dueDay(day + interval), idHash(buf, start, c1));
+        } catch (RuntimeException ex) {
+            Storage.MALFORMED_LINES.increment();
+            System.err.println("Skipping malformed line: " + MappedCsvLoader.decode(buf, start, end));
+        }
+    }
+
+    // String.hashCode() of the id, without building the String when it is ASCII.
+    private static int idHash(ByteBuffer buf, int from, int to) {
+        int h = 0;
+        for (int i = from; i < to; i++) {
+            byte b = buf.get(i);
+            if (b < 0) return MappedCsvLoader.decode(buf, from, to).hashCode();
+            h = 31 * h + b;
+        }
+        return h;
+    }
+
+    // Final state of every id the journals touch, applied with one pass over the rows.
+    private void applyJournals() throws IOException {
+        Map<String, MaintenanceItem> put = new LinkedHashMap<>();
+        Set<String> deleted = new HashSet<>();
+        for (Path j : new Path[]{dataFile.resolveSibling(dataFile.getFileName() + ".journal.sealed"),
+                dataFile.resolveSibling(dataFile.getFileName() + ".journal")}) {
+            Journal.replay(j, it -> {
+                put.put(it.getId(), it);
+                deleted.remove(it.getId());
+            }, id -> {
+                put.remove(id);
+                deleted.add(id);
+            });
+        }
+        if (put.isEmpty() && deleted.isEmpty()) return;
+        Set<Integer> hashes = new HashSet<>();
+        for (String id : put.keySet()) hashes.add(id.hashCode());
+        for (String id : deleted) hashes.add(id.hashCode());
+        int kept = 0;
+        for (int row = 0; row < size; row++) {
+            boolean drop = false;
+            if (hashes.contains(idHash[row])) {
+                String id = get(row).getId();
+                MaintenanceItem it = put.remove(id);
+                if (it != null) keep(row, it);
+                else drop = deleted.contains(id);
+            }
+            if (drop) continue;
+            ref[kept] = ref[row];
+            length[kept] = length[row];
+            nextDue[kept] = nextDue[row];
+            idHash[kept] = idHash[row];
+            kept++;
+        }
+        size = kept;
+        for (MaintenanceItem it : put.values()) {
+            ensureCapacity(size + 1);
+            int row = size++;
+            ref[row] = 0;
+            keep(row, it);
+        }
+    }
+
+    private static int dueDay(long next) {
+        return (int) Math.max(Integer.MIN_VALUE + 1, Math.min(Integer.MAX_VALUE, next));
+    }
+
+    private void ensureCapacity(int n) {
+        if (n <= ref.length) return;
+        int cap = Math.max(n, ref.length + (ref.length >> 1));
+        ref = Arrays.copyOf(ref, cap);
+        length = Arrays.copyOf(length, cap);
+        nextDue = Arrays.copyOf(nextDue, cap);
+        idHash = Arrays.copyOf(idHash, cap);
+    }
+
+    private void check(int row) {
+        if (row < 0 || row >= size) throw new IndexOutOfBoundsException("Row " + row + " of " + size);
+    }
+
+    private static final class Chunk {
+        long[] ref;
+        int[] length;
+        int[] nextDue;
+        int[] idHash;
+        int size;
+
+        Chunk(int capacity) {
+            ref = new long[capacity];
+            length = new int[capacity];
+            nextDue = new int[capacity];
+            idHash = new int[capacity];
+        }
+
+        void add(long offset, int len, int due, int hash) {
+            if (size == ref.length) {
+                int cap = size * 2;
+                ref = Arrays.copyOf(ref, cap);
+                length = Arrays.copyOf(length, cap);
+                nextDue = Arrays.copyOf(nextDue, cap);
+                idHash = Arrays.copyOf(idHash, cap);
+            }
+            ref[size] = offset;
+            length[size] = len;
+            nextDue[size] = due;
+            idHash[size] = hash;
+            size++;
+        }
+    }
+}
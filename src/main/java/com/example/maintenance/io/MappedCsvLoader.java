@@ -0,0 +1,221 @@
+package com.example.maintenance.io;
+
+import com.example.maintenance.model.MaintenanceItem;
+import com.example.maintenance.model.ValuePool;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Loads the CSV data file by memory-mapping it and parsing fields straight from the bytes.
+ * The file is split into chunks at line boundaries and the chunks are parsed in parallel.
+ * Results (and skipped lines) match {@link Storage#load()} line for line.
+ */
+public class MappedCsvLoader {
+    private static final int MIN_CHUNK_BYTES = 1 << 20;
+    private static final int MAX_CHUNK_BYTES = Integer.MAX_VALUE - 1024;
+    private static final DateTimeFormatter F = DateTimeFormatter.ISO_LOCAL_DATE;
+
+    private final Path file;
+
+    public MappedCsvLoader(Path file) {
+        this.file = file;
+    }
+
+    public List<MaintenanceItem> load() throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = ch.size();
+            if (size == 0) return new ArrayList<>();
+            boolean legacy = !startsWithHeader(ch, size);
+            long[] bounds = chunkBounds(ch, size);
+            List<List<MaintenanceItem>> parts = IntStream.range(0, bounds.length - 1)
+                    .parallel()
+                    .mapToObj(i -> parseChunk(ch, bounds[i], bounds[i + 1], legacy))
+                    .collect(Collectors.toList());
+            int total = 0;
+            for (List<MaintenanceItem> p : parts) total += p.size();
+            List<MaintenanceItem> out = new ArrayList<>(total);
+            for (List<MaintenanceItem> p : parts) out.addAll(p);
+            return out;
+        }
+    }
+
+    static long[] chunkBounds(FileChannel ch, long size) throws IOException {
+        int cores = Runtime.getRuntime().availableProcessors();
+        long chunks = Math.max(1, Math.min(cores * 4L, size / MIN_CHUNK_BYTES));
+        chunks = Math.max(chunks, (size + MAX_CHUNK_BYTES - 1) / MAX_CHUNK_BYTES);
+        List<Long> starts = new ArrayList<>();
+        starts.add(0L);
+        for (long i = 1; i < chunks; i++) {
+            long start = nextLineStart(ch, size * i / chunks, size);
+            if (start > starts.get(starts.size() - 1) && start < size) starts.add(start);
+        }
+        long[] bounds = new long[starts.size() + 1];
+        for (int i = 0; i < starts.size(); i++) bounds[i] = starts.get(i);
+        bounds[starts.size()] = size;
+        return bounds;
+    }
+
+    /**
+     * Whether the first non-blank line is {@link MaintenanceItem#CSV_HEADER}; files without it
+     * are parsed with the legacy escaping. The header line itself has no comma and is skipped
+     * like any other short line.
+     */
+    static boolean startsWithHeader(FileChannel ch, long size) throws IOException {
+        byte[] header = MaintenanceItem.CSV_HEADER.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buf = ByteBuffer.allocate((int) Math.min(size, 8192));
+        ch.read(buf, 0);
+        int n = buf.position();
+        int i = 0;
+        while (i < n && (buf.get(i) & 0xff) <= ' ') i++;
+        if (n - i < header.length) return false;
+        for (int k = 0; k < header.length; k++) {
+            if (buf.get(i + k) != header[k]) return false;
+        }
+        for (i += header.length; i < n; i++) {
+            byte b = buf.get(i);
+            if (b == '\n' || b == '\r') return true;
+            if ((b & 0xff) > ' ') return false;
+        }
+        return true;
+    }
+
+    // First offset after the line terminator at or following pos.
+    private static long nextLineStart(FileChannel ch, long pos, long size) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(8192);
+        while (pos < size) {
+            buf.clear();
+            int n = ch.read(buf, pos);
+            if (n <= 0) break;
+            for (int i = 0; i < n; i++) {
+                byte b = buf.get(i);
+                if (b == '\n' || b == '\r') return pos + i + 1;
+            }
+            pos += n;
+        }
+        return size;
+    }
+
+    private static List<MaintenanceItem> parseChunk(FileChannel ch, long from, long to, boolean legacy) {
+        MappedByteBuffer buf;
+        try {
+            buf = ch.map(FileChannel.MapMode.READ_ONLY, from, to - from);
+        } catch (IOException ex) {
+            throw new IllegalStateException("Unable to map " + from + ".." + to, ex);
+        }
+        List<MaintenanceItem> out = new ArrayList<>((int) Math.min(Integer.MAX_VALUE, (to - from) / 40 + 1));
+        int limit = buf.limit();
+        int lineStart = 0;
+        for (int i = 0; i <= limit; i++) {
+            if (i == limit || buf.get(i) == '\n' || buf.get(i) == '\r') {
+                parseLine(buf, lineStart, i, legacy, out);
+                lineStart = i + 1;
+            }
+        }
+        return out;
+    }
+
+    // Mirrors line.trim() + MaintenanceItem.fromCsvLine: split on the first three unescaped commas,
+    // plus an optional fourth before the vehicle.
+    // Escaped names never contain line breaks, so a chunk boundary cannot fall inside an escape.
+    static void parseLine(ByteBuffer buf, int start, int end, boolean legacy, List<MaintenanceItem> out) {
+        while (start < end && (buf.get(start) & 0xff) <= ' ') start++;
+        while (end > start && (buf.get(end - 1) & 0xff) <= ' ') end--;
+        if (start == end) return;
+
+        int c1 = indexOf(buf, start, end, (byte) ',');
+        int c2 = c1 < 0 ? -1 : nameEnd(buf, c1 + 1, end, legacy);
+        int c3 = c2 < 0 ? -1 : indexOf(buf, c2 + 1, end, (byte) ',');
+        if (c3 < 0) return;
+        int c4 = indexOf(buf, c3 + 1, end, (byte) ',');
+        try {
+            ValuePool pool = ValuePool.shared();
+            String id = decode(buf, start, c1);
+            String name = pool.string(MaintenanceItem.unescape(decode(buf, c1 + 1, c2), legacy));
+            LocalDate date = parseDate(buf, c2 + 1, c3);
+            int interval = parseInt(buf, c3 + 1, c4 < 0 ? end : c4);
+            String vehicle = c4 < 0 || c4 == end - 1 ? MaintenanceItem.vehicleOf(name)
+                    : MaintenanceItem.unescape(decode(buf, c4 + 1, end), legacy);
+            out.add(new MaintenanceItem(id, name, date, interval, pool.string(vehicle)));
+        } catch (RuntimeException ex) {
+            Storage.MALFORMED_LINES.increment();
+            System.err.println("Skipping malformed line: " + decode(buf, start, end));
+        }
+    }
+
+    static int indexOf(ByteBuffer buf, int from, int to, byte b) {
+        for (int i = from; i < to; i++) {
+            if (buf.get(i) == b) return i;
+        }
+        return -1;
+    }
+
+    // First comma not escaped with a backslash, as in MaintenanceItem.splitCsvLine.
+    static int nameEnd(ByteBuffer buf, int from, int to, boolean legacy) {
+        for (int i = from; i < to; i++) {
+            byte b = buf.get(i);
+            if (b == '\\' && i + 1 < to && (buf.get(i + 1) == ',' || !legacy && buf.get(i + 1) == '\\')) i++;
+            else if (b == ',') return i;
+        }
+        return -1;
+    }
+
+    static String decode(ByteBuffer buf, int from, int to) {
+        int len = to - from;
+        byte[] bytes = new byte[len];
+        boolean ascii = true;
+        for (int i = 0; i < len; i++) {
+            byte b = buf.get(from + i);
+            bytes[i] = b;
+            if (b < 0) ascii = false;
+        }
+        return new String(bytes, ascii ? StandardCharsets.ISO_8859_1 : StandardCharsets.UTF_8);
+    }
+
+    // yyyy-MM-dd fast path; anything else goes through the formatter to keep identical rules.
+    // Both return the shared pool's instance, so repeated dates are neither allocated nor kept twice.
+    static LocalDate parseDate(ByteBuffer buf, int from, int to) {
+        if (to - from == 10 && buf.get(from + 4) == '-' && buf.get(from + 7) == '-') {
+            int y = digits(buf, from, from + 4);
+            int m = digits(buf, from + 5, from + 7);
+            int d = digits(buf, from + 8, to);
+            if (y >= 0 && m >= 0 && d >= 0) return ValuePool.shared().date(y, m, d);
+        }
+        return ValuePool.shared().date(LocalDate.parse(decode(buf, from, to), F));
+    }
+
+    private static int digits(ByteBuffer buf, int from, int to) {
+        int v = 0;
+        for (int i = from; i < to; i++) {
+            int c = buf.get(i) - '0';
+            if (c < 0 || c > 9) return -1;
+            v = v * 10 + c;
+        }
+        return v;
+    }
+
+    static int parseInt(ByteBuffer buf, int from, int to) {
+        int i = from;
+        boolean negative = false;
+        if (i < to && (buf.get(i) == '-' || buf.get(i) == '+')) {
+            negative = buf.get(i) == '-';
+            i++;
+        }
+        // Up to 9 digits cannot overflow; longer or unusual input falls back to Integer.parseInt.
+        if (i == to || to - i > 9) return Integer.parseInt(decode(buf, from, to));
+        int v = digits(buf, i, to);
+        if (v < 0) return Integer.parseInt(decode(buf, from, to));
+        return negative ? -v : v;
+    }
+}
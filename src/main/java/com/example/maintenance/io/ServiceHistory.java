@@ -0,0 +1,408 @@
+package com.example.maintenance.io;
+
+import com.example.maintenance.metrics.Counter;
+import com.example.maintenance.metrics.LatencyHistogram;
+import com.example.maintenance.metrics.Metrics;
+import com.example.maintenance.model.ServiceEvent;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+
+/**
+ * Append-only log of {@link ServiceEvent}s, partitioned by month of service date into segment
+ * files in one directory:
+ * <pre>
+ *   2024-09.log   one line per event, {@code date,intervalDays,itemId}, in the order recorded
+ *   2024-09.idx   sparse index, one entry per block of {@value #BLOCK_EVENTS} events in the log
+ * </pre>
+ * An index entry holds a block's byte range, its earliest and latest service day and a small
+ * Bloom filter of its item ids. Time-range queries open only the segments of the months asked
+ * for and read only blocks whose days overlap; item queries skip every segment and block whose
+ * filter rules the id out. Events after the last full block are tracked in memory.
+ *
+ * <p>Recording appends to the log and fsyncs it, so it never rewrites the item snapshot. The
+ * index is derived data: entries that run past the log are dropped on open and the unindexed
+ * rest of the log is scanned and indexed again.
+ */
+public class ServiceHistory implements AutoCloseable {
+    static final int BLOCK_EVENTS = 256;
+    static final String LOG_SUFFIX = ".log";
+    static final String INDEX_SUFFIX = ".idx";
+    // Two bits per id; with a block's 256 ids about 5% of other ids test positive.
+    private static final int BLOOM_BITS = 2048;
+    private static final int BLOOM_WORDS = BLOOM_BITS / 64;
+    private static final int INDEX_ENTRY_BYTES = 8 + 8 + 4 + 4 + 4 + BLOOM_WORDS * 8;
+
+    static final LatencyHistogram APPEND_TIME = Metrics.histogram("history.append");
+    static final LatencyHistogram QUERY_TIME = Metrics.histogram("history.query");
+    static final Counter EVENTS_RECORDED = Metrics.counter("history.events_recorded");
+    static final Counter BLOCKS_READ = Metrics.counter("history.blocks_read");
+
+    private final Path dir;
+    private final TreeSet<YearMonth> months = new TreeSet<>();
+    private final Map<YearMonth, Segment> segments = new HashMap<>();
+    private boolean listed;
+
+    public ServiceHistory(Path dir) {
+        this.dir = dir;
+    }
+
+    /** The history directory kept next to {@code dataFile}, e.g. {@code items.csv.history}. */
+    public static Path directoryFor(Path dataFile) {
+        return dataFile.resolveSibling(dataFile.getFileName() + ".history");
+    }
+
+    public Path directory() {
+        return dir;
+    }
+
+    public void record(ServiceEvent event) throws IOException {
+        record(Collections.singletonList(event));
+    }
+
+    /** Appends the events to the segments of their months, with one fsync per segment. */
+    public synchronized void record(Collection<ServiceEvent> events) throws IOException {
+        if (events.isEmpty()) return;
+        long started = System.nanoTime();
+        Map<YearMonth, List<ServiceEvent>> byMonth = new TreeMap<>();
+        for (ServiceEvent e : events) {
+            byMonth.computeIfAbsent(YearMonth.from(e.getDate()), m -> new ArrayList<>()).add(e);
+        }
+        listMonths();
+        Files.createDirectories(dir);
+        for (Map.Entry<YearMonth, List<ServiceEvent>> e : byMonth.entrySet()) {
+            segment(e.getKey()).append(e.getValue());
+            months.add(e.getKey());
+        }
+        EVENTS_RECORDED.add(events.size());
+        APPEND_TIME.recordSince(started);
+    }
+
+    /** Every service of one item, oldest first. */
+    public List<ServiceEvent> forItem(String itemId) throws IOException {
+        return query(itemId, null, null);
+    }
+
+    /** Every service between {@code from} and {@code to}, inclusive. */
+    public List<ServiceEvent> between(LocalDate from, LocalDate to) throws IOException {
+        return query(null, from, to);
+    }
+
+    /**
+     * Services of {@code itemId} (of any item when null) dated {@code from} to {@code to}
+     * inclusive (unbounded when null), ordered by date and then by the order they were recorded.
+     */
+    public synchronized List<ServiceEvent> query(String itemId, LocalDate from, LocalDate to) throws IOException {
+        long started = System.nanoTime();
+        List<ServiceEvent> out = new ArrayList<>();
+        int fromDay = from == null ? Integer.MIN_VALUE : (int) from.toEpochDay();
+        int toDay = to == null ? Integer.MAX_VALUE : (int) to.toEpochDay();
+        if (fromDay <= toDay) {
+            listMonths();
+            NavigableSet<YearMonth> range = months;
+            if (from != null) range = range.tailSet(YearMonth.from(from), true);
+            if (to != null) range = range.headSet(YearMonth.from(to), true);
+            for (YearMonth m : range) segment(m).scan(itemId, fromDay, toDay, out);
+            out.sort(Comparator.comparing(ServiceEvent::getDate));
+        }
+        QUERY_TIME.recordSince(started);
+        return out;
+    }
+
+    /** Months that have a segment, oldest first. */
+    public synchronized List<YearMonth> months() throws IOException {
+        listMonths();
+        return new ArrayList<>(months);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        for (Segment s : segments.values()) s.close();
+        segments.clear();
+    }
+
+    private void listMonths() throws IOException {
+        if (listed) return;
+        if (Files.isDirectory(dir)) {
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "*" + LOG_SUFFIX)) {
+                for (Path f : files) {
+                    String name = f.getFileName().toString();
+                    try {
+                        months.add(YearMonth.parse(name.substring(0, name.length() - LOG_SUFFIX.length())));
+                    } catch (DateTimeParseException ex) {
+                        // not a segment
+                    }
+                }
+            }
+        }
+        listed = true;
+    }
+
+    private Segment segment(YearMonth month) throws IOException {
+        Segment s = segments.get(month);
+        if (s == null) {
+            s = new Segment(month);
+            segments.put(month, s);
+        }
+        return s;
+    }
+
+    static String line(ServiceEvent e) {
+        return e.getDate() + "," + e.getIntervalDays() + "," + e.getItemId();
+    }
+
+    static ServiceEvent parse(String line) {
+        int c1 = line.indexOf(',');
+        int c2 = c1 < 0 ? -1 : line.indexOf(',', c1 + 1);
+        if (c2 < 0) return null;
+        try {
+            return new ServiceEvent(line.substring(c2 + 1), LocalDate.parse(line.substring(0, c1)),
+                    Integer.parseInt(line.substring(c1 + 1, c2)));
+        } catch (RuntimeException ex) {
+            return null;
+        }
+    }
+
+    // One month: the full blocks listed in its index, plus the events after them.
+    private final class Segment {
+        private final Path log;
+        private final Path index;
+        private final List<Block> blocks = new ArrayList<>();
+        private final long[] summary = new long[BLOOM_WORDS];
+        private Block tail;
+        private FileChannel appender;
+
+        Segment(YearMonth month) throws IOException {
+            log = dir.resolve(month + LOG_SUFFIX);
+            index = dir.resolve(month + INDEX_SUFFIX);
+            long size = Files.exists(log) ? Files.size(log) : 0;
+            tail = new Block(readIndex(size));
+            if (tail.end < size) scanTail(size);
+        }
+
+        void close() throws IOException {
+            if (appender != null) appender.close();
+        }
+
+        void append(List<ServiceEvent> events) throws IOException {
+            if (appender == null) {
+                appender = FileChannel.open(log, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                        StandardOpenOption.APPEND);
+            }
+            long pos = appender.size();
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            // a line torn by a crash stays unparsable, but must not run into the next event
+            if (pos > tail.end) bytes.write('\n');
+            long[] ends = new long[events.size()];
+            for (int i = 0; i < events.size(); i++) {
+                byte[] line = (line(events.get(i)) + "\n").getBytes(StandardCharsets.UTF_8);
+                bytes.write(line, 0, line.length);
+                ends[i] = pos + bytes.size();
+            }
+            ByteBuffer buf = ByteBuffer.wrap(bytes.toByteArray());
+            while (buf.hasRemaining()) appender.write(buf);
+            appender.force(false);
+            for (int i = 0; i < events.size(); i++) {
+                ServiceEvent e = events.get(i);
+                add((int) e.getDate().toEpochDay(), e.getItemId(), ends[i]);
+            }
+        }
+
+        void scan(String itemId, int fromDay, int toDay, List<ServiceEvent> out) throws IOException {
+            if (itemId != null && !Block.mayContain(summary, itemId)) return;
+            List<Block> candidates = new ArrayList<>();
+            for (Block b : blocks) {
+                if (b.matches(itemId, fromDay, toDay)) candidates.add(b);
+            }
+            if (tail.matches(itemId, fromDay, toDay)) candidates.add(tail);
+            if (candidates.isEmpty()) return;
+            try (FileChannel ch = FileChannel.open(log, StandardOpenOption.READ)) {
+                for (Block b : candidates) {
+                    BLOCKS_READ.increment();
+                    forEachLine(read(ch, b.start, b.end), line -> {
+                        ServiceEvent e = parse(line);
+                        if (e == null || (itemId != null && !itemId.equals(e.getItemId()))) return;
+                        long day = e.getDate().toEpochDay();
+                        if (day >= fromDay && day <= toDay) out.add(e);
+                    });
+                }
+            }
+        }
+
+        private void add(int day, String itemId, long end) throws IOException {
+            tail.add(day, itemId, end);
+            Block.addId(summary, itemId);
+            if (tail.count == BLOCK_EVENTS) {
+                writeIndexEntry(tail);
+                blocks.add(tail);
+                tail = new Block(tail.end);
+            }
+        }
+
+        // Loads the valid prefix of the index, truncating anything past it; returns where it ends.
+        private long readIndex(long logSize) throws IOException {
+            if (!Files.exists(index)) return 0;
+            long end = 0;
+            try (FileChannel ch = FileChannel.open(index, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                long entries = ch.size() / INDEX_ENTRY_BYTES;
+                ByteBuffer buf = read(ch, 0, entries * INDEX_ENTRY_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+                long valid = 0;
+                while (valid < entries) {
+                    Block b = Block.read(buf);
+                    if (b.start != end || b.end <= b.start || b.end > logSize || b.count <= 0) break;
+                    blocks.add(b);
+                    for (int i = 0; i < BLOOM_WORDS; i++) summary[i] |= b.bloom[i];
+                    end = b.end;
+                    valid++;
+                }
+                if (ch.size() != valid * INDEX_ENTRY_BYTES) ch.truncate(valid * INDEX_ENTRY_BYTES);
+            }
+            return end;
+        }
+
+        // Reads the unindexed part of the log; complete blocks found there are indexed.
+        private void scanTail(long logSize) throws IOException {
+            long from = tail.end;
+            ByteBuffer buf;
+            try (FileChannel ch = FileChannel.open(log, StandardOpenOption.READ)) {
+                buf = read(ch, from, logSize);
+            }
+            int lineStart = 0;
+            for (int i = 0; i < buf.limit(); i++) {
+                if (buf.get(i) != '\n') continue;
+                ServiceEvent e = parse(decode(buf, lineStart, i));
+                if (e != null) add((int) e.getDate().toEpochDay(), e.getItemId(), from + i + 1);
+                else tail.end = from + i + 1;
+                lineStart = i + 1;
+            }
+            // anything after the last line break is a torn write, skipped like a malformed line
+        }
+
+        private void writeIndexEntry(Block b) throws IOException {
+            ByteBuffer buf = ByteBuffer.allocate(INDEX_ENTRY_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            b.write(buf);
+            buf.flip();
+            try (FileChannel ch = FileChannel.open(index, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND)) {
+                while (buf.hasRemaining()) ch.write(buf);
+            }
+        }
+    }
+
+    private static final class Block {
+        final long start;
+        long end;
+        int count;
+        int minDay = Integer.MAX_VALUE;
+        int maxDay = Integer.MIN_VALUE;
+        final long[] bloom = new long[BLOOM_WORDS];
+
+        Block(long start) {
+            this.start = start;
+            this.end = start;
+        }
+
+        void add(int day, String itemId, long end) {
+            this.end = end;
+            count++;
+            minDay = Math.min(minDay, day);
+            maxDay = Math.max(maxDay, day);
+            addId(bloom, itemId);
+        }
+
+        boolean matches(String itemId, int fromDay, int toDay) {
+            return count > 0 && minDay <= toDay && maxDay >= fromDay && (itemId == null || mayContain(bloom, itemId));
+        }
+
+        static void addId(long[] bits, String id) {
+            int h = hash(id);
+            set(bits, h & (BLOOM_BITS - 1));
+            set(bits, (h >>> 16) & (BLOOM_BITS - 1));
+        }
+
+        static boolean mayContain(long[] bits, String id) {
+            int h = hash(id);
+            return isSet(bits, h & (BLOOM_BITS - 1)) && isSet(bits, (h >>> 16) & (BLOOM_BITS - 1));
+        }
+
+        private static void set(long[] bits, int bit) {
+            bits[bit >>> 6] |= 1L << bit;
+        }
+
+        private static boolean isSet(long[] bits, int bit) {
+            return (bits[bit >>> 6] & (1L << bit)) != 0;
+        }
+
+        // MurmurHash3 finalizer, so both halves of the hash are well mixed.
+        private static int hash(String id) {
+            int h = id.hashCode();
+            h ^= h >>> 16;
+            h *= 0x85ebca6b;
+            h ^= h >>> 13;
+            h *= 0xc2b2ae35;
+            return h ^ (h >>> 16);
+        }
+
+        void write(ByteBuffer buf) {
+            buf.putLong(start).putLong(end).putInt(count).putInt(minDay).putInt(maxDay);
+            for (long w : bloom) buf.putLong(w);
+        }
+
+        static Block read(ByteBuffer buf) {
+            Block b = new Block(buf.getLong());
+            b.end = buf.getLong();
+            b.count = buf.getInt();
+            b.minDay = buf.getInt();
+            b.maxDay = buf.getInt();
+            for (int i = 0; i < BLOOM_WORDS; i++) b.bloom[i] = buf.getLong();
+            return b;
+        }
+    }
+
+    private static ByteBuffer read(FileChannel ch, long from, long to) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(Math.toIntExact(to - from));
+        while (buf.hasRemaining() && ch.read(buf, from + buf.position()) >= 0) {
+            // keep reading
+        }
+        buf.flip();
+        return buf;
+    }
+
+    private static void forEachLine(ByteBuffer buf, Consumer<String> action) {
+        int lineStart = 0;
+        for (int i = 0; i < buf.limit(); i++) {
+            if (buf.get(i) == '\n') {
+                action.accept(decode(buf, lineStart, i));
+                lineStart = i + 1;
+            }
+        }
+    }
+
+    private static String decode(ByteBuffer buf, int from, int to) {
+        byte[] bytes = new byte[to - from];
+        for (int i = 0; i < bytes.length; i++) bytes[i] = buf.get(from + i);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,291 @@
+package com.example.maintenance.io;
+
+import com.example.maintenance.metrics.Counter;
+import com.example.maintenance.metrics.LatencyHistogram;
+import com.example.maintenance.metrics.Metrics;
+import com.example.maintenance.model.MaintenanceItem;
+
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Items partitioned by a hash of their id over N shard files in one directory, each a
+ * {@link Storage} with its own journal. A {@code manifest} file records the shard count and
+ * format, so a directory is always read with the layout it was written with.
+ *
+ * <p>Shards are loaded in parallel and concatenated in shard order. Saves group the changes by
+ * shard and only touch the shards that have any, also in parallel. A shard that cannot be read
+ * fails the load with its file name; the other shard files are never rewritten by that attempt.
+ */
+public class ShardedStorage implements ItemStorage {
+    public static final String MANIFEST = "manifest";
+    public static final int DEFAULT_SHARDS = 16;
+    static final int FORMAT_VERSION = 1;
+
+    static final LatencyHistogram LOAD_TIME = Metrics.histogram("storage.shards.load");
+    static final LatencyHistogram SAVE_TIME = Metrics.histogram("storage.shards.save");
+    static final Counter SHARDS_SAVED = Metrics.counter("storage.shards.saved");
+
+    private final Path directory;
+    private final int requestedShards;
+    private Storage[] shards;
+    private ExecutorService pool;
+    // true once every shard has loaded or saved, so each can journal just its changes
+    private boolean baseline;
+
+    /** {@code shards} is only used when the directory has no manifest yet. */
+    public ShardedStorage(Path directory, int shards) {
+        if (shards < 1) throw new IllegalArgumentException("shards must be >= 1: " + shards);
+        this.directory = directory;
+        this.requestedShards = shards;
+    }
+
+    public static boolean isShardDirectory(Path path) {
+        return Files.isRegularFile(path.resolve(MANIFEST));
+    }
+
+    public static Path defaultDirectory() {
+        return Path.of("data", "items.shards");
+    }
+
+    /** Shard of {@code id} among {@code shards}: the MurmurHash3 finalizer of its String hash. */
+    public static int shardOf(String id, int shards) {
+        int h = id.hashCode();
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return Math.floorMod(h, shards);
+    }
+
+    public synchronized int shardCount() throws IOException {
+        return shards().length;
+    }
+
+    @Override
+    public String location() {
+        return directory + " (" + (shards == null ? "sharded" : shards.length + " shards") + ")";
+    }
+
+    @Override
+    public Path historyDirectory() {
+        return ServiceHistory.directoryFor(directory);
+    }
+
+    @Override
+    public synchronized List<MaintenanceItem> load() throws Exception {
+        long started = System.nanoTime();
+        Storage[] s = shards();
+        List<List<MaintenanceItem>> parts = inParallel(i -> s[i].load());
+        int total = 0;
+        for (List<MaintenanceItem> p : parts) total += p.size();
+        List<MaintenanceItem> out = new ArrayList<>(total);
+        for (List<MaintenanceItem> p : parts) out.addAll(p);
+        baseline = true;
+        LOAD_TIME.recordSince(started);
+        return out;
+    }
+
+    /** Loads the shards one after another, handing items over as each shard streams them. */
+    @Override
+    public synchronized void loadEach(Consumer<? super MaintenanceItem> action) throws Exception {
+        long started = System.nanoTime();
+        for (Storage shard : shards()) shard.loadEach(action);
+        baseline = true;
+        LOAD_TIME.recordSince(started);
+    }
+
+    /** Streams the shards one after another; each streams its CSV when it has no journal. */
+    @Override
+    public void forEach(Consumer<? super MaintenanceItem> action) throws Exception {
+        Storage[] s;
+        synchronized (this) {
+            s = shards();
+        }
+        for (Storage shard : s) shard.forEach(action);
+    }
+
+    @Override
+    public synchronized void save(List<MaintenanceItem> items) throws Exception {
+        long started = System.nanoTime();
+        Storage[] s = shards();
+        List<List<MaintenanceItem>> parts = partition(items, s.length);
+        inParallel(i -> {
+            s[i].save(parts.get(i));
+            return null;
+        });
+        SHARDS_SAVED.add(s.length);
+        baseline = true;
+        SAVE_TIME.recordSince(started);
+    }
+
+    /** Journals the changes of each shard that has any; shards without changes are not touched. */
+    @Override
+    public synchronized void saveChanges(List<MaintenanceItem> items, Collection<MaintenanceItem> changed,
+                                         Collection<String> deleted) throws Exception {
+        if (!baseline) {
+            save(items);
+            return;
+        }
+        if (changed.isEmpty() && deleted.isEmpty()) return;
+        long started = System.nanoTime();
+        Storage[] s = shards();
+        List<List<MaintenanceItem>> changedBy = partition(changed, s.length);
+        List<List<String>> deletedBy = new ArrayList<>(s.length);
+        for (int i = 0; i < s.length; i++) deletedBy.add(new ArrayList<>());
+        for (String id : deleted) deletedBy.get(shardOf(id, s.length)).add(id);
+        AtomicInteger saved = new AtomicInteger();
+        // every shard has a baseline, so Storage ignores the full list here
+        inParallel(i -> {
+            if (changedBy.get(i).isEmpty() && deletedBy.get(i).isEmpty()) return null;
+            s[i].saveChanges(List.of(), changedBy.get(i), deletedBy.get(i));
+            saved.incrementAndGet();
+            return null;
+        });
+        SHARDS_SAVED.add(saved.get());
+        SAVE_TIME.recordSince(started);
+    }
+
+    @Override
+    public synchronized void rewrite(List<MaintenanceItem> items) throws Exception {
+        Storage[] s = shards();
+        List<List<MaintenanceItem>> parts = partition(items, s.length);
+        inParallel(i -> {
+            s[i].saveSnapshot(parts.get(i));
+            return null;
+        });
+        SHARDS_SAVED.add(s.length);
+        baseline = true;
+    }
+
+    /**
+     * Stops the shard threads and closes every shard. Like {@link Storage#close()}, this does not
+     * end the storage: a later load or save starts a new pool and reopens the journals it needs.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (pool != null) {
+            pool.shutdown();
+            pool = null;
+        }
+        if (shards == null) return;
+        IOException failure = null;
+        for (Storage shard : shards) {
+            try {
+                shard.close();
+            } catch (IOException ex) {
+                if (failure == null) failure = ex;
+                else failure.addSuppressed(ex);
+            }
+        }
+        if (failure != null) throw failure;
+    }
+
+    // Opens the shards, writing the manifest first if the directory is new.
+    private Storage[] shards() throws IOException {
+        if (shards != null) return shards;
+        Path manifest = directory.resolve(MANIFEST);
+        int count;
+        if (Files.exists(manifest)) {
+            count = readManifest(manifest);
+        } else {
+            count = requestedShards;
+            writeManifest(manifest, count);
+        }
+        Storage[] s = new Storage[count];
+        for (int i = 0; i < count; i++) s[i] = new Storage(directory.resolve(String.format("shard-%03d.csv", i)));
+        shards = s;
+        return s;
+    }
+
+    private static int readManifest(Path manifest) throws IOException {
+        Properties p = new Properties();
+        try (Reader r = Files.newBufferedReader(manifest, StandardCharsets.UTF_8)) {
+            p.load(r);
+        }
+        try {
+            int version = Integer.parseInt(p.getProperty("version", ""));
+            int count = Integer.parseInt(p.getProperty("shards", ""));
+            if (version != FORMAT_VERSION || count < 1) throw new NumberFormatException();
+            return count;
+        } catch (NumberFormatException ex) {
+            throw new IOException("Unsupported shard manifest " + manifest + ": " + p);
+        }
+    }
+
+    private static void writeManifest(Path manifest, int count) throws IOException {
+        Files.createDirectories(manifest.toAbsolutePath().getParent());
+        Path tmp = manifest.resolveSibling(MANIFEST + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(tmp.toFile(), false);
+             BufferedWriter w = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8))) {
+            w.write("# Items are in shard-NNN.csv, NNN = floorMod(fmix32(id.hashCode()), shards)\n");
+            w.write("version=" + FORMAT_VERSION + "\n");
+            w.write("shards=" + count + "\n");
+            w.flush();
+            out.getFD().sync();
+        }
+        Files.move(tmp, manifest, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static List<List<MaintenanceItem>> partition(Collection<MaintenanceItem> items, int count) {
+        List<List<MaintenanceItem>> parts = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) parts.add(new ArrayList<>(items.size() / count + 16));
+        for (MaintenanceItem it : items) parts.get(shardOf(it.getId(), count)).add(it);
+        return parts;
+    }
+
+    private interface ShardTask<T> {
+        T run(int shard) throws Exception;
+    }
+
+    // Runs the task for every shard on the pool and waits for all of them, so a failure in one
+    // shard never leaves another half written; the first failure is then rethrown.
+    private <T> List<T> inParallel(ShardTask<T> task) throws Exception {
+        if (pool == null) {
+            AtomicInteger threadId = new AtomicInteger();
+            pool = Executors.newFixedThreadPool(Math.min(shards.length, Runtime.getRuntime().availableProcessors()), r -> {
+                Thread t = new Thread(r, "storage-shard-" + threadId.getAndIncrement());
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        List<Callable<T>> calls = new ArrayList<>(shards.length);
+        for (int i = 0; i < shards.length; i++) {
+            int shard = i;
+            calls.add(() -> task.run(shard));
+        }
+        List<T> out = new ArrayList<>(shards.length);
+        Exception failure = null;
+        List<Future<T>> futures = pool.invokeAll(calls);
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                out.add(futures.get(i).get());
+            } catch (ExecutionException ex) {
+                Throwable cause = ex.getCause();
+                if (failure == null) failure = new IOException(shards[i].location() + ": " + cause.getMessage(), cause);
+                out.add(null);
+            }
+        }
+        if (failure != null) throw failure;
+        return out;
+    }
+}
@@ -1,26 +1,163 @@
 package com.example.maintenance.io;
 
+import com.example.maintenance.metrics.Counter;
+import com.example.maintenance.metrics.LatencyHistogram;
+import com.example.maintenance.metrics.Metrics;
 import com.example.maintenance.model.MaintenanceItem;
+import com.example.maintenance.model.ValuePool;
 
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileReader;
-import java.io.FileWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.time.LocalDate;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+public class Storage implements ItemStorage {
+    // Files at least this large are parsed with the memory-mapped, parallel loader.
+    static final long MAPPED_LOAD_THRESHOLD = 4L * 1024 * 1024;
+    // The journal is folded into the snapshot once it holds this many records
+    // and at least a tenth as many records as the snapshot.
+    static final int COMPACT_MIN_RECORDS = 1000;
+    public static final String BINARY_SUFFIX = ".bin";
+
+    static final LatencyHistogram LOAD_TIME = Metrics.histogram("storage.load");
+    static final LatencyHistogram SAVE_TIME = Metrics.histogram("storage.save");
+    static final LatencyHistogram SCAN_TIME = Metrics.histogram("storage.scan");
+    static final Counter ITEMS_LOADED = Metrics.counter("storage.load.items");
+    static final Counter RECORDS_SAVED = Metrics.counter("storage.save.journal_records");
+    static final Counter SNAPSHOTS_WRITTEN = Metrics.counter("storage.save.snapshots");
+    static final Counter MALFORMED_LINES = Metrics.counter("storage.load.malformed_lines");
 
-public class Storage {
     private final Path dataFile;
+    private final Path journalFile;
+    private final Path sealedJournalFile;
+    private final Object snapshotLock = new Object();
+    private final ExecutorService compactor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "storage-compactor");
+        t.setDaemon(true);
+        return t;
+    });
+    private Journal journal;
+    // true once a load or save has given the journal something to build on
+    private boolean baseline;
+    // items in the snapshot as last loaded or written, for the compaction threshold
+    private int snapshotItems;
+    private boolean compactionQueued;
+    private boolean autoCompaction = true;
 
     public Storage(Path dataFile) {
         this.dataFile = dataFile;
+        this.journalFile = dataFile.resolveSibling(dataFile.getFileName() + ".journal");
+        this.sealedJournalFile = dataFile.resolveSibling(dataFile.getFileName() + ".journal.sealed");
+    }
+
+    @Override
+    public String location() {
+        return dataFile.toString();
+    }
+
+    public Path dataFile() {
+        return dataFile;
+    }
+
+    @Override
+    public Path historyDirectory() {
+        return ServiceHistory.directoryFor(dataFile);
+    }
+
+    // Lock order is always this -> snapshotLock. Saves only need this; the slow part of
+    // compaction only holds snapshotLock, so journal appends never wait for it.
+    @Override
+    public synchronized List<MaintenanceItem> load() throws Exception {
+        long started = System.nanoTime();
+        synchronized (snapshotLock) {
+            List<MaintenanceItem> out = readMerged();
+            baseline = true;
+            snapshotItems = out.size();
+            ITEMS_LOADED.add(out.size());
+            LOAD_TIME.recordSince(started);
+            return out;
+        }
+    }
+
+    // Snapshot plus both journals; callers hold snapshotLock.
+    private List<MaintenanceItem> readMerged() throws Exception {
+        List<MaintenanceItem> out = readSnapshot();
+        if (!Journal.isEmpty(sealedJournalFile) || !Journal.isEmpty(journalFile)) {
+            Map<String, MaintenanceItem> byId = new LinkedHashMap<>();
+            for (MaintenanceItem it : out) byId.put(it.getId(), it);
+            Journal.replay(sealedJournalFile, byId);
+            Journal.replay(journalFile, byId);
+            out = new ArrayList<>(byId.values());
+        }
+        return out;
+    }
+
+    /**
+     * Streams a CSV snapshot line by line when no journal has to be applied on top of it;
+     * otherwise the merged list is loaded first. Does not change the save baseline.
+     */
+    @Override
+    public void forEach(Consumer<? super MaintenanceItem> action) throws Exception {
+        long started = System.nanoTime();
+        synchronized (snapshotLock) {
+            stream(action);
+        }
+        SCAN_TIME.recordSince(started);
+    }
+
+    /** Streams like {@link #forEach} and sets the save baseline like {@link #load}. */
+    @Override
+    public synchronized void loadEach(Consumer<? super MaintenanceItem> action) throws Exception {
+        long started = System.nanoTime();
+        synchronized (snapshotLock) {
+            int count = stream(action);
+            baseline = true;
+            snapshotItems = count;
+            ITEMS_LOADED.add(count);
+            LOAD_TIME.recordSince(started);
+        }
     }
 
-    public List<MaintenanceItem> load() throws Exception {
+    // Callers hold snapshotLock; returns how many items were handed over.
+    private int stream(Consumer<? super MaintenanceItem> action) throws Exception {
+        boolean journaled = !Journal.isEmpty(sealedJournalFile) || !Journal.isEmpty(journalFile);
+        if (journaled || !Files.exists(dataFile) || BinarySnapshot.isSnapshot(dataFile)) {
+            List<MaintenanceItem> merged = readMerged();
+            for (MaintenanceItem it : merged) action.accept(it);
+            return merged.size();
+        }
+        int[] count = new int[1];
+        try (BufferedReader r = reader(dataFile)) {
+            readCsv(r, it -> {
+                count[0]++;
+                action.accept(it);
+            });
+        }
+        return count[0];
+    }
+
+    public List<MaintenanceItem> loadMapped() throws Exception {
+        if (!Files.exists(dataFile)) return load();
+        return new MappedCsvLoader(dataFile).load();
+    }
+
+    private List<MaintenanceItem> readSnapshot() throws Exception {
         List<MaintenanceItem> out = new ArrayList<>();
         File f = dataFile.toFile();
         if (!f.exists()) {
@@ -28,36 +165,253 @@ public class Storage {
             f.createNewFile();
             return out;
         }
+        if (BinarySnapshot.isSnapshot(dataFile)) {
+            return BinarySnapshot.read(dataFile);
+        }
+        if (f.length() >= MAPPED_LOAD_THRESHOLD) {
+            return loadMapped();
+        }
 
-        try (BufferedReader r = new BufferedReader(new FileReader(f))) {
-            String line;
-            while ((line = r.readLine()) != null) {
-                line = line.trim();
-                if (line.isEmpty()) continue;
-                try {
-                    MaintenanceItem it = MaintenanceItem.fromCsvLine(line);
-                    if (it != null) out.add(it);
-                } catch (Exception ex) {
-                    // skip malformed
-                    System.err.println("Skipping malformed line: " + line);
-                }
-            }
+        try (BufferedReader r = reader(dataFile)) {
+            readCsv(r, out::add);
         }
         return out;
     }
 
-    public void save(List<MaintenanceItem> items) throws Exception {
-        File f = dataFile.toFile();
-        if (!f.exists()) {
-            Files.createDirectories(dataFile.getParent());
-            f.createNewFile();
+    // Like MappedCsvLoader, bytes that are not valid UTF-8 decode to U+FFFD rather than failing.
+    private static BufferedReader reader(Path file) throws IOException {
+        return new BufferedReader(new InputStreamReader(Files.newInputStream(file), StandardCharsets.UTF_8));
+    }
+
+    // The first non-blank line says which escaping the file uses; see MaintenanceItem.CSV_HEADER.
+    private static void readCsv(BufferedReader r, Consumer<? super MaintenanceItem> action) throws Exception {
+        ValuePool pool = ValuePool.shared();
+        Boolean legacy = null;
+        String line;
+        while ((line = r.readLine()) != null) {
+            line = line.trim();
+            if (line.isEmpty()) continue;
+            if (legacy == null) {
+                legacy = !MaintenanceItem.isCsvHeader(line);
+                if (!legacy) continue;
+            }
+            MaintenanceItem it;
+            try {
+                it = MaintenanceItem.fromCsvLine(line, pool, legacy);
+            } catch (Exception ex) {
+                // skip malformed
+                MALFORMED_LINES.increment();
+                System.err.println("Skipping malformed line: " + line);
+                continue;
+            }
+            if (it != null) action.accept(it);
         }
-        try (BufferedWriter w = new BufferedWriter(new FileWriter(f, false))) {
+    }
+
+    /**
+     * Persists {@code items} as a full snapshot. Callers that know what changed since the last
+     * load or save use {@link #saveChanges} instead, which only appends to the journal.
+     */
+    @Override
+    public synchronized void save(List<MaintenanceItem> items) throws Exception {
+        long started = System.nanoTime();
+        saveSnapshot(items);
+        SAVE_TIME.recordSince(started);
+    }
+
+    /**
+     * Journals the given changes as they are, without scanning the full list or keeping a copy
+     * of what is persisted: the caller's dirty tracking decides what changed. Nothing is
+     * written when both are empty. The fsync runs after this storage's lock is released, so
+     * concurrent savers share it (see {@link Journal#sync}).
+     */
+    @Override
+    public void saveChanges(List<MaintenanceItem> items, Collection<MaintenanceItem> changed,
+                            Collection<String> deleted) throws Exception {
+        long started = System.nanoTime();
+        synchronized (this) {
+            if (!baseline) {
+                saveSnapshot(items);
+                SAVE_TIME.recordSince(started);
+                return;
+            }
+        }
+        if (changed.isEmpty() && deleted.isEmpty()) return;
+        // Adds and updates are both journaled as U: replay treats them alike, and telling them
+        // apart would mean remembering every persisted id.
+        List<String> records = new ArrayList<>(changed.size() + deleted.size());
+        for (MaintenanceItem it : changed) records.add(Journal.record(Journal.UPDATE, it));
+        for (String id : deleted) records.add(Journal.record(Journal.DELETE, id));
+        appendRecords(records);
+        SAVE_TIME.recordSince(started);
+    }
+
+    /**
+     * Appends journal records through this storage's one {@link Journal}, so they follow its
+     * rotations and count towards compaction. The append holds this storage's lock, keeping
+     * records in call order; the fsync runs after it is released.
+     */
+    void appendRecords(List<String> records) throws IOException {
+        if (records.isEmpty()) return;
+        Journal j;
+        long seq;
+        synchronized (this) {
+            j = journal();
+            seq = j.append(records);
+            RECORDS_SAVED.add(records.size());
+            if (j.records() >= Math.max(COMPACT_MIN_RECORDS, snapshotItems / 10)) {
+                scheduleCompaction();
+            }
+        }
+        j.sync(seq);
+    }
+
+    /** Work on the data file and journals, see {@link #holdFiles}. */
+    interface FileWork {
+        void run() throws IOException;
+    }
+
+    /**
+     * Runs {@code work} while no save, journal rotation or compaction can replace the data file
+     * or move records between the journals, so it reads one consistent state of them. Takes the
+     * locks in the same order as {@link #saveSnapshot}.
+     */
+    synchronized void holdFiles(FileWork work) throws IOException {
+        synchronized (snapshotLock) {
+            work.run();
+        }
+    }
+
+    @Override
+    public void rewrite(List<MaintenanceItem> items) throws Exception {
+        saveSnapshot(items);
+    }
+
+    /** Rewrites the whole snapshot atomically and drops the journal it supersedes. */
+    public synchronized void saveSnapshot(List<MaintenanceItem> items) throws Exception {
+        synchronized (snapshotLock) {
+            writeSnapshotFile(items);
+            if (journal != null) journal.truncate();
+            else Files.deleteIfExists(journalFile);
+            Files.deleteIfExists(sealedJournalFile);
+            baseline = true;
+            snapshotItems = items.size();
+            SNAPSHOTS_WRITTEN.increment();
+        }
+    }
+
+    /** Folds the journal into a new snapshot; runs on the compactor thread. */
+    public void compact() throws Exception {
+        synchronized (this) {
+            compactionQueued = false;
+            if (Journal.isEmpty(sealedJournalFile)) {
+                if (Journal.isEmpty(journalFile)) return;
+                journal().rotate(sealedJournalFile);
+            }
+        }
+        int written;
+        synchronized (snapshotLock) {
+            // a full snapshot save may have superseded the sealed journal meanwhile
+            if (Journal.isEmpty(sealedJournalFile)) return;
+            Map<String, MaintenanceItem> byId = new LinkedHashMap<>();
+            for (MaintenanceItem it : readSnapshot()) byId.put(it.getId(), it);
+            Journal.replay(sealedJournalFile, byId);
+            writeSnapshotFile(byId.values());
+            Files.deleteIfExists(sealedJournalFile);
+            written = byId.size();
+        }
+        synchronized (this) {
+            snapshotItems = written;
+        }
+    }
+
+    /**
+     * Whether a save that grows the journal past the threshold queues a background compaction;
+     * on by default. With it off, {@link #compact()} only runs when called.
+     */
+    public synchronized void setAutoCompaction(boolean enabled) {
+        autoCompaction = enabled;
+    }
+
+    /**
+     * Lets a queued or running compaction finish, stops the compactor thread and closes the
+     * journal. Saves after this reopen the journal but no longer compact in the background.
+     */
+    @Override
+    public void close() throws IOException {
+        compactor.shutdown();
+        try {
+            compactor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            if (journal != null) {
+                journal.close();
+                journal = null;
+            }
+        }
+    }
+
+    private synchronized void scheduleCompaction() {
+        if (compactionQueued || !autoCompaction || compactor.isShutdown()) return;
+        compactionQueued = true;
+        compactor.execute(() -> {
+            try {
+                compact();
+            } catch (Exception ex) {
+                System.err.println("Journal compaction failed: " + ex.getMessage());
+            }
+        });
+    }
+
+    private Journal journal() throws IOException {
+        if (journal == null) {
+            Files.createDirectories(dataFile.toAbsolutePath().getParent());
+            journal = new Journal(journalFile);
+        }
+        return journal;
+    }
+
+    /**
+     * Copies the items in {@code source} (CSV or binary) to {@code target}. The target is
+     * written as a binary snapshot when its name ends in {@code .bin}, as CSV otherwise.
+     */
+    public static int convert(Path source, Path target) throws Exception {
+        List<MaintenanceItem> items = new Storage(source).load();
+        new Storage(target).saveSnapshot(items);
+        return items.size();
+    }
+
+    private boolean isBinary() throws Exception {
+        return dataFile.getFileName().toString().endsWith(BINARY_SUFFIX) || BinarySnapshot.isSnapshot(dataFile);
+    }
+
+    private void writeSnapshotFile(Collection<MaintenanceItem> items) throws Exception {
+        if (isBinary()) {
+            BinarySnapshot.write(dataFile, items);
+        } else {
+            writeAtomically(dataFile, items);
+        }
+    }
+
+    // Writes to a temporary file, syncs it and renames it over the target, so a crash
+    // leaves either the old or the new snapshot but never a partial one.
+    private static void writeAtomically(Path target, Collection<MaintenanceItem> items) throws Exception {
+        Files.createDirectories(target.toAbsolutePath().getParent());
+        Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(tmp.toFile(), false);
+             BufferedWriter w = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8))) {
+            w.write(MaintenanceItem.CSV_HEADER);
+            w.newLine();
             for (MaintenanceItem it : items) {
                 w.write(it.toCsvLine());
                 w.newLine();
             }
+            w.flush();
+            out.getFD().sync();
         }
+        Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
     }
 
     public static Path defaultPath() {
@@ -0,0 +1,23 @@
+package com.example.maintenance.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/** A monotonically increasing count; cheap to update from many threads. */
+public final class Counter {
+    private final LongAdder value = new LongAdder();
+
+    Counter() {
+    }
+
+    public void increment() {
+        value.increment();
+    }
+
+    public void add(long n) {
+        value.add(n);
+    }
+
+    public long get() {
+        return value.sum();
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.maintenance.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.LongSupplier;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Process-wide registry of named counters, latency histograms and gauges. Instrumented classes
+ * look their metrics up once into static fields and update them directly, so the registry is
+ * not on the hot path. Names are dotted, e.g. {@code storage.load}.
+ *
+ * <p>Everything registered is readable as one flat map from {@link #values()}, printed by
+ * {@link #dump()} and, after {@link #registerJmx()}, visible as the attributes of the
+ * {@value #OBJECT_NAME} MBean.
+ */
+public final class Metrics {
+    public static final String OBJECT_NAME = "com.example.maintenance:type=Metrics";
+
+    private static final Map<String, Counter> COUNTERS = new ConcurrentSkipListMap<>();
+    private static final Map<String, LatencyHistogram> HISTOGRAMS = new ConcurrentSkipListMap<>();
+    private static final Map<String, LongSupplier> GAUGES = new ConcurrentSkipListMap<>();
+    private static boolean jmxRegistered;
+
+    static {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        gauge("jvm.heap.used.bytes", () -> memory.getHeapMemoryUsage().getUsed());
+        gauge("jvm.heap.committed.bytes", () -> memory.getHeapMemoryUsage().getCommitted());
+    }
+
+    private Metrics() {
+    }
+
+    public static Counter counter(String name) {
+        return COUNTERS.computeIfAbsent(name, n -> new Counter());
+    }
+
+    public static LatencyHistogram histogram(String name) {
+        return HISTOGRAMS.computeIfAbsent(name, n -> new LatencyHistogram());
+    }
+
+    /** Registers a gauge read on demand, replacing any gauge of the same name. */
+    public static void gauge(String name, LongSupplier value) {
+        GAUGES.put(name, value);
+    }
+
+    /**
+     * Current values by attribute name: counters and gauges as-is; for each histogram its
+     * count, mean, p50, p90, p99, p99.9 and max, with latencies in microseconds.
+     */
+    public static Map<String, Number> values() {
+        Map<String, Number> out = new LinkedHashMap<>();
+        COUNTERS.forEach((name, c) -> out.put(name, c.get()));
+        GAUGES.forEach((name, g) -> out.put(name, g.getAsLong()));
+        HISTOGRAMS.forEach((name, h) -> {
+            LatencyHistogram.Snapshot s = h.snapshot();
+            out.put(name + ".count", s.count());
+            out.put(name + ".mean_us", s.mean() / 1000.0);
+            out.put(name + ".p50_us", micros(s.percentile(50)));
+            out.put(name + ".p90_us", micros(s.percentile(90)));
+            out.put(name + ".p99_us", micros(s.percentile(99)));
+            out.put(name + ".p999_us", micros(s.percentile(99.9)));
+            out.put(name + ".max_us", micros(s.max()));
+        });
+        return out;
+    }
+
+    /** Every metric as text, one line per counter, gauge and histogram. */
+    public static String dump() {
+        StringBuilder out = new StringBuilder();
+        for (Map.Entry<String, Counter> e : COUNTERS.entrySet()) {
+            out.append(String.format("counter    %-32s %d%n", e.getKey(), e.getValue().get()));
+        }
+        for (Map.Entry<String, LongSupplier> e : GAUGES.entrySet()) {
+            out.append(String.format("gauge      %-32s %d%n", e.getKey(), e.getValue().getAsLong()));
+        }
+        for (Map.Entry<String, LatencyHistogram> e : HISTOGRAMS.entrySet()) {
+            LatencyHistogram.Snapshot s = e.getValue().snapshot();
+            out.append(String.format("histogram  %-32s count=%d mean=%s p50=%s p90=%s p99=%s p99.9=%s max=%s%n",
+                    e.getKey(), s.count(), duration((long) s.mean()), duration(s.percentile(50)), duration(s.percentile(90)),
+                    duration(s.percentile(99)), duration(s.percentile(99.9)), duration(s.max())));
+        }
+        return out.toString();
+    }
+
+    /** Registers the {@value #OBJECT_NAME} MBean with the platform MBean server, once. */
+    public static synchronized void registerJmx() {
+        if (jmxRegistered) return;
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            server.registerMBean(new MetricsMBean(), new ObjectName(OBJECT_NAME));
+            jmxRegistered = true;
+        } catch (JMException ex) {
+            System.err.println("Failed to register metrics MBean: " + ex.getMessage());
+        }
+    }
+
+    private static String duration(long nanos) {
+        if (nanos < 1_000_000) return String.format("%.1fus", nanos / 1e3);
+        if (nanos < 1_000_000_000) return String.format("%.1fms", nanos / 1e6);
+        return String.format("%.2fs", nanos / 1e9);
+    }
+
+    private static double micros(long nanos) {
+        return nanos / 1000.0;
+    }
+}
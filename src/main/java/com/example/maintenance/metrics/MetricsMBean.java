@@ -0,0 +1,59 @@
+package com.example.maintenance.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+
+// Read-only view of Metrics.values(); the attribute set grows as metrics are registered.
+final class MetricsMBean implements DynamicMBean {
+
+    @Override
+    public Object getAttribute(String name) throws AttributeNotFoundException {
+        Number v = Metrics.values().get(name);
+        if (v == null) throw new AttributeNotFoundException(name);
+        return v;
+    }
+
+    @Override
+    public AttributeList getAttributes(String[] names) {
+        Map<String, Number> values = Metrics.values();
+        AttributeList out = new AttributeList();
+        for (String name : names) {
+            Number v = values.get(name);
+            if (v != null) out.add(new Attribute(name, v));
+        }
+        return out;
+    }
+
+    @Override
+    public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+        throw new AttributeNotFoundException("Metrics are read-only: " + attribute.getName());
+    }
+
+    @Override
+    public AttributeList setAttributes(AttributeList attributes) {
+        return new AttributeList();
+    }
+
+    @Override
+    public Object invoke(String action, Object[] params, String[] signature) {
+        throw new UnsupportedOperationException(action);
+    }
+
+    @Override
+    public MBeanInfo getMBeanInfo() {
+        List<MBeanAttributeInfo> attrs = new ArrayList<>();
+        for (Map.Entry<String, Number> e : Metrics.values().entrySet()) {
+            attrs.add(new MBeanAttributeInfo(e.getKey(), e.getValue().getClass().getName(), e.getKey(), true, false, false));
+        }
+        return new MBeanInfo(Metrics.class.getName(), "Maintenance tracker metrics",
+                attrs.toArray(new MBeanAttributeInfo[0]), null, new MBeanOperationInfo[0], null);
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.maintenance.model;
+
+import java.time.LocalDate;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Estimated heap retained by a set of items, counted twice: as they are, where items that
+ * share a name, vehicle or date object pay for it once, and as if every item held its own
+ * copies. Sizes assume a 64-bit JVM with compressed references and compact strings (12-byte
+ * headers, 8-byte alignment), so they are estimates of the layout, not measurements.
+ */
+public class ItemFootprint {
+    private static final long ITEM_BYTES = align(12 + 4 * 4 + 4); // id, name, date, vehicle, interval
+    private static final long DATE_BYTES = align(12 + 4 + 2 + 2);
+
+    private final Map<Object, Boolean> seen = new IdentityHashMap<>();
+    private long items;
+    private long shared;
+    private long unshared;
+
+    /** An empty tally; items are counted with {@link #add}. */
+    public ItemFootprint() {
+    }
+
+    public void add(MaintenanceItem it) {
+        items++;
+        // ids are unique, so they are never shared and are not tracked
+        long own = ITEM_BYTES + (it.getId() == null ? 0 : stringBytes(it.getId()));
+        shared += own;
+        unshared += own;
+        count(it.getName());
+        count(it.getVehicle());
+        LocalDate d = it.getLastServiceDate();
+        if (d != null) {
+            unshared += DATE_BYTES;
+            if (seen.put(d, Boolean.TRUE) == null) shared += DATE_BYTES;
+        }
+    }
+
+    private void count(String s) {
+        if (s == null) return;
+        long bytes = stringBytes(s);
+        unshared += bytes;
+        if (seen.put(s, Boolean.TRUE) == null) shared += bytes;
+    }
+
+    public long getItems() {
+        return items;
+    }
+
+    /** Objects counted once each: what the items actually retain. */
+    public long getSharedBytes() {
+        return shared;
+    }
+
+    /** The same items with no name, vehicle or date shared between them. */
+    public long getUnsharedBytes() {
+        return unshared;
+    }
+
+    /** Distinct String and LocalDate objects seen. */
+    public int getDistinctValues() {
+        return seen.size();
+    }
+
+    static long stringBytes(String s) {
+        boolean latin1 = true;
+        for (int i = 0; i < s.length() && latin1; i++) latin1 = s.charAt(i) <= 0xff;
+        return align(12 + 4 + 4 + 1 + 1) + align(16 + (long) s.length() * (latin1 ? 1 : 2));
+    }
+
+    private static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+}
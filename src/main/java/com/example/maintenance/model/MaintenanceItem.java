@@ -9,14 +9,28 @@ public class MaintenanceItem {
     private String name;
     private LocalDate lastServiceDate;
     private int intervalDays; // service interval in days
+    private String vehicle; // the asset serviced, e.g. "Bus 12"
 
     private static final DateTimeFormatter F = DateTimeFormatter.ISO_LOCAL_DATE;
 
-    public MaintenanceItem(String id, String name, LocalDate lastServiceDate, int intervalDays) {
+    /**
+     * First line of item files written since backslashes are escaped as {@code \\}. Files without
+     * it predate that and are read with their original rule ({@code legacy}): {@code \,} is a
+     * comma and any other backslash is literal. It has no comma, so older readers skip it.
+     */
+    public static final String CSV_HEADER = "#items v2";
+
+    public MaintenanceItem(String id, String name, LocalDate lastServiceDate, int intervalDays, String vehicle) {
         this.id = id;
         this.name = name;
         this.lastServiceDate = lastServiceDate;
         this.intervalDays = intervalDays;
+        this.vehicle = vehicle;
+    }
+
+    /** An item whose vehicle is derived from its name; see {@link #vehicleOf(String)}. */
+    public MaintenanceItem(String id, String name, LocalDate lastServiceDate, int intervalDays) {
+        this(id, name, lastServiceDate, intervalDays, ValuePool.shared().string(vehicleOf(name)));
     }
 
     public MaintenanceItem(String name, LocalDate lastServiceDate, int intervalDays) {
@@ -51,31 +65,153 @@ public class MaintenanceItem {
         this.intervalDays = intervalDays;
     }
 
+    public String getVehicle() {
+        return vehicle;
+    }
+
+    public void setVehicle(String vehicle) {
+        this.vehicle = vehicle;
+    }
+
+    /** The kind of work, e.g. "Wheel Alignment"; see {@link #taskTypeOf(String, String)}. */
+    public String getTaskType() {
+        return taskTypeOf(getName(), getVehicle());
+    }
+
     public String toCsvLine() {
-        return String.format("%s,%s,%s,%d", id, escape(name), lastServiceDate.format(F), intervalDays);
+        return String.format("%s,%s,%s,%d,%s", getId(), escape(getName()), getLastServiceDate().format(F), getIntervalDays(),
+                getVehicle() == null ? "" : escape(getVehicle()));
     }
 
     public static MaintenanceItem fromCsvLine(String line) {
-        // id,name,lastDate,interval
-        String[] parts = line.split(",", 4);
-        if (parts.length < 4) return null;
+        return fromCsvLine(line, ValuePool.shared(), false);
+    }
+
+    public static MaintenanceItem fromCsvLine(String line, ValuePool pool) {
+        return fromCsvLine(line, pool, false);
+    }
+
+    /**
+     * Parses a CSV line, taking the name, vehicle and date from {@code pool}; {@code legacy}
+     * lines come from a file without {@link #CSV_HEADER}.
+     */
+    public static MaintenanceItem fromCsvLine(String line, ValuePool pool, boolean legacy) {
+        // id,name,lastDate,interval[,vehicle]
+        String[] parts = splitCsvLine(line, legacy);
+        if (parts == null) return null;
         String id = parts[0];
-        String name = unescape(parts[1]);
-        LocalDate date = LocalDate.parse(parts[2], F);
+        String name = pool.string(parts[1]);
+        LocalDate date = pool.date(parts[2]);
         int interval = Integer.parseInt(parts[3]);
-        return new MaintenanceItem(id, name, date, interval);
+        return new MaintenanceItem(id, name, date, interval, pool.string(parts[4] == null ? vehicleOf(name) : parts[4]));
+    }
+
+    /**
+     * Splits a CSV line into id, unescaped name, date, interval text and unescaped vehicle, or
+     * returns null if it has fewer than four fields. Commas escaped as {@code \,} inside the
+     * name or vehicle do not split. The vehicle is null for rows written before it existed (or
+     * left empty), which readers migrate by deriving it from the name.
+     */
+    public static String[] splitCsvLine(String line) {
+        return splitCsvLine(line, false);
+    }
+
+    /** As {@link #splitCsvLine(String)}, with the escaping of files without {@link #CSV_HEADER} if {@code legacy}. */
+    public static String[] splitCsvLine(String line, boolean legacy) {
+        int c1 = line.indexOf(',');
+        if (c1 < 0) return null;
+        int c2 = nameEnd(line, c1 + 1, legacy);
+        if (c2 < 0) return null;
+        int c3 = line.indexOf(',', c2 + 1);
+        if (c3 < 0) return null;
+        int c4 = line.indexOf(',', c3 + 1);
+        String vehicle = c4 < 0 || c4 == line.length() - 1 ? null : unescape(line.substring(c4 + 1), legacy);
+        return new String[] {line.substring(0, c1), unescape(line.substring(c1 + 1, c2), legacy),
+                line.substring(c2 + 1, c3), line.substring(c3 + 1, c4 < 0 ? line.length() : c4), vehicle};
+    }
+
+    /**
+     * Derives the vehicle from a name of the form {@code <kind> <task> [number]}, as in the
+     * shipped data: "Bus Wheel Alignment 12" is vehicle "Bus 12", "Van Oil Change" is "Van".
+     */
+    public static String vehicleOf(String name) {
+        if (name == null) return null;
+        String s = name.trim();
+        if (s.isEmpty()) return "";
+        int firstSpace = s.indexOf(' ');
+        if (firstSpace < 0) return s;
+        String kind = s.substring(0, firstSpace);
+        int lastSpace = s.lastIndexOf(' ');
+        String last = s.substring(lastSpace + 1);
+        return lastSpace > firstSpace && isNumber(last) ? kind + " " + last : kind;
+    }
+
+    /**
+     * The name without the vehicle: a trailing number is dropped, and so is the first word when
+     * it is the vehicle's kind. "Bus Wheel Alignment 12" for vehicle "Bus 12" is "Wheel Alignment".
+     */
+    public static String taskTypeOf(String name, String vehicle) {
+        if (name == null) return null;
+        String s = name.trim();
+        int lastSpace = s.lastIndexOf(' ');
+        if (lastSpace > 0 && isNumber(s.substring(lastSpace + 1))) s = s.substring(0, lastSpace).trim();
+        int firstSpace = s.indexOf(' ');
+        if (firstSpace > 0 && vehicle != null) {
+            String kind = s.substring(0, firstSpace);
+            if (vehicle.regionMatches(true, 0, kind, 0, kind.length())
+                    && (vehicle.length() == kind.length() || vehicle.charAt(kind.length()) == ' ')) {
+                s = s.substring(firstSpace + 1).trim();
+            }
+        }
+        return s;
+    }
+
+    private static boolean isNumber(String s) {
+        if (s.isEmpty()) return false;
+        for (int i = 0; i < s.length(); i++) {
+            if (s.charAt(i) < '0' || s.charAt(i) > '9') return false;
+        }
+        return true;
+    }
+
+    // Index of the first unescaped comma at or after from, or -1.
+    private static int nameEnd(String line, int from, boolean legacy) {
+        for (int i = from; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '\\' && i + 1 < line.length() && (line.charAt(i + 1) == ',' || !legacy && line.charAt(i + 1) == '\\')) i++;
+            else if (c == ',') return i;
+        }
+        return -1;
+    }
+
+    /** Whether {@code line} is the {@link #CSV_HEADER} line, ignoring surrounding whitespace. */
+    public static boolean isCsvHeader(String line) {
+        return CSV_HEADER.equals(line.trim());
     }
 
     private static String escape(String s) {
-        return s.replace("\n", " ").replace(",", "\\,");
+        return s.replace("\\", "\\\\").replace("\n", " ").replace("\r", " ").replace(",", "\\,");
+    }
+
+    /** Reverses the name escaping: {@code \,} becomes a comma and {@code \\} a backslash. */
+    public static String unescape(String s) {
+        return unescape(s, false);
     }
 
-    private static String unescape(String s) {
-        return s.replace("\\,", ",");
+    /** As {@link #unescape(String)}; for {@code legacy} text only {@code \,} is an escape. */
+    public static String unescape(String s, boolean legacy) {
+        if (s.indexOf('\\') < 0) return s;
+        StringBuilder sb = new StringBuilder(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '\\' && i + 1 < s.length() && (s.charAt(i + 1) == ',' || !legacy && s.charAt(i + 1) == '\\')) c = s.charAt(++i);
+            sb.append(c);
+        }
+        return sb.toString();
     }
 
     @Override
     public String toString() {
-        return String.format("%s (id=%s) - last: %s, interval: %d days", name, id, lastServiceDate.format(F), intervalDays);
+        return String.format("%s (id=%s) - last: %s, interval: %d days", getName(), getId(), getLastServiceDate().format(F), getIntervalDays());
     }
 }
@@ -0,0 +1,50 @@
+package com.example.maintenance.model;
+
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * One service of one item, as kept in the service history: the date it was done and the
+ * interval the item had at the time.
+ */
+public final class ServiceEvent {
+    private final String itemId;
+    private final LocalDate date;
+    private final int intervalDays;
+
+    public ServiceEvent(String itemId, LocalDate date, int intervalDays) {
+        this.itemId = Objects.requireNonNull(itemId, "itemId");
+        this.date = Objects.requireNonNull(date, "date");
+        this.intervalDays = intervalDays;
+    }
+
+    public String getItemId() {
+        return itemId;
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public int getIntervalDays() {
+        return intervalDays;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof ServiceEvent)) return false;
+        ServiceEvent e = (ServiceEvent) o;
+        return intervalDays == e.intervalDays && itemId.equals(e.itemId) && date.equals(e.date);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(itemId, date, intervalDays);
+    }
+
+    @Override
+    public String toString() {
+        return itemId + " serviced " + date + " (interval " + intervalDays + " days)";
+    }
+}
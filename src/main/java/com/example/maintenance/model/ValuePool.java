@@ -0,0 +1,128 @@
+package com.example.maintenance.model;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Bounded interning pool for the values items repeat: names, vehicles and service dates. Each
+ * kind is a fixed table of four-slot buckets, and a value's hash picks its bucket; a lookup
+ * returns the equal value found there, or stores the new one in front, dropping the oldest entry
+ * when the bucket is full. Memory is fixed by the slot counts, and a collision only costs a duplicate object,
+ * never a wrong value.
+ *
+ * <p>Shared between threads without locking. The plain array writes are a data race, but a
+ * benign one: String and LocalDate are immutable with only final fields, so the JMM's final-field
+ * guarantee means a thread that reads a slot sees either null, a stale entry or a fully built
+ * value, never a partly constructed one. A racing lookup at worst misses and keeps its own copy,
+ * and since callers only ever get back a value equal to the one they passed, that costs memory,
+ * not correctness.
+ */
+public final class ValuePool {
+    public static final int DEFAULT_STRING_SLOTS = 1 << 16;
+    public static final int DEFAULT_DATE_SLOTS = 1 << 13;
+
+    private static final ValuePool SHARED = new ValuePool(DEFAULT_STRING_SLOTS, DEFAULT_DATE_SLOTS);
+    private static final DateTimeFormatter F = DateTimeFormatter.ISO_LOCAL_DATE;
+    private static final int WAYS = 4;
+
+    private final String[] strings;
+    private final LocalDate[] dates;
+
+    /** Slot counts are rounded up to a power of two of at least 4; 0 turns interning of that kind off. */
+    public ValuePool(int stringSlots, int dateSlots) {
+        strings = new String[slots(stringSlots)];
+        dates = new LocalDate[slots(dateSlots)];
+    }
+
+    /** The pool the load and add paths use. */
+    public static ValuePool shared() {
+        return SHARED;
+    }
+
+    public String string(String s) {
+        if (s == null || strings.length == 0) return s;
+        int i = bucket(s.hashCode(), strings.length);
+        for (int k = i; k < i + WAYS; k++) {
+            String e = strings[k];
+            if (e == null) break;
+            if (s.equals(e)) return e;
+        }
+        // shifting from the back never leaves a slot empty, so racing lookups at worst miss
+        for (int k = i + WAYS - 1; k > i; k--) strings[k] = strings[k - 1];
+        strings[i] = s;
+        return s;
+    }
+
+    public LocalDate date(LocalDate d) {
+        if (d == null || dates.length == 0) return d;
+        LocalDate found = find(d.getYear(), d.getMonthValue(), d.getDayOfMonth());
+        return found != null ? found : store(d);
+    }
+
+    public LocalDate date(int year, int month, int day) {
+        LocalDate found = dates.length == 0 ? null : find(year, month, day);
+        return found != null ? found : store(LocalDate.of(year, month, day));
+    }
+
+    /** Parses an ISO date; {@code yyyy-MM-dd} text is looked up without creating a LocalDate. */
+    public LocalDate date(CharSequence text) {
+        if (text.length() == 10 && text.charAt(4) == '-' && text.charAt(7) == '-') {
+            int y = digits(text, 0, 4);
+            int m = digits(text, 5, 7);
+            int d = digits(text, 8, 10);
+            if (y >= 0 && m >= 0 && d >= 0) return date(y, m, d);
+        }
+        return date(LocalDate.parse(text, F));
+    }
+
+    /** Number of strings and dates currently held. */
+    public int size() {
+        int n = 0;
+        for (String s : strings) if (s != null) n++;
+        for (LocalDate d : dates) if (d != null) n++;
+        return n;
+    }
+
+    private LocalDate find(int year, int month, int day) {
+        int i = bucket(key(year, month, day), dates.length);
+        for (int k = i; k < i + WAYS; k++) {
+            LocalDate d = dates[k];
+            if (d == null) break;
+            if (d.getDayOfMonth() == day && d.getMonthValue() == month && d.getYear() == year) return d;
+        }
+        return null;
+    }
+
+    private LocalDate store(LocalDate d) {
+        if (dates.length == 0) return d;
+        int i = bucket(key(d.getYear(), d.getMonthValue(), d.getDayOfMonth()), dates.length);
+        for (int k = i + WAYS - 1; k > i; k--) dates[k] = dates[k - 1];
+        dates[i] = d;
+        return d;
+    }
+
+    private static int key(int year, int month, int day) {
+        return (year << 9) | (month << 5) | day;
+    }
+
+    // First slot of the bucket; buckets are aligned, so they never overlap.
+    private static int bucket(int hash, int length) {
+        int h = hash * 0x9e3779b9;
+        return (h ^ (h >>> 16)) & (length - WAYS);
+    }
+
+    private static int slots(int requested) {
+        if (requested < 0) throw new IllegalArgumentException("slots must be >= 0: " + requested);
+        return requested == 0 ? 0 : Integer.highestOneBit(Math.max(WAYS, requested) * 2 - 1);
+    }
+
+    private static int digits(CharSequence s, int from, int to) {
+        int v = 0;
+        for (int i = from; i < to; i++) {
+            int c = s.charAt(i) - '0';
+            if (c < 0 || c > 9) return -1;
+            v = v * 10 + c;
+        }
+        return v;
+    }
+}
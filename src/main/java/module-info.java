@@ -1,7 +1,10 @@
 module oops_project_.java {
     requires java.base;
-    requires java.desktop;
+    requires transitive java.desktop;
     requires java.logging;
+    requires java.management;
+    requires transitive java.sql;
+    requires jdk.httpserver;
     
     exports com.example.maintenance;
     exports com.example.maintenance.model;
@@ -9,4 +12,6 @@ module oops_project_.java {
     exports com.example.maintenance.io;
     exports com.example.maintenance.cli;
     exports com.example.maintenance.gui;
+    exports com.example.maintenance.http;
+    exports com.example.maintenance.metrics;
 }
\ No newline at end of file
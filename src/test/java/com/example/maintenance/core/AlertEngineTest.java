@@ -0,0 +1,210 @@
+package com.example.maintenance.core;
+
+import com.example.maintenance.model.MaintenanceItem;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+// Drives the engine with checkNow() and a settable clock instead of waiting for midnight.
+class AlertEngineTest {
+    private static final LocalDate DAY = LocalDate.of(2024, 3, 1);
+
+    private final TestClock clock = new TestClock(DAY);
+    private final AlertEngine engine = new AlertEngine(clock);
+    private final List<List<AlertEngine.Transition>> published = Collections.synchronizedList(new ArrayList<>());
+
+    AlertEngineTest() {
+        engine.addListener(published::add);
+    }
+
+    @AfterEach
+    void closeEngine() {
+        engine.close();
+    }
+
+    // An item whose next service is {@code offset} days after DAY.
+    private static MaintenanceItem due(String id, int offset) {
+        return new MaintenanceItem(id, "Bus Oil Change", DAY.plusDays(offset - 30L), 30, "Bus");
+    }
+
+    private List<String> moveTo(LocalDate day) throws Exception {
+        // queued work, such as a baseline, reads the clock when it runs
+        engine.awaitIdle();
+        clock.set(day);
+        engine.checkNow();
+        return transitions();
+    }
+
+    // Every transition published since the last call, as "id FROM->TO".
+    private List<String> transitions() throws Exception {
+        engine.awaitIdle();
+        List<String> out = new ArrayList<>();
+        synchronized (published) {
+            for (List<AlertEngine.Transition> batch : published) {
+                assertFalse(batch.isEmpty(), "empty batch published");
+                for (AlertEngine.Transition t : batch) {
+                    out.add(t.getId() + " " + (t.getFrom() == null ? "NEW" : t.getFrom()) + "->" + t.getTo());
+                }
+            }
+            published.clear();
+        }
+        return out;
+    }
+
+    @Test
+    void nextDayMovesOnlyTheEdgesOfTheWindows() throws Exception {
+        engine.replaceAll(List.of(due("past", -1), due("today", 0), due("week", 7), due("eight", 8), due("nine", 9)));
+        assertEquals(List.of(), transitions());
+
+        // overdue window [DAY, DAY]; due-soon window [DAY+8, DAY+8]
+        List<String> out = moveTo(DAY.plusDays(1));
+
+        assertEquals(List.of("today DUE_SOON->OVERDUE", "eight OK->DUE_SOON"), out);
+    }
+
+    @Test
+    void severalDaysAtOnceCoverTheWholeSpan() throws Exception {
+        engine.replaceAll(List.of(due("d0", 0), due("d2", 2), due("d3", 3), due("d8", 8), due("d10", 10), due("d11", 11)));
+
+        // overdue window [DAY, DAY+2]; due-soon window [DAY+8, DAY+10]
+        List<String> out = moveTo(DAY.plusDays(3));
+        out.sort(null);
+
+        assertEquals(List.of("d0 DUE_SOON->OVERDUE", "d10 OK->DUE_SOON", "d2 DUE_SOON->OVERDUE", "d8 OK->DUE_SOON"), out);
+    }
+
+    @Test
+    void clockGoingBackRescansEverything() throws Exception {
+        engine.replaceAll(List.of(due("late", -1), due("soon", 7), due("ok", 30)));
+
+        List<String> out = moveTo(DAY.minusDays(1));
+        out.sort(null);
+
+        assertEquals(List.of("late OVERDUE->DUE_SOON", "soon DUE_SOON->OK"), out);
+    }
+
+    @Test
+    void longJumpRescansEverything() throws Exception {
+        engine.replaceAll(List.of(due("a", 100), due("b", 400), due("c", 500)));
+
+        List<String> out = moveTo(DAY.plusDays(400));
+        out.sort(null);
+
+        assertEquals(List.of("a OK->OVERDUE", "b OK->DUE_SOON"), out);
+    }
+
+    @Test
+    void sameDayAgainPublishesNothing() throws Exception {
+        engine.replaceAll(List.of(due("a", 0), due("b", 8)));
+        assertEquals(2, moveTo(DAY.plusDays(1)).size());
+
+        assertEquals(List.of(), moveTo(DAY.plusDays(1)));
+        assertEquals(List.of(), moveTo(DAY.plusDays(1)));
+    }
+
+    @Test
+    void changedItemsPublishOnlyRealTransitions() throws Exception {
+        engine.replaceAll(List.of(due("a", 30)));
+
+        engine.itemChanged(due("a", 20));
+        assertEquals(List.of(), transitions());
+        engine.itemChanged(due("a", 5));
+        assertEquals(List.of("a OK->DUE_SOON"), transitions());
+        // repeat reports of the same status are not news
+        engine.itemChanged(due("a", 3));
+        engine.itemChanged(due("a", 3));
+        assertEquals(List.of(), transitions());
+        engine.itemChanged(due("a", -2));
+        assertEquals(List.of("a DUE_SOON->OVERDUE"), transitions());
+    }
+
+    @Test
+    void newItemsPublishUnlessTheyAreOk() throws Exception {
+        engine.replaceAll(List.of());
+
+        engine.itemChanged(due("fine", 30));
+        engine.itemChanged(due("late", -1));
+        engine.itemChanged(due("soon", 1));
+
+        assertEquals(List.of("late NEW->OVERDUE", "soon NEW->DUE_SOON"), transitions());
+    }
+
+    @Test
+    void removedItemsAreForgotten() throws Exception {
+        engine.replaceAll(List.of(due("a", 0), due("b", 0)));
+
+        engine.itemRemoved("a");
+        assertEquals(List.of("b DUE_SOON->OVERDUE"), moveTo(DAY.plusDays(1)));
+
+        // back under the same id it is new again, and its old handle is reused safely
+        engine.itemChanged(due("a", -5));
+        engine.itemChanged(due("c", 2));
+        assertEquals(List.of("a NEW->OVERDUE", "c NEW->DUE_SOON"), transitions());
+        assertEquals(List.of("c DUE_SOON->OVERDUE"), moveTo(DAY.plusDays(3)));
+    }
+
+    @Test
+    void replaceAllSetsANewBaselineWithoutPublishing() throws Exception {
+        engine.replaceAll(List.of(due("a", 30)));
+        engine.replaceAll(List.of(due("a", -1), due("b", 2)));
+        assertEquals(List.of(), transitions());
+
+        engine.itemChanged(due("a", 30));
+        assertEquals(List.of("a OVERDUE->OK"), transitions());
+    }
+
+    @Test
+    void followedRepositoryFeedsTheEngine() throws Exception {
+        ItemRepository repo = ItemRepository.of(List.of(due("a", 30), due("b", -1)));
+        engine.follow(repo);
+        assertEquals(List.of(), transitions());
+
+        repo.put(due("a", 3));
+        repo.remove("b");
+        repo.put(due("c", -4));
+        assertEquals(List.of("a OK->DUE_SOON", "c NEW->OVERDUE"), transitions());
+
+        engine.close();
+        // detached on close, so a write does not hit the stopped executor
+        assertDoesNotThrow(() -> repo.put(due("a", -9)));
+    }
+
+    private static final class TestClock extends Clock {
+        private volatile Instant now;
+
+        TestClock(LocalDate day) {
+            set(day);
+        }
+
+        void set(LocalDate day) {
+            now = day.atTime(12, 0).toInstant(ZoneOffset.UTC);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.maintenance.core;
+
+import com.example.maintenance.model.MaintenanceItem;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ColumnarItemStoreTest {
+    private static MaintenanceItem item(String id, String name) {
+        return new MaintenanceItem(id, name, LocalDate.of(2024, 1, 1), 30, "Van");
+    }
+
+    private static ColumnarItemStore store(int n) {
+        List<MaintenanceItem> items = new ArrayList<>();
+        for (int i = 0; i < n; i++) items.add(item("veh-" + i, "Oil " + i));
+        return ColumnarItemStore.of(items);
+    }
+
+    private static List<String> ids(List<MaintenanceItem> items) {
+        List<String> out = new ArrayList<>();
+        for (MaintenanceItem it : items) out.add(it.getId());
+        return out;
+    }
+
+    @Test
+    void loadedStoreIsClean() {
+        ColumnarItemStore s = store(100);
+        assertFalse(s.hasChanges());
+        assertTrue(s.changedItems().isEmpty());
+    }
+
+    @Test
+    void changedItemsAreReportedInRowOrderOnce() {
+        ColumnarItemStore s = store(100);
+        s.setName(70, "Brakes");
+        s.setIntervalDays(5, 90);
+        s.setName(70, "Brakes again");
+        s.add(item("new-1", "Wipers"));
+
+        assertTrue(s.hasChanges());
+        assertEquals(List.of("veh-5", "veh-70", "new-1"), ids(s.changedItems()));
+        assertEquals("Brakes again", s.changedItems().get(1).getName());
+    }
+
+    @Test
+    void markCleanKeepsChangesMadeAfterThePoint() {
+        ColumnarItemStore s = store(10);
+        s.setName(1, "A");
+        long point = s.changeCount();
+        s.setName(2, "B");
+        s.remove(3);
+
+        s.markClean(point);
+
+        assertEquals(List.of("veh-2"), ids(s.changedItems()));
+        assertEquals(List.of("veh-3"), s.deletedIds());
+        s.markClean(s.changeCount());
+        assertFalse(s.hasChanges());
+    }
+
+    @Test
+    void removedRowsLeaveTheChangeList() {
+        ColumnarItemStore s = store(10);
+        s.setName(4, "Gone");
+        s.setName(8, "Kept");
+        s.remove(4);
+
+        assertEquals(List.of("veh-8"), ids(s.changedItems()));
+        assertEquals(List.of("veh-4"), s.deletedIds());
+
+        // the freed handle is reused by the next add
+        s.add(item("veh-99", "Fresh"));
+        assertEquals(List.of("veh-8", "veh-99"), ids(s.changedItems()));
+    }
+
+    @Test
+    void rowRangeCanBeMarkedClean() {
+        ColumnarItemStore s = ColumnarItemStore.of(List.of());
+        for (int i = 0; i < 5; i++) s.add(item("veh-" + i, "Oil"));
+        s.markClean(0, 2);
+        assertEquals(List.of("veh-3", "veh-4"), ids(s.changedItems()));
+    }
+
+    @Test
+    void snapshotTracksChangesIndependently() {
+        ColumnarItemStore s = store(10);
+        s.setName(1, "A");
+        ColumnarItemStore copy = s.snapshot();
+        s.setName(2, "B");
+        copy.markClean(copy.changeCount());
+
+        assertFalse(copy.hasChanges());
+        assertEquals(List.of("veh-1", "veh-2"), ids(s.changedItems()));
+    }
+
+    @Test
+    void setRejectsAnIdHeldByAnotherRow() {
+        ColumnarItemStore s = store(3);
+        assertThrows(IllegalArgumentException.class, () -> s.set(0, item("veh-2", "Dup")));
+        assertThrows(IllegalArgumentException.class, () -> s.asList().set(1, item("veh-0", "Dup")));
+        assertEquals("veh-0", s.id(0));
+        assertEquals(0, s.indexOf("veh-0"));
+        assertEquals(2, s.indexOf("veh-2"));
+        assertFalse(s.hasChanges());
+    }
+
+    @Test
+    void setMayKeepOrChangeTheRowsOwnId() {
+        ColumnarItemStore s = store(3);
+        s.set(1, item("veh-1", "Renamed"));
+        s.set(2, item("other", "Moved"));
+
+        assertEquals("Renamed", s.name(1));
+        assertEquals(2, s.indexOf("other"));
+        assertEquals(-1, s.indexOf("veh-2"));
+        assertEquals(List.of("veh-2"), s.deletedIds());
+    }
+}
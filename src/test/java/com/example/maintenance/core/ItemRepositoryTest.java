@@ -0,0 +1,181 @@
+package com.example.maintenance.core;
+
+import com.example.maintenance.model.MaintenanceItem;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ItemRepositoryTest {
+    private static MaintenanceItem item(String id, String name) {
+        return new MaintenanceItem(id, name, LocalDate.of(2024, 1, 1), 30, "Van");
+    }
+
+    private static ItemRepository repository(int n) {
+        List<MaintenanceItem> items = new ArrayList<>();
+        for (int i = 0; i < n; i++) items.add(item("veh-" + i, "Oil " + i));
+        return ItemRepository.of(items);
+    }
+
+    private static List<String> ids(ItemRepository.View view) {
+        List<String> out = new ArrayList<>();
+        for (int row = 0; row < view.size(); row++) out.add(view.id(row));
+        return out;
+    }
+
+    // An id whose write lock is not the one of {@code other}.
+    private static String onAnotherStripe(String other) {
+        for (int i = 0; ; i++) {
+            String id = "other-" + i;
+            if (ItemRepository.stripeOf(id) != ItemRepository.stripeOf(other)) return id;
+        }
+    }
+
+    @Test
+    void viewsAreSharedUntilAWriteAndNeverChangeAfterwards() {
+        ItemRepository repo = repository(3);
+        ItemRepository.View before = repo.view();
+        assertSame(before, repo.view());
+
+        repo.put(item("veh-1", "Brakes"));
+        repo.remove("veh-0");
+        repo.put(item("new", "Wipers"));
+
+        ItemRepository.View after = repo.view();
+        assertEquals(List.of("veh-1", "veh-2", "new"), ids(after));
+        assertEquals("Brakes", after.name(after.indexOf("veh-1")));
+        assertEquals(List.of("veh-0", "veh-1", "veh-2"), ids(before));
+        assertEquals("Oil 1", before.name(before.indexOf("veh-1")));
+        assertEquals(3, repo.writes());
+        assertEquals(after.writes(), repo.writes());
+    }
+
+    @Test
+    void entriesAreVersionedPerItem() {
+        ItemRepository repo = repository(2);
+        assertEquals(1, repo.get("veh-0").getVersion());
+
+        ItemRepository.Entry first = repo.put(item("veh-0", "Brakes"));
+        ItemRepository.Entry second = repo.put(item("veh-0", "Tyres"));
+
+        assertEquals(2, first.getVersion());
+        assertEquals(3, second.getVersion());
+        assertEquals("Brakes", first.getName());
+        assertSame(second, repo.get("veh-0"));
+        assertEquals(1, repo.get("veh-1").getVersion());
+        assertTrue(repo.remove("veh-1"));
+        assertFalse(repo.remove("veh-1"));
+        assertNull(repo.get("veh-1"));
+    }
+
+    @Test
+    void readersAndOtherItemsDoNotWaitForAHeldLock() throws Exception {
+        ItemRepository repo = repository(100);
+        String other = onAnotherStripe("veh-0");
+        CountDownLatch held = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService writer = Executors.newSingleThreadExecutor();
+        try {
+            // a writer in the middle of a slow save of veh-0
+            Future<?> save = writer.submit(() -> repo.withLock("veh-0", () -> {
+                repo.put(item("veh-0", "Saved"));
+                held.countDown();
+                release.await();
+                return null;
+            }));
+            assertTrue(held.await(10, TimeUnit.SECONDS));
+
+            assertEquals("Saved", repo.get("veh-0").getName());
+            ItemRepository.View view = repo.view();
+            assertEquals("Saved", view.name(view.indexOf("veh-0")));
+            repo.put(item(other, "Wipers"));
+            assertEquals(101, repo.view().size());
+
+            release.countDown();
+            save.get(10, TimeUnit.SECONDS);
+        } finally {
+            release.countDown();
+            writer.shutdownNow();
+        }
+    }
+
+    @Test
+    void concurrentWritersAllLand() throws Exception {
+        ItemRepository repo = repository(0);
+        int threads = 4;
+        int perThread = 2000;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> done = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int from = t * perThread;
+                done.add(pool.submit(() -> {
+                    for (int i = from; i < from + perThread; i++) {
+                        repo.put(item("veh-" + i, "Oil"));
+                        // scans racing the writes see a consistent store
+                        if (i % 500 == 0) repo.view().statusCounts(0);
+                    }
+                }));
+            }
+            for (Future<?> f : done) f.get(30, TimeUnit.SECONDS);
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(threads * perThread, repo.size());
+        assertEquals(threads * perThread, repo.view().size());
+        assertEquals(threads * perThread, repo.view().rowsDueBetween(Integer.MIN_VALUE, Integer.MAX_VALUE).length);
+    }
+
+    @Test
+    void listenerHearsOfExactlyTheWritesAfterItsBaseline() {
+        ItemRepository repo = repository(2);
+        repo.put(item("veh-0", "Before"));
+        List<String> heard = new ArrayList<>();
+        List<String> baseline = new ArrayList<>();
+        ItemRepository.Listener listener = new ItemRepository.Listener() {
+            @Override
+            public void changed(ItemRepository.Entry entry) {
+                heard.add(entry.getId() + "=" + entry.getName());
+            }
+
+            @Override
+            public void removed(String id) {
+                heard.add("-" + id);
+            }
+        };
+        repo.addListener(listener, current -> {
+            for (ItemRepository.Entry e : current) baseline.add(e.getId() + "=" + e.getName());
+        });
+
+        repo.put(item("veh-1", "After"));
+        repo.remove("veh-0");
+        repo.removeListener(listener);
+        repo.put(item("veh-1", "Unheard"));
+
+        baseline.sort(null);
+        assertEquals(List.of("veh-0=Before", "veh-1=Oil 1"), baseline);
+        assertEquals(List.of("veh-1=After", "-veh-0"), heard);
+    }
+
+    @Test
+    void lazyListTakesTheViewOnFirstRead() {
+        ItemRepository repo = repository(2);
+        List<MaintenanceItem> list = repo.asList();
+        repo.put(item("new", "Wipers"));
+
+        assertEquals(3, list.size());
+        assertEquals("Wipers", list.get(2).getName());
+    }
+}
@@ -0,0 +1,178 @@
+package com.example.maintenance.http;
+
+import com.example.maintenance.core.ItemRepository;
+import com.example.maintenance.io.ItemStorage;
+import com.example.maintenance.io.ServiceHistory;
+import com.example.maintenance.io.Storage;
+import com.example.maintenance.model.MaintenanceItem;
+import com.example.maintenance.model.ServiceEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ApiServerTest {
+    @TempDir
+    Path dir;
+
+    private ApiServer server;
+
+    @AfterEach
+    void stop() {
+        if (server != null) server.close();
+    }
+
+    private static List<MaintenanceItem> fleet() {
+        return List.of(
+                new MaintenanceItem("a", "Bus Oil Change 1", LocalDate.of(2024, 1, 1), 90, "Bus 1"),
+                new MaintenanceItem("b", "Van Brakes", LocalDate.of(2024, 2, 1), 180, "Van"));
+    }
+
+    private ItemRepository start(ItemStorage storage) throws Exception {
+        ItemRepository items = ItemRepository.of(storage.load());
+        server = new ApiServer(items, storage, new InetSocketAddress("127.0.0.1", 0));
+        server.start();
+        return items;
+    }
+
+    // Returns the status code followed by the body.
+    private String call(String method, String path) throws IOException {
+        URL url = new URL("http://127.0.0.1:" + server.address().getPort() + path);
+        HttpURLConnection c = (HttpURLConnection) url.openConnection();
+        c.setRequestMethod(method);
+        c.setReadTimeout(10_000);
+        int status = c.getResponseCode();
+        try (InputStream in = status < 400 ? c.getInputStream() : c.getErrorStream()) {
+            return status + " " + new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    @Test
+    void unknownPathsAreNotFound() throws Exception {
+        Path file = dir.resolve("items.csv");
+        new Storage(file).saveSnapshot(fleet());
+        start(new Storage(file));
+
+        assertTrue(call("GET", "/items/a").startsWith("200 "));
+        assertTrue(call("GET", "/itemsfoo").startsWith("404 "));
+        assertTrue(call("GET", "/fleetx").startsWith("404 "));
+        assertTrue(call("GET", "/items/a/nothing").startsWith("404 "));
+    }
+
+    @Test
+    void markServicedJournalsTheItemThenRecordsHistory() throws Exception {
+        Path file = dir.resolve("items.csv");
+        new Storage(file).saveSnapshot(fleet());
+        ItemRepository items = start(new Storage(file));
+
+        String response = call("POST", "/items/b/serviced?date=2024-06-01");
+
+        assertTrue(response.startsWith("200 "), response);
+        assertEquals(LocalDate.of(2024, 6, 1), items.get("b").getLastServiceDate());
+        assertTrue(call("GET", "/items/due?within=100000").contains("\"2024-06-01\""));
+        assertEquals(1, Files.readAllLines(file.resolveSibling("items.csv.journal")).size());
+        MaintenanceItem reloaded = new Storage(file).load().get(1);
+        assertEquals(LocalDate.of(2024, 6, 1), reloaded.getLastServiceDate());
+        server.close();
+        server = null;
+        try (ServiceHistory history = new ServiceHistory(ServiceHistory.directoryFor(file))) {
+            assertEquals(List.of(new ServiceEvent("b", LocalDate.of(2024, 6, 1), 180)), history.forItem("b"));
+        }
+    }
+
+    @Test
+    void unknownItemIsNotFound() throws Exception {
+        Path file = dir.resolve("items.csv");
+        new Storage(file).saveSnapshot(fleet());
+        start(new Storage(file));
+
+        assertTrue(call("POST", "/items/zzz/serviced").startsWith("404 "));
+        assertFalse(Files.exists(file.resolveSibling("items.csv.journal")));
+    }
+
+    @Test
+    void failedSaveRecordsNoHistoryAndKeepsTheOldDate() throws Exception {
+        Path file = dir.resolve("items.csv");
+        new Storage(file).saveSnapshot(fleet());
+        ItemRepository items = start(new FailingStorage(file));
+
+        assertTrue(call("POST", "/items/a/serviced?date=2024-06-01").startsWith("500 "));
+
+        assertEquals(LocalDate.of(2024, 1, 1), items.get("a").getLastServiceDate());
+        assertEquals(0, items.writes());
+        try (ServiceHistory history = new ServiceHistory(ServiceHistory.directoryFor(file))) {
+            assertTrue(history.forItem("a").isEmpty());
+        }
+    }
+
+    @Test
+    void queriesDoNotWaitForAnItemBeingWritten() throws Exception {
+        Path file = dir.resolve("items.csv");
+        new Storage(file).saveSnapshot(fleet());
+        ItemRepository items = start(new Storage(file));
+
+        // as if a mark-serviced or import batch for "a" were in the middle of its save
+        items.withLock("a", () -> {
+            assertTrue(call("GET", "/fleet").startsWith("200 "));
+            assertTrue(call("GET", "/forecast?days=30").startsWith("200 "));
+            assertTrue(call("GET", "/items").startsWith("200 "));
+            assertTrue(call("GET", "/items/a").startsWith("200 "));
+            return null;
+        });
+    }
+
+    // Loads from the file but fails every save, like a full disk.
+    private static final class FailingStorage implements ItemStorage {
+        private final Storage delegate;
+
+        FailingStorage(Path file) {
+            this.delegate = new Storage(file);
+        }
+
+        @Override
+        public List<MaintenanceItem> load() throws Exception {
+            return delegate.load();
+        }
+
+        @Override
+        public void save(List<MaintenanceItem> items) throws IOException {
+            throw new IOException("No space left on device");
+        }
+
+        @Override
+        public void saveChanges(List<MaintenanceItem> items, Collection<MaintenanceItem> changed,
+                                Collection<String> deleted) throws IOException {
+            throw new IOException("No space left on device");
+        }
+
+        @Override
+        public void rewrite(List<MaintenanceItem> items) throws IOException {
+            throw new IOException("No space left on device");
+        }
+
+        @Override
+        public Path historyDirectory() {
+            return delegate.historyDirectory();
+        }
+
+        @Override
+        public String location() {
+            return delegate.location();
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.maintenance.io;
+
+import com.example.maintenance.model.MaintenanceItem;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BinarySnapshotTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void roundTripsEveryField() throws Exception {
+        List<MaintenanceItem> items = new ArrayList<>();
+        items.add(new MaintenanceItem("a", "Bus Oil Change 12", LocalDate.of(2024, 2, 29), 90, "Bus 12"));
+        items.add(new MaintenanceItem("b", "Bus Oil Change 12", LocalDate.of(1999, 12, 31), 365, "Bus 12"));
+        items.add(new MaintenanceItem("c", "Gabelstapler Ölwechsel, フォーク", LocalDate.of(2030, 1, 1), 7, null));
+        // a name longer than the reader's initial scratch buffer
+        items.add(new MaintenanceItem("d", "x".repeat(1000), LocalDate.of(2024, 1, 1), 1, "Van"));
+        Path file = dir.resolve("items.bin");
+
+        BinarySnapshot.write(file, items);
+        List<MaintenanceItem> read = BinarySnapshot.read(file);
+
+        assertTrue(BinarySnapshot.isSnapshot(file));
+        assertEquals(items.size(), read.size());
+        for (int i = 0; i < items.size(); i++) {
+            MaintenanceItem want = items.get(i);
+            MaintenanceItem got = read.get(i);
+            assertEquals(want.getId(), got.getId());
+            assertEquals(want.getName(), got.getName());
+            assertEquals(want.getLastServiceDate(), got.getLastServiceDate());
+            assertEquals(want.getIntervalDays(), got.getIntervalDays());
+            assertEquals(want.getVehicle(), got.getVehicle());
+        }
+        assertNull(read.get(2).getVehicle());
+        // equal names come from one string table entry
+        assertSame(read.get(0).getName(), read.get(1).getName());
+    }
+
+    @Test
+    void readsVersionOneWithVehiclesDerivedFromNames() throws Exception {
+        Path file = dir.resolve("v1.bin");
+        writeV1(file, new String[] {"a", "Bus Wheel Alignment 12", "b", "Van Oil Change"},
+                new int[][] {{0, 1, 19700, 90}, {2, 3, 19701, 30}});
+
+        List<MaintenanceItem> read = BinarySnapshot.read(file);
+
+        assertEquals(2, read.size());
+        assertEquals("a", read.get(0).getId());
+        assertEquals("Bus Wheel Alignment 12", read.get(0).getName());
+        assertEquals(LocalDate.ofEpochDay(19700), read.get(0).getLastServiceDate());
+        assertEquals(90, read.get(0).getIntervalDays());
+        assertEquals("Bus 12", read.get(0).getVehicle());
+        assertEquals("Van", read.get(1).getVehicle());
+
+        // saving through Storage upgrades the file to the current version
+        Storage storage = new Storage(file);
+        storage.saveSnapshot(storage.load());
+        ByteBuffer header = ByteBuffer.wrap(Files.readAllBytes(file)).order(ByteOrder.LITTLE_ENDIAN);
+        assertEquals(BinarySnapshot.VERSION, header.getInt(4));
+        assertEquals("Bus 12", BinarySnapshot.read(file).get(0).getVehicle());
+    }
+
+    @Test
+    void rejectsUnknownVersions() throws Exception {
+        Path file = dir.resolve("v9.bin");
+        ByteBuffer b = ByteBuffer.allocate(BinarySnapshot.HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        b.putInt(BinarySnapshot.MAGIC).putInt(9).putInt(0).putInt(0);
+        Files.write(file, b.array());
+        assertThrows(IOException.class, () -> BinarySnapshot.read(file));
+    }
+
+    @Test
+    void csvFilesAreNotSnapshots() throws Exception {
+        Path file = dir.resolve("items.csv");
+        Files.writeString(file, "a,Van Oil Change,2024-01-01,30,Van\n");
+        assertFalse(BinarySnapshot.isSnapshot(file));
+        assertFalse(BinarySnapshot.isSnapshot(dir.resolve("missing.bin")));
+    }
+
+    private static void writeV1(Path file, String[] strings, int[][] records) throws IOException {
+        ByteBuffer b = ByteBuffer.allocate(4096).order(ByteOrder.LITTLE_ENDIAN);
+        b.putInt(BinarySnapshot.MAGIC).putInt(1).putInt(records.length).putInt(strings.length);
+        for (String s : strings) {
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            b.putInt(bytes.length).put(bytes);
+        }
+        for (int[] r : records) {
+            for (int v : r) b.putInt(v);
+        }
+        byte[] out = new byte[b.position()];
+        b.flip();
+        b.get(out);
+        Files.write(file, out);
+    }
+}
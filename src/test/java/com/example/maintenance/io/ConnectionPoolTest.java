@@ -0,0 +1,55 @@
+package com.example.maintenance.io;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConnectionPoolTest {
+    private final ConnectionPool pool = new ConnectionPool("jdbc:h2:mem:pool", null, null, 1, 100);
+
+    @AfterEach
+    void closePool() {
+        pool.close();
+    }
+
+    @Test
+    void reusesAReturnedConnection() throws Exception {
+        Connection first = pool.withConnection(c -> c);
+        Connection second = pool.withConnection(c -> c);
+        assertSame(first, second);
+        assertTrue(second.isValid(1));
+    }
+
+    @Test
+    void dropsAConnectionWhoseWorkFailed() throws Exception {
+        Connection[] failed = new Connection[1];
+        assertThrows(SQLException.class, () -> pool.withConnection(c -> {
+            failed[0] = c;
+            throw new SQLException("boom");
+        }));
+        assertTrue(failed[0].isClosed());
+        assertNotSame(failed[0], pool.withConnection(c -> c));
+    }
+
+    @Test
+    void borrowTimesOutWhenThePoolIsExhausted() {
+        SQLException ex = assertThrows(SQLException.class,
+                () -> pool.withConnection(outer -> pool.withConnection(inner -> inner)));
+        assertTrue(ex.getMessage().startsWith("Timed out"), ex.getMessage());
+    }
+
+    @Test
+    void closedPoolRefusesWork() throws Exception {
+        Connection c = pool.withConnection(x -> x);
+        pool.close();
+        assertTrue(c.isClosed());
+        assertThrows(SQLException.class, () -> pool.withConnection(x -> x));
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.maintenance.io;
+
+import com.example.maintenance.core.ColumnarItemStore;
+import com.example.maintenance.core.ItemRepository;
+import com.example.maintenance.model.MaintenanceItem;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CsvImporterTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void upsertsByIdAndQuotesRejects() throws Exception {
+        Path source = dir.resolve("dump.csv");
+        Files.writeString(source, String.join("\n",
+                "a,Oil,2024-01-01,30,Van",
+                "b,\"Quoted\", name,2024-13-01,30",
+                "",
+                "a,Oil again,2024-02-01,30,Van",
+                "c,Tyres,2024-01-01,0")
+                + "\n");
+        Path rejects = dir.resolve("rejects.csv");
+        ColumnarItemStore store = ColumnarItemStore.of(List.of());
+
+        CsvImporter.Result r = new CsvImporter(source, rejects, 2).importInto(store);
+
+        assertEquals(1, r.added());
+        assertEquals(1, r.updated());
+        assertEquals(2, r.rejected());
+        assertEquals(5, r.mergedThroughLine());
+        assertEquals("Oil again", store.get(store.indexOf("a")).getName());
+        assertEquals(List.of(
+                "line,reason,text",
+                "2,bad-date,\"b,\"\"Quoted\"\", name,2024-13-01,30\"",
+                "5,non-positive-interval,\"c,Tyres,2024-01-01,0\""), Files.readAllLines(rejects));
+    }
+
+    @Test
+    void readsTheEscapingTheFileDeclares() throws Exception {
+        Path legacy = dir.resolve("old.csv");
+        Files.writeString(legacy, "a,C:\\\\x,2024-01-01,30,Van\n");
+        Path current = dir.resolve("new.csv");
+        Files.writeString(current, MaintenanceItem.CSV_HEADER + "\na,C:\\\\x,2024-01-01,30,Van\n");
+
+        ColumnarItemStore store = ColumnarItemStore.of(List.of());
+        new CsvImporter(legacy, dir.resolve("r1.csv"), 1).importInto(store);
+        assertEquals("C:\\\\x", store.get(0).getName());
+        CsvImporter.Result r = new CsvImporter(current, dir.resolve("r2.csv"), 1).importInto(store);
+        assertEquals("C:\\x", store.get(0).getName());
+        assertEquals(0, r.rejected());
+        assertEquals(2, r.mergedThroughLine());
+    }
+
+    @Test
+    void failedReadReportsWhatWasMerged() throws Exception {
+        Path rejects = dir.resolve("rejects.csv");
+        ColumnarItemStore store = ColumnarItemStore.of(List.of());
+
+        // a directory cannot be opened for reading
+        CsvImporter.ImportFailedException ex = assertThrows(CsvImporter.ImportFailedException.class,
+                () -> new CsvImporter(dir, rejects, 2).importInto(store));
+
+        assertEquals(0, ex.getResult().mergedThroughLine());
+        assertTrue(ex.getMessage().contains("nothing was merged"), ex.getMessage());
+        assertEquals(0, store.size());
+        assertFalse(Files.exists(rejects));
+    }
+
+    @Test
+    void importIntoARepositorySavesEachBatchBeforeItIsVisible() throws Exception {
+        Path data = dir.resolve("items.csv");
+        new Storage(data).saveSnapshot(List.of(new MaintenanceItem("a", "Oil", LocalDate.of(2024, 1, 1), 30, "Van")));
+        Path source = dir.resolve("dump.csv");
+        Files.writeString(source, "a,Oil again,2024-02-01,30,Van\nb,Tyres,2024-01-01,60,Bus\n");
+        Storage storage = new Storage(data);
+        ItemRepository repo = ItemRepository.of(storage.load());
+
+        CsvImporter.Result r = new CsvImporter(source, dir.resolve("rejects.csv"), 2).importInto(repo, storage);
+
+        assertEquals(1, r.added());
+        assertEquals(1, r.updated());
+        assertEquals("Oil again", repo.get("a").getName());
+        assertEquals(2, repo.view().size());
+        List<MaintenanceItem> reloaded = new Storage(data).load();
+        assertEquals(2, reloaded.size());
+        assertEquals("Oil again", reloaded.get(0).getName());
+        assertEquals("Tyres", reloaded.get(1).getName());
+    }
+
+    @Test
+    void failedSaveStopsTheImportWithNothingPut() throws Exception {
+        Path source = dir.resolve("dump.csv");
+        Files.writeString(source, "a,Oil,2024-01-01,30,Van\n");
+        ItemRepository repo = ItemRepository.of(List.of());
+        ItemStorage full = new Storage(dir.resolve("items.csv")) {
+            @Override
+            public void saveChanges(List<MaintenanceItem> items, Collection<MaintenanceItem> changed,
+                                    Collection<String> deleted) throws IOException {
+                throw new IOException("No space left on device");
+            }
+        };
+
+        CsvImporter.ImportFailedException ex = assertThrows(CsvImporter.ImportFailedException.class,
+                () -> new CsvImporter(source, dir.resolve("rejects.csv"), 1).importInto(repo, full));
+
+        assertEquals(0, ex.getResult().mergedThroughLine());
+        assertEquals(0, repo.size());
+        assertEquals(0, repo.writes());
+    }
+}
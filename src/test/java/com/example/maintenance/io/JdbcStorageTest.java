@@ -0,0 +1,200 @@
+package com.example.maintenance.io;
+
+import com.example.maintenance.model.MaintenanceItem;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInfo;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Runs against an in-memory H2 database, which JdbcStorage detects as its own dialect (MERGE upserts).
+class JdbcStorageTest {
+    private static final String TABLE = "CREATE TABLE maintenance_items (id VARCHAR(64) PRIMARY KEY,"
+            + " name VARCHAR(255) NOT NULL, last_service_date DATE NOT NULL, interval_days INT NOT NULL";
+
+    private String url;
+    private Connection keepAlive; // an in-memory database lives as long as a connection to it
+    private final List<JdbcStorage> opened = new ArrayList<>();
+
+    @BeforeEach
+    void openDatabase(TestInfo test) throws SQLException {
+        url = "jdbc:h2:mem:" + test.getTestMethod().orElseThrow().getName();
+        keepAlive = DriverManager.getConnection(url);
+    }
+
+    @AfterEach
+    void closeDatabase() throws SQLException {
+        for (JdbcStorage s : opened) s.close();
+        keepAlive.close();
+    }
+
+    private void sql(String... statements) throws SQLException {
+        try (Statement st = keepAlive.createStatement()) {
+            for (String s : statements) st.execute(s);
+        }
+    }
+
+    private JdbcStorage storage() {
+        JdbcStorage s = new JdbcStorage(url, null, null);
+        opened.add(s);
+        return s;
+    }
+
+    private static List<MaintenanceItem> fleet(int n) {
+        List<MaintenanceItem> out = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            out.add(new MaintenanceItem(String.format("id-%04d", i), "Bus Oil Change " + i,
+                    LocalDate.of(2024, 1, 1).plusDays(i), 30 + i % 60, "Bus " + i));
+        }
+        return out;
+    }
+
+    private static List<String> lines(List<MaintenanceItem> items) {
+        List<String> out = new ArrayList<>();
+        for (MaintenanceItem it : items) out.add(it.toCsvLine());
+        out.sort(Comparator.naturalOrder());
+        return out;
+    }
+
+    private String nameInDatabase(String id) throws SQLException {
+        try (Statement st = keepAlive.createStatement();
+             ResultSet rs = st.executeQuery("SELECT name FROM maintenance_items WHERE id = '" + id + "'")) {
+            return rs.next() ? rs.getString(1) : null;
+        }
+    }
+
+    @Test
+    void roundTripsInBatches() throws Exception {
+        sql(TABLE + ", vehicle VARCHAR(255))");
+        // more rows than one upsert batch, and a remainder
+        List<MaintenanceItem> items = fleet(1203);
+
+        storage().save(items);
+
+        assertEquals(lines(items), lines(storage().load()));
+    }
+
+    @Test
+    void saveChangesWritesOnlyTheChangedRows() throws Exception {
+        sql(TABLE + ", vehicle VARCHAR(255))");
+        storage().save(fleet(10));
+        JdbcStorage storage = storage();
+        List<MaintenanceItem> items = storage.load();
+
+        // edited behind the storage's back: only a full rewrite would undo this
+        sql("UPDATE maintenance_items SET name = 'Edited elsewhere' WHERE id = 'id-0001'");
+        items.get(2).setName("Tyres");
+        MaintenanceItem added = new MaintenanceItem("new", "Van Wipers", LocalDate.of(2024, 5, 1), 60, "Van");
+        MaintenanceItem removed = items.remove(5);
+        items.add(added);
+        storage.saveChanges(items, List.of(items.get(2), added), List.of(removed.getId()));
+
+        assertEquals("Edited elsewhere", nameInDatabase("id-0001"));
+        assertEquals("Tyres", nameInDatabase("id-0002"));
+        assertEquals("Van Wipers", nameInDatabase("new"));
+        assertNull(nameInDatabase(removed.getId()));
+        assertEquals(10, storage().load().size());
+    }
+
+    @Test
+    void saveWithoutALoadDeletesRowsMissingFromTheList() throws Exception {
+        sql(TABLE + ", vehicle VARCHAR(255))");
+        storage().save(fleet(5));
+
+        List<MaintenanceItem> fewer = fleet(3);
+        storage().save(fewer);
+
+        assertEquals(lines(fewer), lines(storage().load()));
+    }
+
+    @Test
+    void tableWithoutVehicleDerivesItFromTheName() throws Exception {
+        sql(TABLE + ")");
+        storage().save(fleet(3));
+
+        List<MaintenanceItem> loaded = storage().load();
+        assertEquals(3, loaded.size());
+        for (MaintenanceItem it : loaded) {
+            assertEquals(MaintenanceItem.vehicleOf(it.getName()), it.getVehicle());
+        }
+    }
+
+    @Test
+    void dueByIsFilteredInTheDatabaseThroughTheView() throws Exception {
+        sql(TABLE + ", vehicle VARCHAR(255))");
+        // The view ignores the interval, so rows it returns differ from an in-memory filter;
+        // that shows the query went through it.
+        sql("CREATE VIEW maintenance_with_next AS SELECT id, name, last_service_date, interval_days, vehicle,"
+                + " last_service_date AS next_service_date FROM maintenance_items");
+        storage().save(fleet(10));
+
+        List<MaintenanceItem> due = storage().dueBy(LocalDate.of(2024, 1, 3));
+
+        assertEquals(List.of("id-0000", "id-0001", "id-0002"), ids(due));
+    }
+
+    @Test
+    void dueByUsesAGeneratedColumn() throws Exception {
+        sql(TABLE + ", vehicle VARCHAR(255),"
+                + " next_service_date DATE GENERATED ALWAYS AS (DATEADD(DAY, interval_days, last_service_date)))");
+        List<MaintenanceItem> items = fleet(3);
+        items.get(0).setIntervalDays(400);
+        storage().save(items);
+
+        // id-0001 is due 2024-02-02, id-0002 on 2024-02-04, id-0000 in 2025
+        List<MaintenanceItem> due = storage().dueBy(LocalDate.of(2024, 2, 4));
+
+        assertEquals(List.of("id-0001", "id-0002"), ids(due));
+    }
+
+    @Test
+    void dueByFallsBackToStreamingTheTable() throws Exception {
+        sql(TABLE + ", vehicle VARCHAR(255))");
+        List<MaintenanceItem> items = fleet(3);
+        items.get(0).setIntervalDays(400);
+        storage().save(items);
+
+        List<MaintenanceItem> due = storage().dueBy(LocalDate.of(2024, 2, 4));
+
+        List<String> ids = ids(due);
+        ids.sort(Comparator.naturalOrder());
+        assertEquals(List.of("id-0001", "id-0002"), ids);
+    }
+
+    @Test
+    void rewriteUpdatesEveryRow() throws Exception {
+        sql(TABLE + ", vehicle VARCHAR(255))");
+        JdbcStorage storage = storage();
+        storage.save(fleet(3));
+        sql("UPDATE maintenance_items SET vehicle = NULL");
+
+        storage.rewrite(storage.load());
+
+        try (Statement st = keepAlive.createStatement();
+             ResultSet rs = st.executeQuery("SELECT COUNT(*) FROM maintenance_items WHERE vehicle IS NULL")) {
+            assertTrue(rs.next());
+            assertEquals(0, rs.getInt(1));
+        }
+        assertFalse(storage.load().isEmpty());
+    }
+
+    private static List<String> ids(List<MaintenanceItem> items) {
+        List<String> out = new ArrayList<>();
+        for (MaintenanceItem it : items) out.add(it.getId());
+        return out;
+    }
+}
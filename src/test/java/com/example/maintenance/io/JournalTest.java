@@ -0,0 +1,92 @@
+package com.example.maintenance.io;
+
+import com.example.maintenance.model.MaintenanceItem;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JournalTest {
+    @TempDir
+    Path dir;
+
+    private static MaintenanceItem item(String id, String name) {
+        return new MaintenanceItem(id, name, LocalDate.of(2024, 3, 1), 90, "Van 1");
+    }
+
+    @Test
+    void replaysAppendedRecordsInOrder() throws Exception {
+        Path file = dir.resolve("items.csv.journal");
+        try (Journal j = new Journal(file)) {
+            j.sync(j.append(List.of(
+                    Journal.record(Journal.ADD, item("a", "Oil\\, filter")),
+                    Journal.record(Journal.ADD, item("b", "Brakes")),
+                    Journal.record(Journal.UPDATE, item("a", "Oil change")),
+                    Journal.record(Journal.DELETE, "b"))));
+            assertEquals(4, j.records());
+        }
+        Map<String, MaintenanceItem> byId = new LinkedHashMap<>();
+        Journal.replay(file, byId);
+        assertEquals(List.of("a"), List.copyOf(byId.keySet()));
+        assertEquals("Oil change", byId.get("a").getName());
+    }
+
+    @Test
+    void skipsTornAndCorruptRecords() throws Exception {
+        Path file = dir.resolve("items.csv.journal");
+        String good = Journal.record(Journal.ADD, item("a", "Oil"));
+        String corrupt = Journal.record(Journal.ADD, item("b", "Tyres")).replace("Tyres", "Tires");
+        String torn = Journal.record(Journal.ADD, item("c", "Lights"));
+        Files.write(file, (good + "\n" + corrupt + "\n" + torn.substring(0, torn.length() / 2))
+                .getBytes(StandardCharsets.UTF_8));
+
+        // reopening terminates the torn line, so the next record is not glued onto it
+        try (Journal j = new Journal(file)) {
+            j.sync(j.append(List.of(Journal.record(Journal.ADD, item("d", "Wipers")))));
+        }
+        Map<String, MaintenanceItem> byId = new LinkedHashMap<>();
+        Journal.replay(file, byId);
+        assertEquals(List.of("a", "d"), List.copyOf(byId.keySet()));
+    }
+
+    @Test
+    void rotateSealsRecordsAndStartsEmpty() throws Exception {
+        Path file = dir.resolve("items.csv.journal");
+        Path sealed = dir.resolve("items.csv.journal.sealed");
+        try (Journal j = new Journal(file)) {
+            j.sync(j.append(List.of(Journal.record(Journal.ADD, item("a", "Oil")))));
+            j.rotate(sealed);
+            assertEquals(0, j.records());
+            assertTrue(Journal.isEmpty(file));
+            j.sync(j.append(List.of(Journal.record(Journal.ADD, item("b", "Brakes")))));
+        }
+        Map<String, MaintenanceItem> sealedItems = new LinkedHashMap<>();
+        Journal.replay(sealed, sealedItems);
+        assertEquals(List.of("a"), List.copyOf(sealedItems.keySet()));
+        Map<String, MaintenanceItem> current = new LinkedHashMap<>();
+        Journal.replay(file, current);
+        assertEquals(List.of("b"), List.copyOf(current.keySet()));
+    }
+
+    @Test
+    void truncateDropsEverything() throws Exception {
+        Path file = dir.resolve("items.csv.journal");
+        try (Journal j = new Journal(file)) {
+            j.sync(j.append(List.of(Journal.record(Journal.ADD, item("a", "Oil")))));
+            j.truncate();
+            assertEquals(0, j.records());
+        }
+        assertTrue(Journal.isEmpty(file));
+        assertFalse(Files.readString(file).contains("Oil"));
+    }
+}
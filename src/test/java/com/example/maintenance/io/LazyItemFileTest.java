@@ -0,0 +1,109 @@
+package com.example.maintenance.io;
+
+import com.example.maintenance.model.MaintenanceItem;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class LazyItemFileTest {
+    @TempDir
+    Path dir;
+
+    private static List<MaintenanceItem> fleet(int n) {
+        List<MaintenanceItem> out = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            out.add(new MaintenanceItem("id-" + i, "Van Oil Change " + i, LocalDate.of(2024, 1, 1).plusDays(i), 30, "Van " + i));
+        }
+        return out;
+    }
+
+    private static MaintenanceItem item(String id, String name) {
+        return new MaintenanceItem(id, name, LocalDate.of(2024, 6, 1), 90, "Bus 1");
+    }
+
+    private Path file(int n) throws Exception {
+        Path file = dir.resolve("items.csv");
+        new Storage(file).saveSnapshot(fleet(n));
+        return file;
+    }
+
+    @Test
+    void indexOfFollowsAddsRemovesAndRenames() throws Exception {
+        try (LazyItemFile f = LazyItemFile.open(file(100), 16)) {
+            assertEquals(42, f.indexOf("id-42"));
+            assertEquals(-1, f.indexOf("missing"));
+
+            int added = f.add(item("new", "Brakes"));
+            assertEquals(added, f.indexOf("new"));
+
+            f.remove(10);
+            assertEquals(41, f.indexOf("id-42"));
+            assertEquals(-1, f.indexOf("id-10"));
+
+            f.set(0, item("renamed", "Tyres"));
+            assertEquals(0, f.indexOf("renamed"));
+            assertEquals(-1, f.indexOf("id-0"));
+            assertEquals(f.size() - 1, f.indexOf("new"));
+
+            // enough adds to grow the table while it is built
+            for (int i = 0; i < 200; i++) f.add(item("more-" + i, "Wipers"));
+            assertEquals(f.size() - 1, f.indexOf("more-199"));
+            assertEquals(41, f.indexOf("id-42"));
+        }
+    }
+
+    @Test
+    void savesGoThroughTheStoragesJournalAcrossCompactions() throws Exception {
+        Path file = file(20);
+        Storage storage = new Storage(file);
+        storage.setAutoCompaction(false);
+        try (LazyItemFile f = LazyItemFile.open(storage, 16)) {
+            f.set(f.indexOf("id-3"), item("id-3", "First"));
+            assertEquals(1, f.save());
+            storage.compact();
+
+            // lands in the rotated journal, not in the sealed one compaction just removed
+            f.set(f.indexOf("id-4"), item("id-4", "Second"));
+            f.remove(f.indexOf("id-5"));
+            assertEquals(2, f.save());
+            assertFalse(f.hasChanges());
+        }
+        storage.close();
+
+        List<MaintenanceItem> loaded = new Storage(file).load();
+        assertEquals(19, loaded.size());
+        assertEquals("First", loaded.get(3).getName());
+        assertEquals("Second", loaded.get(4).getName());
+        assertEquals("id-6", loaded.get(5).getId());
+    }
+
+    @Test
+    void openAppliesBothJournals() throws Exception {
+        Path file = file(10);
+        try (Storage storage = new Storage(file)) {
+            List<MaintenanceItem> items = storage.load();
+            items.get(1).setName("Sealed");
+            storage.saveChanges(items, List.of(items.get(1)), List.of());
+        }
+        // as left by a compaction that rotated the journal and stopped
+        Files.move(file.resolveSibling("items.csv.journal"), file.resolveSibling("items.csv.journal.sealed"));
+        try (Storage storage = new Storage(file)) {
+            List<MaintenanceItem> items = storage.load();
+            items.get(2).setName("Current");
+            storage.saveChanges(items, List.of(items.get(2)), List.of());
+        }
+
+        try (LazyItemFile f = LazyItemFile.open(file, 16)) {
+            assertEquals("Sealed", f.get(f.indexOf("id-1")).getName());
+            assertEquals("Current", f.get(f.indexOf("id-2")).getName());
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.maintenance.io;
+
+import com.example.maintenance.model.MaintenanceItem;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MappedCsvLoaderTest {
+    @TempDir
+    Path dir;
+
+    // Large enough for several chunks, small enough that Storage still reads it line by line.
+    private Path writeMixedFile(boolean header) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        if (header) out.write((MaintenanceItem.CSV_HEADER + "\r\n").getBytes(StandardCharsets.UTF_8));
+        int i = 0;
+        while (out.size() < 3 * 1024 * 1024) {
+            String line;
+            int kind = i % 10;
+            if ((kind == 5 || kind == 6) && i % 1000 >= 10) kind = 0; // a few malformed lines are enough
+            switch (kind) {
+                case 0:
+                    line = "veh-" + i + ",Bus Oil Change " + i + ",2024-03-" + (1 + i % 28) + "," + (30 + i % 300) + ",Bus " + i;
+                    break;
+                case 1:
+                    line = "veh-" + i + ",Name\\, with comma " + i + ",2023-12-31,90,";
+                    break;
+                case 2:
+                    line = "veh-" + i + ",Back\\\\slash\\, and comma,2024-01-02,45,Van\\, blue";
+                    break;
+                case 3:
+                    line = "veh-" + i + ",Gabelstapler Ölwechsel フォーク,2022-02-28,180";
+                    break;
+                case 4:
+                    line = "  veh-" + i + ",Padded Name,2024-06-30,7,Truck 4  ";
+                    break;
+                case 5:
+                    line = "not a record";
+                    break;
+                case 6:
+                    line = "veh-" + i + ",Bad Date,2024-13-45,30";
+                    break;
+                case 7:
+                    line = "";
+                    break;
+                default:
+                    line = "veh-" + i + ",Car Brake Pads,+12024-01-01,365,Car";
+            }
+            out.write(line.getBytes(StandardCharsets.UTF_8));
+            out.write(i % 3 == 0 ? new byte[] {'\r', '\n'} : new byte[] {'\n'});
+            i++;
+        }
+        // invalid UTF-8 and no newline at the end of the file
+        out.write("veh-last,Broken ".getBytes(StandardCharsets.UTF_8));
+        out.write(new byte[] {(byte) 0xff, (byte) 0xc3});
+        out.write(",2024-05-05,60".getBytes(StandardCharsets.UTF_8));
+        Path file = dir.resolve("items.csv");
+        Files.write(file, out.toByteArray());
+        return file;
+    }
+
+    @Test
+    void matchesStorageLoadLineForLine() throws Exception {
+        Path file = writeMixedFile(false);
+        assertTrue(Files.size(file) < Storage.MAPPED_LOAD_THRESHOLD);
+
+        List<String> expected = lines(new Storage(file).load());
+        List<String> actual = lines(new MappedCsvLoader(file).load());
+
+        assertEquals(expected.size(), actual.size());
+        assertEquals(expected, actual);
+        assertTrue(expected.get(expected.size() - 1).startsWith("veh-last,Broken �"));
+    }
+
+    @Test
+    void matchesStorageLoadWithTheHeader() throws Exception {
+        Path file = writeMixedFile(true);
+        List<String> expected = lines(new Storage(file).load());
+        assertEquals(expected, lines(new MappedCsvLoader(file).load()));
+        assertTrue(expected.contains("veh-2,Back\\\\slash\\, and comma,2024-01-02,45,Van\\, blue"));
+    }
+
+    @Test
+    void chunksStartAtLineStarts() throws Exception {
+        Path file = writeMixedFile(false);
+        byte[] bytes = Files.readAllBytes(file);
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            long[] bounds = MappedCsvLoader.chunkBounds(ch, ch.size());
+            assertTrue(bounds.length > 2, "expected several chunks");
+            assertEquals(0, bounds[0]);
+            assertEquals(bytes.length, bounds[bounds.length - 1]);
+            for (int i = 1; i < bounds.length - 1; i++) {
+                byte before = bytes[(int) bounds[i] - 1];
+                assertTrue(before == '\n' || before == '\r', "chunk " + i + " starts mid-line");
+                assertTrue(bounds[i] > bounds[i - 1]);
+            }
+        }
+    }
+
+    @Test
+    void emptyFileLoadsNothing() throws Exception {
+        Path file = dir.resolve("empty.csv");
+        Files.createFile(file);
+        assertEquals(0, new MappedCsvLoader(file).load().size());
+    }
+
+    private static List<String> lines(List<MaintenanceItem> items) {
+        List<String> out = new ArrayList<>(items.size());
+        for (MaintenanceItem it : items) out.add(it.toCsvLine());
+        return out;
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.maintenance.io;
+
+import com.example.maintenance.model.ServiceEvent;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ServiceHistoryTest {
+    private static final YearMonth MONTH = YearMonth.of(2024, 3);
+
+    @TempDir
+    Path dir;
+
+    // Two and a half blocks of events in March, spread over the month and over 50 items.
+    private static List<ServiceEvent> events() {
+        List<ServiceEvent> out = new ArrayList<>();
+        for (int i = 0; i < ServiceHistory.BLOCK_EVENTS * 5 / 2; i++) {
+            out.add(new ServiceEvent("veh-" + i % 50, MONTH.atDay(1 + i * 31 / (ServiceHistory.BLOCK_EVENTS * 5 / 2)), 30));
+        }
+        return out;
+    }
+
+    private Path log() {
+        return dir.resolve(MONTH + ServiceHistory.LOG_SUFFIX);
+    }
+
+    private Path index() {
+        return dir.resolve(MONTH + ServiceHistory.INDEX_SUFFIX);
+    }
+
+    private static List<ServiceEvent> forItem(List<ServiceEvent> events, String id) {
+        List<ServiceEvent> out = new ArrayList<>();
+        for (ServiceEvent e : events) {
+            if (e.getItemId().equals(id)) out.add(e);
+        }
+        return out;
+    }
+
+    private List<ServiceEvent> recorded() throws Exception {
+        List<ServiceEvent> events = events();
+        try (ServiceHistory h = new ServiceHistory(dir)) {
+            h.record(events);
+        }
+        return events;
+    }
+
+    @Test
+    void queriesByItemAndDateAcrossMonths() throws Exception {
+        List<ServiceEvent> events = recorded();
+        ServiceEvent april = new ServiceEvent("veh-7", LocalDate.of(2024, 4, 2), 60);
+        try (ServiceHistory h = new ServiceHistory(dir)) {
+            h.record(april);
+            List<ServiceEvent> want = forItem(events, "veh-7");
+            want.add(april);
+            assertEquals(want, h.forItem("veh-7"));
+            assertEquals(List.of(april), h.between(LocalDate.of(2024, 4, 1), LocalDate.of(2024, 4, 30)));
+            assertEquals(List.of(MONTH, MONTH.plusMonths(1)), h.months());
+        }
+    }
+
+    @Test
+    void dateQueriesReadOnlyOverlappingBlocks() throws Exception {
+        recorded();
+        try (ServiceHistory h = new ServiceHistory(dir)) {
+            long before = ServiceHistory.BLOCKS_READ.get();
+            List<ServiceEvent> first = h.between(MONTH.atDay(1), MONTH.atDay(1));
+            assertEquals(1, ServiceHistory.BLOCKS_READ.get() - before);
+            assertTrue(first.size() > 0);
+            for (ServiceEvent e : first) assertEquals(MONTH.atDay(1), e.getDate());
+        }
+    }
+
+    @Test
+    void deletedIndexIsRebuiltFromTheLog() throws Exception {
+        List<ServiceEvent> events = recorded();
+        long indexSize = Files.size(index());
+        Files.delete(index());
+
+        try (ServiceHistory h = new ServiceHistory(dir)) {
+            assertEquals(forItem(events, "veh-3"), h.forItem("veh-3"));
+        }
+        assertEquals(indexSize, Files.size(index()));
+    }
+
+    @Test
+    void missingIndexEntriesAreAddedBack() throws Exception {
+        List<ServiceEvent> events = recorded();
+        long indexSize = Files.size(index());
+        // as after a crash between the log fsync and the index write
+        try (FileChannel ch = FileChannel.open(index(), StandardOpenOption.WRITE)) {
+            ch.truncate(indexSize / 2);
+        }
+
+        try (ServiceHistory h = new ServiceHistory(dir)) {
+            assertEquals(events.size(), h.between(null, null).size());
+        }
+        assertEquals(indexSize, Files.size(index()));
+    }
+
+    @Test
+    void tornIndexEntryIsDropped() throws Exception {
+        List<ServiceEvent> events = recorded();
+        long indexSize = Files.size(index());
+        Files.write(index(), new byte[] {1, 2, 3, 4, 5}, StandardOpenOption.APPEND);
+
+        try (ServiceHistory h = new ServiceHistory(dir)) {
+            assertEquals(forItem(events, "veh-9"), h.forItem("veh-9"));
+        }
+        assertEquals(indexSize, Files.size(index()));
+    }
+
+    @Test
+    void indexEntriesPastTheLogAreDropped() throws Exception {
+        recorded();
+        long indexSize = Files.size(index()); // two full blocks
+        List<String> lines = Files.readAllLines(log());
+        // keep the first full block and a few events of the second
+        int kept = ServiceHistory.BLOCK_EVENTS + 10;
+        Files.write(log(), (String.join("\n", lines.subList(0, kept)) + "\n").getBytes(StandardCharsets.UTF_8));
+
+        try (ServiceHistory h = new ServiceHistory(dir)) {
+            assertEquals(kept, h.between(null, null).size());
+        }
+        assertEquals(indexSize / 2, Files.size(index()));
+    }
+
+    @Test
+    void tornLogLineIsSkippedAndNotJoinedToTheNextEvent() throws Exception {
+        List<ServiceEvent> events = recorded();
+        Files.write(log(), "2024-03-3".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+        ServiceEvent after = new ServiceEvent("veh-new", MONTH.atDay(31), 90);
+
+        try (ServiceHistory h = new ServiceHistory(dir)) {
+            assertEquals(events.size(), h.between(null, null).size());
+            h.record(after);
+        }
+        try (ServiceHistory h = new ServiceHistory(dir)) {
+            assertEquals(List.of(after), h.forItem("veh-new"));
+            assertEquals(events.size() + 1, h.between(null, null).size());
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package com.example.maintenance.io;
+
+import com.example.maintenance.model.MaintenanceItem;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ShardedStorageTest {
+    @TempDir
+    Path dir;
+
+    private static List<MaintenanceItem> fleet(int n) {
+        List<MaintenanceItem> out = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            out.add(new MaintenanceItem("id-" + i, "Oil change " + i, LocalDate.of(2024, 1, 1).plusDays(i),
+                    30 + i, "Van " + i));
+        }
+        return out;
+    }
+
+    private static List<String> sortedLines(List<MaintenanceItem> items) {
+        List<String> out = new ArrayList<>();
+        for (MaintenanceItem it : items) out.add(it.toCsvLine());
+        out.sort(null);
+        return out;
+    }
+
+    private Path shardFile(int shard) {
+        return dir.resolve(String.format("shard-%03d.csv", shard));
+    }
+
+    private Path journal(int shard) {
+        Path data = shardFile(shard);
+        return data.resolveSibling(data.getFileName() + ".journal");
+    }
+
+    private Map<Integer, byte[]> shardBytes(int shards) throws Exception {
+        Map<Integer, byte[]> out = new HashMap<>();
+        for (int i = 0; i < shards; i++) {
+            if (Files.isRegularFile(shardFile(i))) out.put(i, Files.readAllBytes(shardFile(i)));
+        }
+        return out;
+    }
+
+    @Test
+    void manifestRoundTrip() throws Exception {
+        List<MaintenanceItem> items = fleet(40);
+        ShardedStorage storage = new ShardedStorage(dir, 4);
+        storage.save(items);
+        storage.close();
+
+        assertTrue(ShardedStorage.isShardDirectory(dir));
+        List<String> manifest = Files.readAllLines(dir.resolve(ShardedStorage.MANIFEST));
+        assertTrue(manifest.contains("version=" + ShardedStorage.FORMAT_VERSION), manifest.toString());
+        assertTrue(manifest.contains("shards=4"), manifest.toString());
+        assertFalse(Files.exists(dir.resolve(ShardedStorage.MANIFEST + ".tmp")));
+
+        ShardedStorage reopened = new ShardedStorage(dir, 4);
+        assertEquals(sortedLines(items), sortedLines(reopened.load()));
+        reopened.close();
+    }
+
+    @Test
+    void reopeningKeepsTheWrittenShardCount() throws Exception {
+        List<MaintenanceItem> items = fleet(40);
+        ShardedStorage storage = new ShardedStorage(dir, 3);
+        storage.save(items);
+        storage.close();
+
+        ShardedStorage reopened = new ShardedStorage(dir, 16);
+        assertEquals(3, reopened.shardCount());
+        assertEquals(sortedLines(items), sortedLines(reopened.load()));
+        assertFalse(Files.exists(shardFile(3)));
+        reopened.close();
+    }
+
+    @Test
+    void unsupportedManifestIsRejected() throws Exception {
+        Files.writeString(dir.resolve(ShardedStorage.MANIFEST), "version=99\nshards=4\n");
+        ShardedStorage storage = new ShardedStorage(dir, 4);
+        assertThrows(IOException.class, storage::load);
+    }
+
+    @Test
+    void itemsAreStoredInTheShardOfTheirId() throws Exception {
+        int shards = 4;
+        ShardedStorage storage = new ShardedStorage(dir, shards);
+        storage.save(fleet(100));
+        storage.close();
+
+        int total = 0;
+        for (int i = 0; i < shards; i++) {
+            List<MaintenanceItem> part = new Storage(shardFile(i)).load();
+            assertFalse(part.isEmpty(), "shard " + i + " is empty");
+            for (MaintenanceItem it : part) assertEquals(i, ShardedStorage.shardOf(it.getId(), shards), it.getId());
+            total += part.size();
+        }
+        assertEquals(100, total);
+    }
+
+    @Test
+    void shardOfIsStableAndInRange() {
+        for (int i = 0; i < 1000; i++) {
+            String id = "veh-" + i;
+            int shard = ShardedStorage.shardOf(id, 7);
+            assertTrue(shard >= 0 && shard < 7, id + " -> " + shard);
+            assertEquals(shard, ShardedStorage.shardOf(new String(id.toCharArray()), 7));
+        }
+        assertEquals(0, ShardedStorage.shardOf("anything", 1));
+    }
+
+    @Test
+    void parallelLoadConcatenatesTheShardsInOrder() throws Exception {
+        int shards = 8;
+        List<MaintenanceItem> items = fleet(200);
+        ShardedStorage storage = new ShardedStorage(dir, shards);
+        storage.save(items);
+        storage.close();
+
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < shards; i++) {
+            for (MaintenanceItem it : new Storage(shardFile(i)).load()) expected.add(it.toCsvLine());
+        }
+        ShardedStorage reopened = new ShardedStorage(dir, shards);
+        List<String> loaded = new ArrayList<>();
+        for (MaintenanceItem it : reopened.load()) loaded.add(it.toCsvLine());
+        reopened.close();
+
+        assertEquals(expected, loaded);
+        assertEquals(sortedLines(items), sortedLines(new ShardedStorage(dir, shards).load()));
+    }
+
+    @Test
+    void saveChangesTouchesOnlyTheShardsThatChanged() throws Exception {
+        int shards = 4;
+        ShardedStorage first = new ShardedStorage(dir, shards);
+        first.save(fleet(40));
+        first.close();
+        Map<Integer, byte[]> before = shardBytes(shards);
+
+        ShardedStorage storage = new ShardedStorage(dir, shards);
+        List<MaintenanceItem> items = storage.load();
+        MaintenanceItem changed = items.get(0);
+        changed.setName("Tyres");
+        int touched = ShardedStorage.shardOf(changed.getId(), shards);
+        long savedBefore = ShardedStorage.SHARDS_SAVED.get();
+        storage.saveChanges(items, List.of(changed), List.of());
+        storage.close();
+
+        assertEquals(1, ShardedStorage.SHARDS_SAVED.get() - savedBefore);
+        for (int i = 0; i < shards; i++) {
+            assertArrayEquals(before.get(i), Files.readAllBytes(shardFile(i)), "shard " + i + " rewritten");
+            assertEquals(i == touched, Files.exists(journal(i)) && Files.size(journal(i)) > 0, "journal of shard " + i);
+        }
+        assertEquals(sortedLines(items), sortedLines(new ShardedStorage(dir, shards).load()));
+    }
+
+    @Test
+    void unreadableShardFailsTheLoadWithoutRewritingTheOthers() throws Exception {
+        int shards = 4;
+        ShardedStorage first = new ShardedStorage(dir, shards);
+        first.save(fleet(40));
+        first.close();
+        // a directory where shard 2's file should be cannot be read as items
+        Files.delete(shardFile(2));
+        Files.createDirectory(shardFile(2));
+        Map<Integer, byte[]> before = shardBytes(shards);
+
+        ShardedStorage storage = new ShardedStorage(dir, shards);
+        Exception ex = assertThrows(Exception.class, storage::load);
+        storage.close();
+
+        assertTrue(ex.getMessage().contains("shard-002.csv"), ex.getMessage());
+        Map<Integer, byte[]> after = shardBytes(shards);
+        assertEquals(before.keySet(), after.keySet());
+        for (int i : before.keySet()) assertArrayEquals(before.get(i), after.get(i), "shard " + i + " rewritten");
+        for (int i = 0; i < shards; i++) assertFalse(Files.exists(journal(i)), "journal of shard " + i);
+    }
+
+    @Test
+    void savesStillWorkAfterClose() throws Exception {
+        List<MaintenanceItem> items = fleet(20);
+        ShardedStorage storage = new ShardedStorage(dir, 4);
+        storage.save(items);
+        storage.close();
+
+        items.get(5).setName("After close");
+        storage.saveChanges(items, List.of(items.get(5)), List.of());
+        storage.save(items);
+        storage.close();
+
+        assertEquals(sortedLines(items), sortedLines(new ShardedStorage(dir, 4).load()));
+    }
+}
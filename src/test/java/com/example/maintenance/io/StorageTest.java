@@ -0,0 +1,240 @@
+package com.example.maintenance.io;
+
+import com.example.maintenance.model.MaintenanceItem;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StorageTest {
+    @TempDir
+    Path dir;
+
+    private static List<MaintenanceItem> fleet(int n) {
+        List<MaintenanceItem> out = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            // an empty vehicle is derived from the name on read, so every item names one
+            out.add(new MaintenanceItem("id-" + i, "Oil\\, change " + i, LocalDate.of(2024, 1, 1).plusDays(i),
+                    30 + i, i % 2 == 0 ? "Van " + i : "Gabelstapler Ö"));
+        }
+        return out;
+    }
+
+    private static List<String> lines(List<MaintenanceItem> items) {
+        List<String> out = new ArrayList<>();
+        for (MaintenanceItem it : items) out.add(it.toCsvLine());
+        return out;
+    }
+
+    private Path journal(Path data) {
+        return data.resolveSibling(data.getFileName() + ".journal");
+    }
+
+    @Test
+    void snapshotRoundTrip() throws Exception {
+        Path file = dir.resolve("items.csv");
+        List<MaintenanceItem> items = fleet(50);
+        new Storage(file).saveSnapshot(items);
+        assertEquals(lines(items), lines(new Storage(file).load()));
+    }
+
+    @Test
+    void binarySnapshotRoundTrip() throws Exception {
+        Path file = dir.resolve("items" + Storage.BINARY_SUFFIX);
+        List<MaintenanceItem> items = fleet(50);
+        new Storage(file).saveSnapshot(items);
+        assertTrue(BinarySnapshot.isSnapshot(file));
+        assertEquals(lines(items), lines(new Storage(file).load()));
+    }
+
+    @Test
+    void saveChangesJournalsOnlyTheChanges() throws Exception {
+        Path file = dir.resolve("items.csv");
+        new Storage(file).saveSnapshot(fleet(20));
+        String snapshot = Files.readString(file);
+
+        Storage storage = new Storage(file);
+        List<MaintenanceItem> items = storage.load();
+        MaintenanceItem changed = items.get(3);
+        changed.setName("Tyres");
+        MaintenanceItem added = new MaintenanceItem("new", "Wipers", LocalDate.of(2024, 5, 1), 60, "Car");
+        MaintenanceItem removed = items.remove(7);
+        items.add(added);
+        storage.saveChanges(items, List.of(changed, added), List.of(removed.getId()));
+
+        assertEquals(snapshot, Files.readString(file), "snapshot must not be rewritten");
+        assertEquals(3, Files.readAllLines(journal(file)).size());
+        assertEquals(lines(items), lines(new Storage(file).load()));
+    }
+
+    @Test
+    void loadEachStreamsAndSetsTheBaseline() throws Exception {
+        Path file = dir.resolve("items.csv");
+        List<MaintenanceItem> items = fleet(20);
+        new Storage(file).saveSnapshot(items);
+        String snapshot = Files.readString(file);
+
+        Storage storage = new Storage(file);
+        List<MaintenanceItem> streamed = new ArrayList<>();
+        storage.loadEach(streamed::add);
+        assertEquals(lines(items), lines(streamed));
+
+        streamed.get(0).setName("Streamed");
+        storage.saveChanges(streamed, List.of(streamed.get(0)), List.of());
+        assertEquals(snapshot, Files.readString(file), "a save after loadEach must journal, not rewrite");
+        assertEquals(lines(streamed), lines(new Storage(file).load()));
+    }
+
+    @Test
+    void saveChangesWithoutChangesWritesNothing() throws Exception {
+        Path file = dir.resolve("items.csv");
+        Storage storage = new Storage(file);
+        storage.saveSnapshot(fleet(5));
+        storage.saveChanges(storage.load(), List.of(), List.of());
+        assertFalse(Files.exists(journal(file)));
+    }
+
+    @Test
+    void firstSaveWritesASnapshot() throws Exception {
+        Path file = dir.resolve("items.csv");
+        List<MaintenanceItem> items = fleet(5);
+        new Storage(file).saveChanges(items, List.of(items.get(0)), List.of());
+        assertEquals(MaintenanceItem.CSV_HEADER, Files.readAllLines(file).get(0));
+        assertEquals(6, Files.readAllLines(file).size());
+        assertTrue(Journal.isEmpty(journal(file)));
+    }
+
+    @Test
+    void filesWithoutTheHeaderKeepTheirBackslashes() throws Exception {
+        Path file = dir.resolve("items.csv");
+        String line = "a,Path C:\\\\x\\, old,2024-01-01,30,Van";
+        Files.writeString(file, line + "\n");
+
+        Storage storage = new Storage(file);
+        List<MaintenanceItem> items = storage.load();
+        assertEquals("Path C:\\\\x, old", items.get(0).getName());
+
+        // the next save adds the header and escapes the backslashes, so the name survives
+        storage.saveSnapshot(items);
+        assertEquals("Path C:\\\\x, old", new Storage(file).load().get(0).getName());
+        assertEquals("Path C:\\\\x, old", new MappedCsvLoader(file).load().get(0).getName());
+    }
+
+    @Test
+    void filesWithTheHeaderUnescapeBackslashes() throws Exception {
+        Path file = dir.resolve("items.csv");
+        Files.writeString(file, "\n" + MaintenanceItem.CSV_HEADER + "\na,Path C:\\\\x\\, new,2024-01-01,30,Van\n");
+        assertEquals("Path C:\\x, new", new Storage(file).load().get(0).getName());
+        assertEquals("Path C:\\x, new", new MappedCsvLoader(file).load().get(0).getName());
+    }
+
+    @Test
+    void loadRecoversFromATornJournalTail() throws Exception {
+        Path file = dir.resolve("items.csv");
+        Storage storage = new Storage(file);
+        storage.saveSnapshot(fleet(5));
+        List<MaintenanceItem> items = storage.load();
+        items.get(0).setIntervalDays(365);
+        storage.saveChanges(items, List.of(items.get(0)), List.of());
+
+        // a crash halfway through the next record
+        String torn = Journal.record(Journal.DELETE, "id-1");
+        Files.write(journal(file), torn.substring(0, torn.length() - 2).getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.APPEND);
+
+        Storage reopened = new Storage(file);
+        List<MaintenanceItem> recovered = reopened.load();
+        assertEquals(lines(items), lines(recovered));
+
+        // records written after the recovery are not lost behind the torn line
+        recovered.get(1).setName("Brakes");
+        reopened.saveChanges(recovered, List.of(recovered.get(1)), List.of());
+        assertEquals(lines(recovered), lines(new Storage(file).load()));
+    }
+
+    @Test
+    void compactionFoldsTheJournalIntoTheSnapshot() throws Exception {
+        Path file = dir.resolve("items.csv");
+        Storage storage = new Storage(file);
+        storage.saveSnapshot(fleet(10));
+        List<MaintenanceItem> items = storage.load();
+        items.get(2).setVehicle("Truck");
+        MaintenanceItem removed = items.remove(4);
+        storage.saveChanges(items, List.of(items.get(2)), List.of(removed.getId()));
+
+        storage.compact();
+
+        assertTrue(Journal.isEmpty(journal(file)));
+        assertFalse(Files.exists(file.resolveSibling("items.csv.journal.sealed")));
+        assertEquals(lines(items), lines(new Storage(file).load()));
+
+        // the rotated journal keeps taking records after compaction
+        items.get(0).setName("After compaction");
+        storage.saveChanges(items, List.of(items.get(0)), List.of());
+        assertEquals(lines(items), lines(new Storage(file).load()));
+    }
+
+    @Test
+    void noBackgroundCompactionWhenTurnedOff() throws Exception {
+        Path file = dir.resolve("items.csv");
+        Storage storage = new Storage(file);
+        storage.saveSnapshot(fleet(10));
+        storage.setAutoCompaction(false);
+        List<MaintenanceItem> items = storage.load();
+        int saves = Storage.COMPACT_MIN_RECORDS + 10;
+        for (int i = 0; i < saves; i++) {
+            items.get(0).setIntervalDays(i + 1);
+            storage.saveChanges(items, List.of(items.get(0)), List.of());
+        }
+        assertEquals(saves, Files.readAllLines(journal(file)).size());
+        assertFalse(Files.exists(file.resolveSibling("items.csv.journal.sealed")));
+        assertEquals(lines(items), lines(new Storage(file).load()));
+    }
+
+    @Test
+    void closeFinishesTheQueuedCompaction() throws Exception {
+        Path file = dir.resolve("items.csv");
+        Storage storage = new Storage(file);
+        storage.saveSnapshot(fleet(10));
+        List<MaintenanceItem> items = storage.load();
+        for (int i = 0; i < Storage.COMPACT_MIN_RECORDS; i++) {
+            items.get(0).setIntervalDays(i + 1);
+            storage.saveChanges(items, List.of(items.get(0)), List.of());
+        }
+
+        storage.close();
+
+        assertTrue(Journal.isEmpty(journal(file)));
+        assertFalse(Files.exists(file.resolveSibling("items.csv.journal.sealed")));
+        assertEquals(lines(items), lines(new Storage(file).load()));
+
+        // still usable, without background compaction
+        items.get(1).setName("After close");
+        storage.saveChanges(items, List.of(items.get(1)), List.of());
+        assertEquals(1, Files.readAllLines(journal(file)).size());
+        storage.close();
+    }
+
+    @Test
+    void loadReplaysASealedJournalLeftByAnInterruptedCompaction() throws Exception {
+        Path file = dir.resolve("items.csv");
+        Storage storage = new Storage(file);
+        storage.saveSnapshot(fleet(3));
+        List<MaintenanceItem> items = storage.load();
+        items.get(0).setName("Sealed");
+        storage.saveChanges(items, List.of(items.get(0)), List.of());
+        Files.move(journal(file), file.resolveSibling("items.csv.journal.sealed"));
+
+        assertEquals(lines(items), lines(new Storage(file).load()));
+    }
+}